@@ -21,6 +21,7 @@ package com.agateau.pixelwheels.android;
 import android.os.Bundle;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.utils.FileUtils;
+import com.agateau.utils.RuntimeStats;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
@@ -33,6 +34,7 @@ public class AndroidLauncher extends AndroidApplication {
         config.useImmersiveMode = true;
         config.hideStatusBar = true;
         FileUtils.appName = "tinywheels";
+        RuntimeStats.setProvider(new AndroidRuntimeStatsProvider());
         initialize(new PwGame(), config);
         Gdx.input.setCatchBackKey(true);
     }
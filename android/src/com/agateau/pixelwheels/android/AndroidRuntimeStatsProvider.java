@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.android;
+
+import android.os.Build;
+import android.os.Debug;
+import com.agateau.utils.RuntimeStats;
+
+/** Provides runtime statistics using the ART runtime stats */
+class AndroidRuntimeStatsProvider implements RuntimeStats.Provider {
+    @Override
+    public long getGcCount() {
+        return readRuntimeStat("art.gc.gc-count");
+    }
+
+    @Override
+    public long getThreadAllocatedBytes() {
+        // Debug.getThreadAllocSize() is deprecated and requires global allocation counting
+        return RuntimeStats.UNKNOWN;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return readRuntimeStat("art.gc.bytes-allocated");
+    }
+
+    private static long readRuntimeStat(String name) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return RuntimeStats.UNKNOWN;
+        }
+        String value = Debug.getRuntimeStat(name);
+        if (value == null) {
+            return RuntimeStats.UNKNOWN;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return RuntimeStats.UNKNOWN;
+        }
+    }
+}
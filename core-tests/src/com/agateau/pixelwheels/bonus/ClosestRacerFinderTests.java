@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.bonus;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.Vehicle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+@RunWith(JUnit4.class)
+public class ClosestRacerFinderTests {
+    private static final float VEHICLE_SIZE = 1;
+
+    @Mock private GameWorld mGameWorld;
+
+    @Rule public MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    private final World mWorld = new World(new Vector2(0, 0), true);
+    private final Array<Racer> mRacers = new Array<>();
+
+    @Test
+    public void testFindClosestInArc() {
+        // GIVEN a shooter and two racers in front of it, and one behind it
+        Racer shooter = createShooter();
+        createRacer(10, 0);
+        Racer closest = createRacer(5, 1);
+        createRacer(-2, 0);
+        setupRayCasts();
+        ClosestRacerFinder finder = createFinder(shooter, 20, 90);
+
+        // WHEN I look to the right
+        Racer found = finder.find(mGameWorld, new Vector2(0, 0), 0);
+
+        // THEN the closest racer on the right is found
+        assertEquals(closest, found);
+    }
+
+    @Test
+    public void testOutOfArc() {
+        Racer shooter = createShooter();
+        createRacer(5, 5);
+        ClosestRacerFinder finder = createFinder(shooter, 20, 20);
+
+        assertNull(finder.find(mGameWorld, new Vector2(0, 0), 0));
+    }
+
+    @Test
+    public void testOutOfReach() {
+        Racer shooter = createShooter();
+        createRacer(30, 0);
+        ClosestRacerFinder finder = createFinder(shooter, 20, 90);
+
+        assertNull(finder.find(mGameWorld, new Vector2(0, 0), 0));
+    }
+
+    @Test
+    public void testNoArcUsesVehicleSize() {
+        // GIVEN a racer slightly above the ray
+        Racer shooter = createShooter();
+        Racer target = createRacer(5, VEHICLE_SIZE / 4);
+        setupRayCasts();
+        ClosestRacerFinder finder = createFinder(shooter, 20, 0);
+
+        // THEN it is found because its sides cross the ray
+        assertEquals(target, finder.find(mGameWorld, new Vector2(0, 0), 0));
+    }
+
+    @Test
+    public void testHiddenByWall() {
+        // GIVEN a racer behind a wall, and a further one which is not
+        Racer shooter = createShooter();
+        createRacer(6, 0);
+        createWall(3, 0);
+        Racer visible = createRacer(8, 3);
+        setupRayCasts();
+        ClosestRacerFinder finder = createFinder(shooter, 20, 90);
+
+        // THEN the visible one is found
+        assertEquals(visible, finder.find(mGameWorld, new Vector2(0, 0), 0));
+    }
+
+    @Test
+    public void testMaxRayCasts() {
+        // GIVEN a racer behind a wall, and a further one which is not
+        Racer shooter = createShooter();
+        createRacer(6, 0);
+        createWall(3, 0);
+        createRacer(8, 3);
+        setupRayCasts();
+        ClosestRacerFinder finder = createFinder(shooter, 20, 90);
+
+        // WHEN only one raycast is allowed
+        finder.setMaxRayCasts(1);
+
+        // THEN nothing is found since the closest racer is hidden
+        assertNull(finder.find(mGameWorld, new Vector2(0, 0), 0));
+    }
+
+    private ClosestRacerFinder createFinder(Racer shooter, float depth, float arc) {
+        when(mGameWorld.getRacers()).thenReturn(mRacers);
+        ClosestRacerFinder finder = new ClosestRacerFinder(depth, arc);
+        finder.setIgnoredRacer(shooter);
+        return finder;
+    }
+
+    /** Only needed by tests which find a candidate: the others never cast a ray */
+    private void setupRayCasts() {
+        doAnswer(
+                        invocation -> {
+                            mWorld.rayCast(
+                                    invocation.<RayCastCallback>getArgument(0),
+                                    invocation.<Vector2>getArgument(1),
+                                    invocation.<Vector2>getArgument(2));
+                            return null;
+                        })
+                .when(mGameWorld)
+                .rayCast(any(), any(), any());
+    }
+
+    /** The shooter is ignored by the finder, so its position and size are never queried */
+    private Racer createShooter() {
+        Body body = createBody(BodyDef.BodyType.DynamicBody, 0, 0);
+        Racer racer = mock(Racer.class);
+        body.setUserData(racer);
+        mRacers.add(racer);
+        return racer;
+    }
+
+    private Racer createRacer(float x, float y) {
+        Body body = createBody(BodyDef.BodyType.DynamicBody, x, y);
+
+        Vehicle vehicle = mock(Vehicle.class);
+        when(vehicle.getWidth()).thenReturn(VEHICLE_SIZE);
+        when(vehicle.getHeight()).thenReturn(VEHICLE_SIZE);
+
+        Racer racer = mock(Racer.class);
+        when(racer.getX()).thenReturn(x);
+        when(racer.getY()).thenReturn(y);
+        when(racer.getVehicle()).thenReturn(vehicle);
+        body.setUserData(racer);
+        mRacers.add(racer);
+        return racer;
+    }
+
+    private void createWall(float x, float y) {
+        createBody(BodyDef.BodyType.StaticBody, x, y);
+    }
+
+    private Body createBody(BodyDef.BodyType type, float x, float y) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = type;
+        bodyDef.position.set(x, y);
+        Body body = mWorld.createBody(bodyDef);
+
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(VEHICLE_SIZE / 2, VEHICLE_SIZE / 2);
+        body.createFixture(shape, 1f);
+        shape.dispose();
+        return body;
+    }
+}
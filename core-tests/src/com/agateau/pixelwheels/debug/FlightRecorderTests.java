@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.agateau.utils.RuntimeStats;
+import com.badlogic.gdx.files.FileHandle;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FlightRecorderTests {
+    private static final float NORMAL_DELTA = 1 / 60f;
+    private static final float HITCH_DELTA = 0.2f;
+
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        RuntimeStats.setProvider(null);
+    }
+
+    @Test
+    public void testDumpAfterHitch() {
+        // GIVEN a recorder keeping 20 frames, dumping 5 frames after a hitch
+        FileHandle dir = new FileHandle(mTemporaryFolder.getRoot());
+        FrameProfiler profiler = new FrameProfiler(true);
+        profiler.add("- box2d");
+        FlightRecorder recorder = new FlightRecorder(profiler, dir, 20, 5, 50_000);
+
+        // WHEN a hitch happens after 30 frames
+        for (int idx = 0; idx < 30; ++idx) {
+            recordFrame(profiler, recorder, NORMAL_DELTA, idx);
+        }
+        recordFrame(profiler, recorder, HITCH_DELTA, 30);
+
+        // THEN nothing is written until 5 more frames have been recorded
+        for (int idx = 0; idx < 4; ++idx) {
+            recordFrame(profiler, recorder, NORMAL_DELTA, 31 + idx);
+        }
+        assertThat(dir.list().length, is(0));
+        recordFrame(profiler, recorder, NORMAL_DELTA, 35);
+        recorder.dispose();
+
+        // AND the file contains the last 20 frames, in chronological order
+        FileHandle[] files = dir.list();
+        assertThat(files.length, is(1));
+        String[] lines = files[0].readString().split("\n");
+        assertThat(lines.length, is(21));
+        assertThat(lines[0], is("frame;duration;gameObjects;contacts;bodies;gcCount;box2d (ms)"));
+        for (int idx = 1; idx < lines.length; ++idx) {
+            String[] fields = lines[idx].split(";");
+            long frame = idx + 15;
+            assertThat(fields[0], is(String.valueOf(frame)));
+            assertThat(fields[2], is(String.valueOf(frame)));
+        }
+        assertThat(lines[15].split(";")[1], is("200.000000"));
+    }
+
+    @Test
+    public void testIgnoreFirstFrames() {
+        // GIVEN a recorder
+        FileHandle dir = new FileHandle(mTemporaryFolder.getRoot());
+        FrameProfiler profiler = new FrameProfiler(true);
+        FlightRecorder recorder = new FlightRecorder(profiler, dir, 20, 5, 50_000);
+
+        // WHEN the first frame is long, as it is when the race has just been loaded
+        recordFrame(profiler, recorder, HITCH_DELTA, 0);
+        for (int idx = 1; idx < 30; ++idx) {
+            recordFrame(profiler, recorder, NORMAL_DELTA, idx);
+        }
+        recorder.dispose();
+
+        // THEN nothing is written
+        assertThat(dir.list().length, is(0));
+    }
+
+    @Test
+    public void testCounterColumns() {
+        // GIVEN a recorder for a profiler with a section and a counter
+        FileHandle dir = new FileHandle(mTemporaryFolder.getRoot());
+        FrameProfiler profiler = new FrameProfiler(true);
+        profiler.add("- box2d");
+        FrameProfiler.Counter counter = profiler.addCounter("steps");
+        FlightRecorder recorder = new FlightRecorder(profiler, dir, 20, 5, 50_000);
+
+        // WHEN a hitch happens in a frame which ran 3 steps
+        for (int idx = 0; idx < 10; ++idx) {
+            counter.increment();
+            recordFrame(profiler, recorder, NORMAL_DELTA, idx);
+        }
+        counter.add(3);
+        recordFrame(profiler, recorder, HITCH_DELTA, 10);
+        recorder.dispose();
+
+        // THEN the counter is written after the sections, as a count, not as a time
+        String[] lines = dir.list()[0].readString().split("\n");
+        assertThat(
+                lines[0],
+                is("frame;duration;gameObjects;contacts;bodies;gcCount;box2d (ms);steps"));
+        assertThat(lines[lines.length - 1].split(";")[7], is("3"));
+    }
+
+    @Test
+    public void testGcCountIsSampled() {
+        // GIVEN a recorder
+        RuntimeStats.Provider provider = mock(RuntimeStats.Provider.class);
+        RuntimeStats.setProvider(provider);
+        FileHandle dir = new FileHandle(mTemporaryFolder.getRoot());
+        FrameProfiler profiler = new FrameProfiler(true);
+        FlightRecorder recorder = new FlightRecorder(profiler, dir, 20, 5, 50_000);
+
+        // WHEN 1.5 seconds worth of frames are recorded
+        for (int idx = 0; idx < 90; ++idx) {
+            recordFrame(profiler, recorder, NORMAL_DELTA, idx);
+        }
+        recorder.dispose();
+
+        // THEN the GC count is read on the first frame and after one second, not every frame
+        verify(provider, times(2)).getGcCount();
+    }
+
+    private static void recordFrame(
+            FrameProfiler profiler, FlightRecorder recorder, float delta, int gameObjectCount) {
+        profiler.endFrame();
+        recorder.recordFrame(delta, gameObjectCount, 0, 0);
+    }
+}
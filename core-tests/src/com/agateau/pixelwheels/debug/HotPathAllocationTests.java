@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import static org.junit.Assert.assertTrue;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.desktop.DesktopRuntimeStatsProvider;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.racescreen.HeadlessGame;
+import com.agateau.pixelwheels.utils.BodyRecycler;
+import com.agateau.utils.RuntimeStats;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.physics.box2d.World;
+import java.lang.management.ManagementFactory;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Checks code which runs every frame does not allocate, by counting the bytes allocated by the test
+ * thread. Skipped if the JVM cannot count allocations.
+ */
+@RunWith(JUnit4.class)
+public class HotPathAllocationTests {
+    private static final int WARMUP_FRAMES = 5000;
+    private static final int FRAMES = 5000;
+    private static final long MIN_OBJECT_SIZE = 16;
+
+    private interface Frame {
+        void run(int frame);
+    }
+
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpProvider() {
+        Assume.assumeTrue(
+                ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        RuntimeStats.setProvider(new DesktopRuntimeStatsProvider());
+    }
+
+    @AfterClass
+    public static void tearDownProvider() {
+        RuntimeStats.setProvider(null);
+    }
+
+    @Test
+    public void testProfilerAndFlightRecorder() {
+        FrameProfiler profiler = new FrameProfiler(true);
+        FrameProfiler.Section section = profiler.add("section");
+        FlightRecorder recorder =
+                new FlightRecorder(profiler, new FileHandle(mTemporaryFolder.getRoot()));
+        assertNoAllocation(
+                frame -> {
+                    section.start();
+                    section.stop();
+                    profiler.endFrame();
+                    recorder.recordFrame(1 / 60f, 10, 2, 3);
+                });
+        recorder.dispose();
+    }
+
+    @Test
+    public void testBox2DStepWithContacts() {
+        // GIVEN a world where bodies keep colliding, and are recycled
+        World world = new World(new Vector2(0, 0), true);
+        world.setContactListener(new CountingContactListener());
+        BodyRecycler recycler = new BodyRecycler(world);
+        BodyRecycler.BodyFactory factory =
+                w -> {
+                    BodyDef bodyDef = new BodyDef();
+                    bodyDef.type = BodyDef.BodyType.DynamicBody;
+                    Body body = w.createBody(bodyDef);
+                    CircleShape shape = new CircleShape();
+                    shape.setRadius(1);
+                    body.createFixture(shape, 1);
+                    shape.dispose();
+                    return body;
+                };
+        Body[] bodies = new Body[4];
+        for (int idx = 0; idx < bodies.length; ++idx) {
+            bodies[idx] = recycler.obtain("ball", factory, idx * 1.5f, 0, 0);
+        }
+
+        // THEN stepping the world and recycling bodies does not allocate
+        assertNoAllocation(
+                frame -> {
+                    world.step(
+                            GameWorld.BOX2D_TIME_STEP,
+                            GameWorld.VELOCITY_ITERATIONS,
+                            GameWorld.POSITION_ITERATIONS);
+                    int idx = frame % bodies.length;
+                    recycler.free("ball", bodies[idx]);
+                    bodies[idx] = recycler.obtain("ball", factory, idx * 1.5f, 0, 0);
+                });
+        world.dispose();
+    }
+
+    @Test
+    public void testGameWorldAct() {
+        Assume.assumeTrue("Assets have not been built", HeadlessGame.hasAssets());
+        // GIVEN an AI-only race
+        HeadlessGame game = new HeadlessGame();
+        Track track = game.getAssets().findTrackById("race");
+        GameWorldImpl gameWorld = game.createAIRace(track, new FrameProfiler(false), 1234);
+
+        // THEN running it does not allocate
+        assertNoAllocation(frame -> gameWorld.act(GameWorld.BOX2D_TIME_STEP));
+        gameWorld.dispose();
+        game.dispose();
+    }
+
+    private static class CountingContactListener implements ContactListener {
+        int mCount = 0;
+
+        @Override
+        public void beginContact(Contact contact) {
+            contact.getFixtureA().getBody().getUserData();
+            ++mCount;
+        }
+
+        @Override
+        public void endContact(Contact contact) {}
+
+        @Override
+        public void preSolve(Contact contact, Manifold oldManifold) {
+            ++mCount;
+        }
+
+        @Override
+        public void postSolve(Contact contact, ContactImpulse impulse) {}
+    }
+
+    /**
+     * Runs @p frame until it is warmed up, then checks it does not allocate. The allocated bytes
+     * are read once before and once after the measured frames, so that the cost of reading them is
+     * spread over all the frames instead of having to be guessed and subtracted.
+     */
+    private static void assertNoAllocation(Frame frame) {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        for (int idx = 0; idx < WARMUP_FRAMES; ++idx) {
+            frame.run(idx);
+        }
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int idx = 0; idx < FRAMES; ++idx) {
+            frame.run(idx);
+        }
+        long after = bean.getThreadAllocatedBytes(threadId);
+
+        // Check the mean, not the max: the JVM sometimes allocates a few bytes, once in a while,
+        // for example when recompiling code. The smallest object takes 16 bytes, so code which
+        // allocates every frame makes the mean reach at least this.
+        long mean = (after - before) / FRAMES;
+        assertTrue("Allocates " + mean + " bytes per frame", mean < MIN_OBJECT_SIZE);
+    }
+}
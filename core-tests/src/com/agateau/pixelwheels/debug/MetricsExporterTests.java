@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.bonus.BonusPool;
+import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.stats.GameStats;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MetricsExporterTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testExportEveryInterval() {
+        // GIVEN an exporter writing every second
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/metrics.jsonl");
+        GameStats gameStats = mock(GameStats.class);
+        when(gameStats.getSaveCount()).thenReturn(3);
+        MetricsExporter exporter = new MetricsExporter(file, gameStats, 1);
+
+        // WHEN 2.5 seconds worth of frames are rendered
+        for (int idx = 0; idx < 20; ++idx) {
+            exporter.act(0.125f);
+        }
+        exporter.dispose();
+
+        // THEN two lines have been written
+        String[] lines = file.readString().split("\n");
+        assertThat(lines.length, is(2));
+        JsonObject root = new JsonParser().parse(lines[0]).getAsJsonObject();
+        assertThat(root.get("gameStatsSaves").getAsInt(), is(3));
+        JsonObject frames = root.getAsJsonObject("frameTimeMs");
+        assertThat(frames.get("count").getAsInt(), is(8));
+        assertThat(frames.get("max").getAsFloat(), is(125f));
+        assertThat(root.has("race"), is(false));
+    }
+
+    @Test
+    public void testRaceMetrics() {
+        // GIVEN a race with one body, two game objects and a bonus pool
+        World world = new World(new Vector2(0, 0), true);
+        world.createBody(new BodyDef());
+        Array<GameObject> gameObjects = new Array<>();
+        gameObjects.add(mock(GameObject.class));
+        gameObjects.add(mock(GameObject.class));
+        BonusPool<?> pool = mock(BonusPool.class);
+        when(pool.getName()).thenReturn("GunBonus");
+        Array<BonusPool<?>> pools = new Array<>();
+        pools.add(pool);
+
+        GameWorld gameWorld = mock(GameWorld.class);
+        when(gameWorld.getBox2DWorld()).thenReturn(world);
+        when(gameWorld.getActiveGameObjects()).thenReturn(gameObjects);
+        when(gameWorld.getBonusPools()).thenReturn(pools);
+
+        // WHEN a snapshot is created
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/metrics.jsonl");
+        MetricsExporter exporter = new MetricsExporter(file, mock(GameStats.class));
+        exporter.setGameWorld(gameWorld);
+        JsonObject root = exporter.createSnapshot();
+        exporter.dispose();
+
+        // THEN it contains the race metrics
+        JsonObject race = root.getAsJsonObject("race");
+        assertThat(race.get("gameObjectCount").getAsInt(), is(2));
+        assertThat(race.get("bodies").getAsInt(), is(1));
+        assertThat(root.getAsJsonObject("pools").has("GunBonus"), is(true));
+
+        // AND once the world is removed, it does not
+        exporter.removeGameWorld(gameWorld);
+        assertThat(exporter.createSnapshot().has("race"), is(false));
+        world.dispose();
+    }
+}
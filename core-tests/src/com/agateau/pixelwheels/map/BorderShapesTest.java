@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BorderShapesTest {
+    @Test
+    public void testMergeAdjacentRectangles() {
+        // GIVEN two rectangles sharing an edge, and one inside the first one
+        Array<MapObject> objects = new Array<>();
+        objects.add(new RectangleMapObject(0, 0, 10, 100));
+        objects.add(new RectangleMapObject(0, 100, 10, 50));
+        objects.add(new RectangleMapObject(2, 10, 4, 4));
+
+        // WHEN I create the border shapes
+        BorderShapes shapes = BorderShapes.create(objects);
+
+        // THEN they are merged into a single polygon
+        assertThat(shapes.getShapeCount(), is(1));
+        assertThat(shapes.polygons.size, is(1));
+    }
+
+    @Test
+    public void testDoNotMergeDisjointRectangles() {
+        // GIVEN two rectangles with the same width which do not touch
+        Array<MapObject> objects = new Array<>();
+        objects.add(new RectangleMapObject(0, 0, 10, 100));
+        objects.add(new RectangleMapObject(0, 120, 10, 50));
+
+        // WHEN I create the border shapes
+        BorderShapes shapes = BorderShapes.create(objects);
+
+        // THEN they are not merged
+        assertThat(shapes.polygons.size, is(2));
+    }
+
+    @Test
+    public void testIgnoreNonBorderObstacles() {
+        // GIVEN a border and an obstacle
+        Array<MapObject> objects = new Array<>();
+        objects.add(new RectangleMapObject(0, 0, 10, 100));
+        RectangleMapObject obstacle = new RectangleMapObject(20, 0, 10, 100);
+        MapUtils.setObstacleId(obstacle, "tyre");
+        objects.add(obstacle);
+
+        // WHEN I create the border shapes
+        BorderShapes shapes = BorderShapes.create(objects);
+
+        // THEN only the border is listed
+        assertThat(shapes.getShapeCount(), is(1));
+    }
+
+    @Test
+    public void testConcavePolygonBecomesChain() {
+        // GIVEN a concave polygon
+        Array<MapObject> objects = new Array<>();
+        objects.add(new PolygonMapObject(new float[] {0, 0, 20, 0, 10, 5, 20, 20, 0, 20}));
+
+        // WHEN I create the border shapes
+        BorderShapes shapes = BorderShapes.create(objects);
+
+        // THEN it is listed as a chain
+        assertThat(shapes.polygons.size, is(0));
+        assertThat(shapes.chains.size, is(1));
+        assertThat(shapes.chains.get(0).length, is(10));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.EllipseMapObject;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.PolylineMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TrackIOTests {
+    @Test
+    public void testObstaclesRoundTrip() throws IOException {
+        // GIVEN a border, a rotated rectangle obstacle and a polyline obstacle
+        Array<MapObject> objects = new Array<>();
+        objects.add(new RectangleMapObject(0, 0, 10, 100));
+        RectangleMapObject rectangle = new RectangleMapObject(20, 30, 40, 50);
+        MapUtils.setObstacleId(rectangle, "tyre");
+        MapUtils.setObjectRotation(rectangle, 45);
+        objects.add(rectangle);
+        PolylineMapObject polyline = new PolylineMapObject(new float[] {0, 0, 10, 20});
+        polyline.getPolyline().setPosition(5, 6);
+        MapUtils.setObstacleId(polyline, "tree");
+        objects.add(polyline);
+
+        // WHEN I write and read them back
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TrackIO.writeObstacles(new DataOutputStream(bytes), objects);
+        MapObjects result = TrackIO.readObstacles(createInput(bytes));
+
+        // THEN only the obstacles are read back
+        assertThat(result.getCount(), is(2));
+
+        RectangleMapObject rectangle2 = (RectangleMapObject) result.get(0);
+        assertThat(MapUtils.getObstacleId(rectangle2), is("tyre"));
+        assertThat(MapUtils.getObjectRotation(rectangle2), is(45f));
+        assertThat(rectangle2.getRectangle(), is(new Rectangle(20, 30, 40, 50)));
+
+        // AND polylines have their position applied
+        PolylineMapObject polyline2 = (PolylineMapObject) result.get(1);
+        assertThat(MapUtils.getObstacleId(polyline2), is("tree"));
+        assertArrayEquals(
+                new float[] {5, 6, 15, 26},
+                polyline2.getPolyline().getTransformedVertices(),
+                0.001f);
+    }
+
+    @Test
+    public void testBorderShapesRoundTrip() throws IOException {
+        // GIVEN a map with a rectangle border, a concave border and a circle border
+        Array<MapObject> objects = new Array<>();
+        objects.add(new RectangleMapObject(0, 0, 10, 100));
+        objects.add(new PolygonMapObject(new float[] {0, 0, 20, 0, 10, 5, 20, 20, 0, 20}));
+        objects.add(new EllipseMapObject(50, 50, 20, 20));
+        BorderShapes shapes = BorderShapes.create(objects);
+
+        // WHEN I write and read its border shapes
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TrackIO.writeBorderShapes(new DataOutputStream(bytes), shapes);
+        BorderShapes result = TrackIO.readBorderShapes(createInput(bytes));
+
+        // THEN I get the same shapes
+        assertThat(result.polygons.size, is(1));
+        assertArrayEquals(shapes.polygons.get(0), result.polygons.get(0), 0);
+        assertThat(result.chains.size, is(1));
+        assertArrayEquals(shapes.chains.get(0), result.chains.get(0), 0);
+        assertThat(result.circles, is(shapes.circles));
+    }
+
+    private static DataInputStream createInput(ByteArrayOutputStream bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
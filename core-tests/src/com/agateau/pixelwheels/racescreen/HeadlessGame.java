@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.AssetsLoader;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.PwGame;
+import com.agateau.pixelwheels.debug.FrameProfiler;
+import com.agateau.pixelwheels.gamesetup.RecordedGameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.DefaultAudioManager;
+import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.stats.TrackStats;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.utils.Disposable;
+import java.io.File;
+
+/**
+ * Loads the game assets without a window or a GL context, so that tests can run races.
+ *
+ * <p>Requires the assets to have been built and the working directory to be android/assets.
+ */
+public class HeadlessGame implements Disposable {
+    private final Assets mAssets;
+    private final PwGame mGame;
+
+    /** Returns false if the assets have not been built, in which case races cannot be run */
+    public static boolean hasAssets() {
+        return new File("sprites/sprites.atlas").exists();
+    }
+
+    public HeadlessGame() {
+        new HeadlessApplication(
+                new ApplicationAdapter() {}, new HeadlessApplicationConfiguration());
+        // The headless backend has no GL: textures are created but never uploaded
+        Gdx.gl = mock(GL20.class);
+        Gdx.gl20 = Gdx.gl;
+        Box2D.init();
+        mAssets = new AssetsLoader().finishLoading();
+
+        GameStats gameStats = mock(GameStats.class);
+        when(gameStats.getTrackStats(any())).thenReturn(mock(TrackStats.class));
+        mGame = mock(PwGame.class);
+        when(mGame.getAssets()).thenReturn(mAssets);
+        // A real, muted, AudioManager: sound players run their usual code, but never play
+        AudioManager audioManager = new DefaultAudioManager();
+        audioManager.setMuted(true);
+        when(mGame.getAudioManager()).thenReturn(audioManager);
+        when(mGame.getGameStats()).thenReturn(gameStats);
+    }
+
+    public Assets getAssets() {
+        return mAssets;
+    }
+
+    /** Creates an AI-only race on @p track. The random generator is seeded with @p seed. */
+    public GameWorldImpl createAIRace(Track track, FrameProfiler profiler, long seed) {
+        RecordedGameInfo gameInfo = new RecordedGameInfo(track);
+        for (int idx = 0; idx < GamePlay.instance.racerCount; ++idx) {
+            gameInfo.addEntrant(mAssets.vehicleDefs.get(idx % mAssets.vehicleDefs.size).id, -1);
+        }
+        MathUtils.random.setSeed(seed);
+        return new GameWorldImpl(mGame, gameInfo, profiler);
+    }
+
+    @Override
+    public void dispose() {
+        mAssets.trackCache.dispose();
+        Gdx.app.exit();
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.debug.FrameProfiler;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.utils.log.NLog;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Properties;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Runs an AI-only race on each shipped track, without rendering, and checks it does not get slower
+ * than it used to be.
+ *
+ * <p>The race is seeded, so everything but the timings gives nearly the same result on any machine:
+ * body, contact and ray cast counts, lap position lookups and allocated bytes. These are compared
+ * to PW_PERF_COUNTS=file. The perfTest Gradle task points it to the committed
+ * core-tests/track-performance-counts.properties file.
+ *
+ * <p>Timings are checked against absolute budgets, a few times above what a desktop machine
+ * measures. Finer checks compare all the measures to a baseline recorded on the same machine:
+ *
+ * <ul>
+ *   <li>PW_PERF_RECORD_BASELINE=file records the measures of this run in file. To update the
+ *       committed counts, record them and remove the timings, whose names end with "Us".
+ *   <li>PW_PERF_BASELINE=file compares the measures to the ones recorded in file.
+ * </ul>
+ *
+ * <p>The tests fail if a baseline file does not exist or lacks some of the measures.
+ *
+ * <p>The tests are skipped if the assets have not been built, unless PW_PERF_CHECK is set: the
+ * perfTest Gradle task sets it, so that a missing asset fails the build instead of skipping the
+ * checks.
+ */
+@RunWith(Parameterized.class)
+public class TrackPerformanceTests {
+    private static final String COUNTS_ENV = "PW_PERF_COUNTS";
+    private static final String BASELINE_ENV = "PW_PERF_BASELINE";
+    private static final String RECORD_BASELINE_ENV = "PW_PERF_RECORD_BASELINE";
+    private static final String CHECK_ENV = "PW_PERF_CHECK";
+    private static final long SEED = 1234;
+    private static final float TICK = 1 / 60f;
+    // Enough for the countdown to finish and for the JIT to compile the hot paths
+    private static final int WARMUP_TICKS = (int) (10 / TICK);
+    private static final int MEASURED_TICKS = (int) (30 / TICK);
+
+    // How much worse than the baseline a measure may be. Times are noisy, so they get more slack.
+    // Counts are nearly always the same from one run to the next, but once in a while the race
+    // diverges and the contact count changes by up to 20%.
+    private static final float TIME_TOLERANCE = 1.5f;
+    private static final float COUNT_TOLERANCE = 1.25f;
+    // Absolute slack, so that small values do not fail for one object or one contact
+    private static final float ALLOCATION_SLACK = 16;
+    private static final float COUNT_SLACK = 2;
+
+    // Absolute time budgets. A desktop machine measures a mean between 170 and 360 us, and a p99
+    // between 350 us and 4.6 ms, depending on the track
+    private static final float MAX_MEAN_ACT_US = 1_000;
+    private static final float MAX_P99_ACT_US = 8_000;
+
+    private static HeadlessGame sHeadlessGame;
+    private static Assets sAssets;
+    // Null if there are no counts to compare to
+    private static Properties sCounts;
+    // Null if there is no baseline to compare to
+    private static Properties sBaseline;
+    // Null if the measures must not be recorded
+    private static File sRecordFile;
+    private static final Properties sRecordedMeasures = new Properties();
+
+    private final String mTrackId;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> trackIds() {
+        return Arrays.asList(
+                new Object[][] {{"country"}, {"race"}, {"snow2"}, {"be"}, {"tiny-sur-mer"}});
+    }
+
+    public TrackPerformanceTests(String trackId) {
+        mTrackId = trackId;
+    }
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        if (System.getenv(CHECK_ENV) != null) {
+            assertTrue("Assets have not been built", HeadlessGame.hasAssets());
+        }
+        Assume.assumeTrue("Assets have not been built", HeadlessGame.hasAssets());
+        Assume.assumeTrue(
+                ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+
+        sHeadlessGame = new HeadlessGame();
+        sAssets = sHeadlessGame.getAssets();
+        loadBaselines();
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        if (sRecordFile != null && !sRecordedMeasures.isEmpty()) {
+            try (OutputStream out = new FileOutputStream(sRecordFile)) {
+                sRecordedMeasures.store(out, "TrackPerformanceTests baseline");
+            }
+            NLog.i("Baseline saved in %s", sRecordFile);
+        }
+        if (sHeadlessGame != null) {
+            sHeadlessGame.dispose();
+            sHeadlessGame = null;
+        }
+    }
+
+    @Test
+    public void testTrack() {
+        // GIVEN an AI-only race on the track
+        Track track = sAssets.findTrackById(mTrackId);
+        FrameProfiler profiler = new FrameProfiler(true);
+        FrameProfiler.Section actSection = profiler.add("act");
+        GameWorldImpl gameWorld = sHeadlessGame.createAIRace(track, profiler, SEED);
+
+        // WHEN it runs for a while
+        for (int idx = 0; idx < WARMUP_TICKS; ++idx) {
+            gameWorld.act(TICK);
+        }
+        assertEquals(GameWorld.State.RUNNING, gameWorld.getState());
+        profiler.skipFrame();
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long lookupsBefore = track.getLapPositionTable().getLookupCount();
+        long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+        for (int idx = 0; idx < MEASURED_TICKS; ++idx) {
+            actSection.start();
+            gameWorld.act(TICK);
+            actSection.stop();
+            profiler.endFrame();
+        }
+        long bytes = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+        long lookups = track.getLapPositionTable().getLookupCount() - lookupsBefore;
+        int bodyCount = gameWorld.getBox2DWorld().getBodyCount();
+        gameWorld.dispose();
+
+        // THEN it is not slower than the baseline
+        float simulatedSeconds = MEASURED_TICKS * TICK;
+        Properties measures = new Properties();
+        putMeasure(measures, "meanActUs", actSection.getHistogram().getMean());
+        putMeasure(measures, "p99ActUs", actSection.getHistogram().getPercentile(99));
+        putMeasure(measures, "bytesPerTick", (float) bytes / MEASURED_TICKS);
+        putMeasure(measures, "lapLookupsPerSecond", lookups / simulatedSeconds);
+        putMeasure(measures, "bodies", bodyCount);
+        for (FrameProfiler.Counter counter : profiler.getCounters()) {
+            putMeasure(
+                    measures,
+                    counter.getName().replace(' ', '_'),
+                    counter.getHistogram().getMean());
+        }
+        NLog.i("%s: %s\n%s", mTrackId, measures, profiler.createSummary());
+        checkMeasures(measures);
+    }
+
+    private void putMeasure(Properties measures, String name, float value) {
+        measures.setProperty(mTrackId + "." + name, String.format(Locale.US, "%.1f", value));
+    }
+
+    private void checkMeasures(Properties measures) {
+        if (sRecordFile != null) {
+            sRecordedMeasures.putAll(measures);
+        }
+        checkLimit(measures, "meanActUs", MAX_MEAN_ACT_US);
+        checkLimit(measures, "p99ActUs", MAX_P99_ACT_US);
+        if (sCounts != null) {
+            checkBaseline(measures, sCounts, false);
+        }
+        if (sBaseline != null) {
+            checkBaseline(measures, sBaseline, true);
+        }
+    }
+
+    private static void checkBaseline(Properties measures, Properties baseline, boolean withTimes) {
+        for (String key : measures.stringPropertyNames()) {
+            if (!withTimes && isTime(key)) {
+                continue;
+            }
+            float value = Float.parseFloat(measures.getProperty(key));
+            String baselineString = baseline.getProperty(key);
+            assertTrue(
+                    String.format(
+                            Locale.US,
+                            "%s is not in the baseline, record it again with %s",
+                            key,
+                            RECORD_BASELINE_ENV),
+                    baselineString != null);
+            float baselineValue = Float.parseFloat(baselineString);
+            float budget = getBudget(key, baselineValue);
+            assertTrue(
+                    String.format(
+                            Locale.US,
+                            "%s is %.1f, budget is %.1f (baseline %.1f)",
+                            key,
+                            value,
+                            budget,
+                            baselineValue),
+                    value <= budget);
+        }
+    }
+
+    private void checkLimit(Properties measures, String name, float limit) {
+        String key = mTrackId + "." + name;
+        float value = Float.parseFloat(measures.getProperty(key));
+        assertTrue(
+                String.format(Locale.US, "%s is %.1f, limit is %.1f", key, value, limit),
+                value <= limit);
+    }
+
+    private static float getBudget(String key, float baseline) {
+        if (isTime(key)) {
+            return baseline * TIME_TOLERANCE;
+        } else if (key.endsWith("bytesPerTick")) {
+            return baseline * COUNT_TOLERANCE + ALLOCATION_SLACK;
+        } else {
+            return baseline * COUNT_TOLERANCE + COUNT_SLACK;
+        }
+    }
+
+    private static boolean isTime(String key) {
+        return key.endsWith("Us");
+    }
+
+    private static void loadBaselines() throws IOException {
+        String recordPath = System.getenv(RECORD_BASELINE_ENV);
+        if (recordPath != null) {
+            sRecordFile = new File(recordPath);
+        }
+        sCounts = loadBaseline(COUNTS_ENV);
+        sBaseline = loadBaseline(BASELINE_ENV);
+    }
+
+    /** Returns the baseline the environment variable @p env points to, or null if it is not set */
+    private static Properties loadBaseline(String env) throws IOException {
+        String path = System.getenv(env);
+        if (path == null) {
+            NLog.i("%s is not set, it will not be checked", env);
+            return null;
+        }
+        File file = new File(path);
+        assertTrue(
+                String.format(
+                        Locale.US,
+                        "Baseline %s does not exist, record it with %s",
+                        path,
+                        RECORD_BASELINE_ENV),
+                file.exists());
+        Properties baseline = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            baseline.load(in);
+        }
+        return baseline;
+    }
+}
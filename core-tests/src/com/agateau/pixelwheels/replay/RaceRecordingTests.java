@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.gameinput.GameInput;
+import com.agateau.pixelwheels.gamesetup.RecordedGameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.Racer;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RaceRecordingTests {
+    @Test
+    public void testSaveLoad() throws IOException {
+        // GIVEN a recording of a race with one AI and one player
+        Track track = mock(Track.class);
+        when(track.getId()).thenReturn("snow");
+        RecordedGameInfo gameInfo = new RecordedGameInfo(track);
+        gameInfo.addEntrant("blue", -1);
+        gameInfo.addEntrant("red", 0);
+
+        RaceRecording recording = new RaceRecording(12, gameInfo);
+        recording.addFrame(0.016f);
+        recording.addFrame(0.017f);
+        GameInput input = new GameInput();
+        input.direction = -0.5f;
+        input.accelerating = true;
+        input.triggeringBonus = true;
+        recording.addInput(0, input);
+
+        Array<Racer> racers = new Array<>();
+        racers.add(createRacer(1, 2));
+        racers.add(createRacer(3, 4));
+        recording.setFinalPositions(racers);
+
+        // WHEN I save and reload it
+        File file = File.createTempFile("race", ".pwrace");
+        file.deleteOnExit();
+        FileHandle handle = new FileHandle(file);
+        recording.save(handle);
+        RaceRecording loaded = RaceRecording.load(handle);
+
+        // THEN the reloaded recording is the same
+        assertThat(loaded.getSeed(), is(12L));
+        assertThat(loaded.getTrackId(), is("snow"));
+        assertThat(loaded.getFrameCount(), is(2));
+        assertThat(loaded.getDelta(1), is(0.017f));
+        assertThat(loaded.getInputCount(0), is(1));
+        GameInput loadedInput = new GameInput();
+        loaded.getInput(0, 0, loadedInput);
+        assertThat(loadedInput.direction, is(-0.5f));
+        assertThat(loadedInput.accelerating, is(true));
+        assertThat(loadedInput.braking, is(false));
+        assertThat(loadedInput.triggeringBonus, is(true));
+        assertTrue(loaded.matchesFinalPositions(racers));
+
+        // AND a racer at a different position does not match
+        racers.set(1, createRacer(3, 4.001f));
+        assertFalse(loaded.matchesFinalPositions(racers));
+    }
+
+    private static Racer createRacer(float x, float y) {
+        Racer racer = mock(Racer.class);
+        when(racer.getX()).thenReturn(x);
+        when(racer.getY()).thenReturn(y);
+        return racer;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.sound;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.badlogic.gdx.Audio;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SoundAtlasTests {
+    private static final int SHOOT_SIZE = 3000;
+    private static final int IMPACT_SIZE = 1000;
+
+    private Audio mOldAudio;
+    private final Audio mAudio = mock(Audio.class);
+
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        // Audio is mocked, so the sound files only need to have a size
+        getSoundFile("shoot.wav").writeBytes(new byte[SHOOT_SIZE], false);
+        getSoundFile("impact.wav").writeBytes(new byte[IMPACT_SIZE], false);
+        mOldAudio = Gdx.audio;
+        Gdx.audio = mAudio;
+        when(mAudio.newSound(any())).thenAnswer(invocation -> mock(Sound.class));
+    }
+
+    @After
+    public void tearDown() {
+        Gdx.audio = mOldAudio;
+    }
+
+    @Test
+    public void testDecodeOnGet() {
+        // GIVEN an atlas with two sounds
+        SoundAtlas atlas = createAtlas();
+        verify(mAudio, never()).newSound(any());
+
+        // WHEN I get one of them twice
+        atlas.get("shoot");
+        atlas.get("shoot");
+
+        // THEN it is decoded once
+        verify(mAudio, times(1)).newSound(any());
+        assertThat(atlas.getDecodedSize(), is((long) SHOOT_SIZE));
+    }
+
+    @Test
+    public void testTrimReleasesLeastRecentlyUsed() {
+        // GIVEN two decoded sounds, with a budget only big enough for one of them
+        SoundAtlas atlas = createAtlas();
+        Sound shoot = atlas.get("shoot");
+        atlas.get("impact");
+        atlas.setBudget(IMPACT_SIZE);
+
+        // WHEN I trim the atlas
+        atlas.trim();
+
+        // THEN the least recently used one is released
+        assertThat(atlas.getDecodedSize(), is((long) IMPACT_SIZE));
+
+        // AND it is decoded again when played
+        shoot.play();
+        verify(mAudio, times(3)).newSound(any());
+    }
+
+    @Test
+    public void testTrimKeepsPreloadedSounds() {
+        // GIVEN a preloaded sound and a decoded sound, with a budget too small for both
+        SoundAtlas atlas = createAtlas();
+        atlas.preload("shoot");
+        atlas.get("impact");
+        atlas.setBudget(0);
+
+        // WHEN I trim the atlas
+        atlas.trim();
+
+        // THEN only the preloaded sound is still decoded
+        assertThat(atlas.getDecodedSize(), is((long) SHOOT_SIZE));
+    }
+
+    private SoundAtlas createAtlas() {
+        SoundAtlas atlas = new SoundAtlas(new FileHandle(mTemporaryFolder.getRoot()));
+        atlas.load("shoot.wav");
+        atlas.load("impact.wav");
+        return atlas;
+    }
+
+    private FileHandle getSoundFile(String name) {
+        return new FileHandle(mTemporaryFolder.getRoot()).child(name);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.utils.tests;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+import com.agateau.pixelwheels.utils.BodyRecycler;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BodyRecyclerTests {
+    private static final BodyRecycler.BodyFactory FACTORY =
+            world -> {
+                BodyDef bodyDef = new BodyDef();
+                bodyDef.type = BodyDef.BodyType.DynamicBody;
+                Body body = world.createBody(bodyDef);
+                CircleShape shape = new CircleShape();
+                shape.setRadius(1);
+                body.createFixture(shape, 1);
+                shape.dispose();
+                return body;
+            };
+
+    @Test
+    public void testReuse() {
+        World world = createWorld();
+        BodyRecycler recycler = new BodyRecycler(world);
+
+        Body body1 = recycler.obtain("a", FACTORY, 1, 2, 0);
+        assertEquals(1, world.getBodyCount());
+        assertEquals(new Vector2(1, 2), body1.getPosition());
+
+        recycler.free("a", body1);
+        assertFalse(body1.isActive());
+        assertEquals(1, recycler.getFreeBodyCount());
+
+        Body body2 = recycler.obtain("a", FACTORY, 3, 4, 0);
+        assertSame(body1, body2);
+        assertTrue(body2.isActive());
+        assertEquals(new Vector2(3, 4), body2.getPosition());
+        assertEquals(1, world.getBodyCount());
+        assertEquals(0, recycler.getFreeBodyCount());
+    }
+
+    @Test
+    public void testKeysAreSeparated() {
+        World world = createWorld();
+        BodyRecycler recycler = new BodyRecycler(world);
+
+        Body body1 = recycler.obtain("a", FACTORY, 0, 0, 0);
+        recycler.free("a", body1);
+
+        Body body2 = recycler.obtain("b", FACTORY, 0, 0, 0);
+        assertNotSame(body1, body2);
+        assertEquals(2, world.getBodyCount());
+    }
+
+    @Test
+    public void testFreeDestroysJoints() {
+        World world = createWorld();
+        BodyRecycler recycler = new BodyRecycler(world);
+        Body owner = FACTORY.create(world);
+        Body body = recycler.obtain("a", FACTORY, 0, 0, 0);
+
+        WeldJointDef jointDef = new WeldJointDef();
+        jointDef.bodyA = owner;
+        jointDef.bodyB = body;
+        world.createJoint(jointDef);
+        assertEquals(1, world.getJointCount());
+
+        recycler.free("a", body);
+        assertEquals(0, world.getJointCount());
+        assertEquals(0, owner.getJointList().size);
+    }
+
+    private World createWorld() {
+        return new World(new Vector2(0, 0), true);
+    }
+}
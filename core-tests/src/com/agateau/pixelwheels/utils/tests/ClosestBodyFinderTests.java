@@ -20,12 +20,17 @@ package com.agateau.pixelwheels.utils.tests;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
+import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.utils.ClosestBodyFinder;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
 import com.badlogic.gdx.physics.box2d.World;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,7 +42,7 @@ public class ClosestBodyFinderTests {
     public void testEmpty() {
         World world = createWorld();
         ClosestBodyFinder finder = new ClosestBodyFinder();
-        Body body = finder.find(world, new Vector2(0, 0), new Vector2(1, 1));
+        Body body = finder.find(createGameWorld(world), new Vector2(0, 0), new Vector2(1, 1));
 
         assertNull(body);
     }
@@ -48,10 +53,10 @@ public class ClosestBodyFinderTests {
         ClosestBodyFinder finder = new ClosestBodyFinder();
         Body target = createStaticBody(world, 1, 1);
 
-        Body found = finder.find(world, new Vector2(0, 0), new Vector2(0, 1));
+        Body found = finder.find(createGameWorld(world), new Vector2(0, 0), new Vector2(0, 1));
         assertNull(found);
 
-        found = finder.find(world, new Vector2(0, 0), new Vector2(1, 1));
+        found = finder.find(createGameWorld(world), new Vector2(0, 0), new Vector2(1, 1));
         assertEquals(target, found);
     }
 
@@ -64,7 +69,7 @@ public class ClosestBodyFinderTests {
         Body staticBody = createStaticBody(world, 3, 3);
         createDynamicBody(world, 1, 1);
 
-        Body found = finder.find(world, new Vector2(0, 0), new Vector2(3, 3));
+        Body found = finder.find(createGameWorld(world), new Vector2(0, 0), new Vector2(3, 3));
         assertEquals(staticBody, found);
     }
 
@@ -72,6 +77,22 @@ public class ClosestBodyFinderTests {
         return new World(new Vector2(0, 0), true);
     }
 
+    /** Returns a GameWorld which casts its rays in @p world */
+    private static GameWorld createGameWorld(World world) {
+        GameWorld gameWorld = mock(GameWorld.class);
+        doAnswer(
+                        invocation -> {
+                            world.rayCast(
+                                    invocation.<RayCastCallback>getArgument(0),
+                                    invocation.<Vector2>getArgument(1),
+                                    invocation.<Vector2>getArgument(2));
+                            return null;
+                        })
+                .when(gameWorld)
+                .rayCast(any(), any(), any());
+        return gameWorld;
+    }
+
     private Body createStaticBody(World world, float x, float y) {
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyDef.BodyType.StaticBody;
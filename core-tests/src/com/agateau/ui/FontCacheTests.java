@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.ui;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FontCacheTests {
+    @Test
+    public void testDataRoundTrip() throws IOException {
+        // GIVEN font data with two glyphs, one of them with kerning
+        BitmapFont.BitmapFontData data = new BitmapFont.BitmapFontData();
+        data.lineHeight = 34;
+        data.down = -34;
+        data.capHeight = 19;
+        data.spaceXadvance = 7;
+        data.setGlyph('A', createGlyph('A', 1, 2));
+        BitmapFont.Glyph glyph = createGlyph('é', 12, 3);
+        glyph.setKerning('A', -2);
+        data.setGlyph('é', glyph);
+
+        // WHEN I write and read it back
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FontCache.writeData(new DataOutputStream(bytes), data, 3);
+        BitmapFont.BitmapFontData result = new BitmapFont.BitmapFontData();
+        int pageCount =
+                FontCache.readData(
+                        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), result);
+
+        // THEN the data is the same
+        assertThat(pageCount, is(3));
+        assertThat(result.lineHeight, is(34f));
+        assertThat(result.down, is(-34f));
+        assertThat(result.capHeight, is(19f));
+        assertThat(result.spaceXadvance, is(7f));
+        assertThat(result.getGlyph('A').srcX, is(1));
+        assertThat(result.getGlyph('é').srcX, is(12));
+        assertThat(result.getGlyph('é').page, is(3));
+        assertThat(result.getGlyph('é').getKerning('A'), is(-2));
+        assertThat(result.getGlyph('B') == null, is(true));
+    }
+
+    private static BitmapFont.Glyph createGlyph(char ch, int srcX, int page) {
+        BitmapFont.Glyph glyph = new BitmapFont.Glyph();
+        glyph.id = ch;
+        glyph.srcX = srcX;
+        glyph.srcY = 4;
+        glyph.width = 10;
+        glyph.height = 20;
+        glyph.xadvance = 11;
+        glyph.page = page;
+        return glyph;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.ui.animscript;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.ui.DimensionParser;
+import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.scenes.scene2d.Action;
+import com.badlogic.gdx.scenes.scene2d.actions.MoveToAction;
+import com.badlogic.gdx.scenes.scene2d.actions.SequenceAction;
+import com.badlogic.gdx.utils.Align;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AnimScriptLoaderTests {
+    @Test
+    public void testCreateAction() throws AnimScriptLoader.SyntaxException {
+        // GIVEN a script using grid units and an interpolation
+        DimensionParser dimParser = new DimensionParser();
+        dimParser.gridSize = 10;
+        AnimScript script = new AnimScriptLoader().load("moveTo 2g 30 0.5 pow2", dimParser);
+
+        // WHEN I create its action
+        Action action = script.createAction();
+
+        // THEN the action has the parsed arguments
+        assertThat(action instanceof MoveToAction, is(true));
+        MoveToAction moveTo = (MoveToAction) action;
+        assertThat(moveTo.getX(), is(20f));
+        assertThat(moveTo.getY(), is(30f));
+        assertThat(moveTo.getDuration(), is(0.5f));
+        assertThat(moveTo.getInterpolation(), is(Interpolation.pow2));
+    }
+
+    @Test
+    public void testDefaultArguments() throws AnimScriptLoader.SyntaxException {
+        AnimScript script =
+                new AnimScriptLoader()
+                        .load("moveToAligned 1 2 topRight\ndelay 1", new DimensionParser());
+
+        SequenceAction action = (SequenceAction) script.createAction();
+
+        MoveToAction moveTo = (MoveToAction) action.getActions().get(0);
+        assertThat(moveTo.getAlignment(), is(Align.topRight));
+        assertThat(moveTo.getDuration(), is(0f));
+        assertThat(moveTo.getInterpolation(), is(Interpolation.linear));
+    }
+
+    @Test
+    public void testActionsAreNotShared() throws AnimScriptLoader.SyntaxException {
+        AnimScript script = new AnimScriptLoader().load("alpha 0 1", new DimensionParser());
+
+        Action action1 = script.createAction();
+        Action action2 = script.createAction();
+
+        assertThat(action1 != action2, is(true));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.ui.uibuilder;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.ui.anchor.Anchor;
+import com.badlogic.gdx.utils.XmlReader;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UiTemplateTests {
+    @Test
+    public void testCompileActorInfo() throws UiBuilder.SyntaxException {
+        // GIVEN an element with dimensions in pixels and in grid units, and an anchor rule
+        XmlReader.Element root =
+                parse(
+                        "<gdxui><Group x='12' y='3g' width='4px' visible='false'"
+                                + " topLeft='root.bottomRight 1 -2'/></gdxui>");
+        UiTemplate template = new UiTemplate(root);
+
+        // WHEN I get its info
+        UiTemplate.ActorInfo info = template.getActorInfo(root.getChild(0));
+
+        // THEN dimensions can be evaluated for any grid size
+        assertThat(info.x.evaluate(10), is(12f));
+        assertThat(info.y.evaluate(10), is(30f));
+        assertThat(info.width.evaluate(10), is(4f));
+        assertThat(info.height == null, is(true));
+        assertThat(info.visible, is(false));
+
+        // AND the rule is parsed, its spaces default to grid units
+        assertThat(info.rules.size, is(1));
+        UiTemplate.RuleInfo rule = info.rules.get(0);
+        assertThat(rule.referenceId, is("root"));
+        assertThat(rule.referenceAnchor, is(Anchor.BOTTOM_RIGHT));
+        assertThat(rule.targetAnchor, is(Anchor.TOP_LEFT));
+        assertThat(rule.hSpace.evaluate(20), is(20f));
+        assertThat(rule.vSpace.evaluate(20), is(-40f));
+    }
+
+    @Test
+    public void testActorInfoIsReused() throws UiBuilder.SyntaxException {
+        XmlReader.Element root = parse("<gdxui><Group x='12'/></gdxui>");
+        UiTemplate template = new UiTemplate(root);
+
+        UiTemplate.ActorInfo info1 = template.getActorInfo(root.getChild(0));
+        UiTemplate.ActorInfo info2 = template.getActorInfo(root.getChild(0));
+
+        assertThat(info1 == info2, is(true));
+    }
+
+    @Test(expected = UiBuilder.SyntaxException.class)
+    public void testInvalidRule() throws UiBuilder.SyntaxException {
+        XmlReader.Element root = parse("<gdxui><Group topLeft='root.nowhere'/></gdxui>");
+        UiTemplate template = new UiTemplate(root);
+
+        template.getActorInfo(root.getChild(0));
+    }
+
+    private static XmlReader.Element parse(String xml) {
+        return new XmlReader().parse(xml);
+    }
+}
@@ -19,6 +19,7 @@
 package com.agateau.utils.tests;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
 
 import com.agateau.utils.CircularArray;
 import com.badlogic.gdx.math.Vector2;
@@ -55,6 +56,20 @@ public class CircularArrayTests {
         assertEquals(1f, array.get(1).x);
     }
 
+    @Test
+    public void testPreallocate() {
+        // GIVEN a preallocated array
+        TestArray array = new TestArray(2);
+        array.preallocate();
+        Vector2 first = array.get(0);
+        Vector2 second = array.get(1);
+
+        // WHEN items are added
+        // THEN the preallocated instances are returned
+        assertSame(first, array.add());
+        assertSame(second, array.add());
+    }
+
     @Test
     public void testOverwrite() {
         // Given a full 2-item circular array with
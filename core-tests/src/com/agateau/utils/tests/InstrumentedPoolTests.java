@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils.tests;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.utils.InstrumentedPool;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InstrumentedPoolTests {
+    public static class Item {}
+
+    @Test
+    public void testCounts() {
+        // GIVEN a pool from which 3 items have been obtained and 1 freed
+        InstrumentedPool<Item> pool = new InstrumentedPool<>(Item.class);
+        Item item1 = pool.obtain();
+        pool.obtain();
+        pool.obtain();
+        pool.free(item1);
+
+        // THEN the counts are correct
+        assertThat(pool.getObtainCount(), is(3));
+        assertThat(pool.getFreeCount(), is(1));
+        assertThat(pool.getLiveCount(), is(2));
+        assertThat(pool.getPeakLiveCount(), is(3));
+    }
+
+    @Test
+    public void testResetPeakLiveCount() {
+        // GIVEN a pool which had 2 live items, and now has 1
+        InstrumentedPool<Item> pool = new InstrumentedPool<>(Item.class);
+        Item item1 = pool.obtain();
+        pool.obtain();
+        pool.free(item1);
+
+        // WHEN the peak is reset
+        pool.resetPeakLiveCount();
+
+        // THEN the peak is the current live count
+        assertThat(pool.getPeakLiveCount(), is(1));
+
+        // AND it is updated by the next obtain
+        pool.obtain();
+        assertThat(pool.getPeakLiveCount(), is(2));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils.tests;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.utils.TelemetryReader;
+import com.agateau.utils.TelemetryRecorder;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TelemetryRecorderTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        // GIVEN a recorder with a float and an int channel
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/telemetry.dat");
+        TelemetryRecorder recorder = new TelemetryRecorder(file);
+        int speed = recorder.addChannel("speed", TelemetryRecorder.Type.FLOAT);
+        int material = recorder.addChannel("material", TelemetryRecorder.Type.INT);
+
+        // WHEN I record enough rows to fill several blocks, setting the int channel only once
+        final int rowCount = 2500;
+        recorder.setInt(material, 3);
+        for (int row = 0; row < rowCount; ++row) {
+            recorder.setFloat(speed, row / 2f);
+            recorder.endRow();
+        }
+        recorder.dispose();
+
+        // THEN all the rows can be read back
+        TelemetryReader reader = new TelemetryReader(file);
+        assertThat(reader.getChannelCount(), is(2));
+        assertThat(reader.getChannelName(speed), is("speed"));
+        assertThat(reader.getChannelType(material), is(TelemetryRecorder.Type.INT));
+        assertThat(reader.getRowCount(), is(rowCount));
+        for (int row = 0; row < rowCount; ++row) {
+            assertThat(reader.getFloat(speed, row), is(row / 2f));
+            // AND values are kept from one row to the next
+            assertThat(reader.getInt(material, row), is(3));
+        }
+    }
+
+    @Test
+    public void testNoRows() throws IOException {
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/telemetry.dat");
+        TelemetryRecorder recorder = new TelemetryRecorder(file);
+        recorder.addChannel("speed", TelemetryRecorder.Type.FLOAT);
+        recorder.dispose();
+
+        TelemetryReader reader = new TelemetryReader(file);
+        assertThat(reader.getChannelCount(), is(1));
+        assertThat(reader.getRowCount(), is(0));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils.tests;
+
+import static junit.framework.TestCase.assertTrue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.utils.TimeHistogram;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TimeHistogramTests {
+    @Test
+    public void testEmpty() {
+        TimeHistogram histogram = new TimeHistogram();
+        assertThat(histogram.getCount(), is(0));
+        assertThat(histogram.getPercentile(50), is(0L));
+        assertThat(histogram.getMax(), is(0L));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        // GIVEN values from 1 to 10
+        TimeHistogram histogram = new TimeHistogram();
+        for (int value = 1; value <= 10; ++value) {
+            histogram.record(value);
+        }
+
+        // THEN percentiles are exact
+        assertThat(histogram.getPercentile(50), is(5L));
+        assertThat(histogram.getPercentile(90), is(9L));
+        assertThat(histogram.getPercentile(100), is(10L));
+        assertThat(histogram.getMean(), is(5L));
+    }
+
+    @Test
+    public void testLargeValuesAreClose() {
+        // GIVEN 99 frames of about 16ms and a 250ms spike
+        TimeHistogram histogram = new TimeHistogram();
+        for (int idx = 0; idx < 99; ++idx) {
+            histogram.record(16_000 + idx * 10);
+        }
+        histogram.record(250_000);
+
+        // THEN p50 is within 1/16 of the real value
+        long p50 = histogram.getPercentile(50);
+        assertTrue(p50 >= 16_490);
+        assertTrue(p50 <= 16_490 + 16_490 / 16);
+
+        // AND the spike only shows in the max
+        assertTrue(histogram.getPercentile(99) <= 18_000);
+        assertThat(histogram.getMax(), is(250_000L));
+        assertThat(histogram.getPercentile(100), is(250_000L));
+    }
+
+    @Test
+    public void testReset() {
+        TimeHistogram histogram = new TimeHistogram();
+        histogram.record(1000);
+        histogram.reset();
+        assertThat(histogram.getCount(), is(0));
+        assertThat(histogram.getMax(), is(0L));
+    }
+}
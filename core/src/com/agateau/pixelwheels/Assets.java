@@ -21,16 +21,13 @@ package com.agateau.pixelwheels;
 import com.agateau.pixelwheels.gameobjet.AnimationObject;
 import com.agateau.pixelwheels.map.Championship;
 import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.TrackCache;
 import com.agateau.pixelwheels.obstacles.ObstacleDef;
 import com.agateau.pixelwheels.obstacles.ObstacleIO;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.SoundAtlas;
-import com.agateau.pixelwheels.utils.StringUtils;
 import com.agateau.pixelwheels.vehicledef.VehicleDef;
-import com.agateau.pixelwheels.vehicledef.VehicleIO;
-import com.agateau.ui.StrictTextureAtlas;
 import com.agateau.ui.UiAssets;
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -45,11 +42,10 @@ public class Assets implements TextureRegionProvider {
     private static final float TURBO_FRAME_DURATION = 0.1f;
     private static final float TURBO_FLAME_FRAME_DURATION = 0.04f;
 
-    private static final String[] VEHICLE_IDS = {
-        "red", "police", "pickup", "roadster", "antonin", "santa", "2cv", "harvester", "rocket"
-    };
+    // The current track and the next one
+    private static final int TRACK_CACHE_CAPACITY = 2;
 
-    public final Array<VehicleDef> vehicleDefs = new Array<>();
+    public final Array<VehicleDef> vehicleDefs;
     public final Array<Track> tracks =
             new Array<>(
                     new Track[] {
@@ -59,9 +55,10 @@ public class Assets implements TextureRegionProvider {
                         new Track("be", "Blocky Town"),
                         new Track("tiny-sur-mer", "Tiny sur Mer"),
                     });
+    public final TrackCache trackCache = new TrackCache(TRACK_CACHE_CAPACITY);
     public final Array<Championship> championships = new Array<>();
     public final Array<ObstacleDef> obstacleDefs = new Array<>();
-    public final UiAssets ui = new UiAssets();
+    public final UiAssets ui;
 
     public final TextureRegion wheel;
     public final TextureRegion dot;
@@ -81,16 +78,20 @@ public class Assets implements TextureRegionProvider {
     public final TextureRegion helicopterPropeller;
     public final TextureRegion helicopterPropellerTop;
     public final TextureRegion lockedVehicle;
-    public final SoundAtlas soundAtlas = new SoundAtlas(Gdx.files.internal("sounds"));
+    public final SoundAtlas soundAtlas;
 
     private final Animation<TextureRegion> explosion;
 
-    Assets() {
+    /** Use AssetsLoader to create an instance */
+    Assets(TextureAtlas atlas, UiAssets ui, SoundAtlas soundAtlas, Array<VehicleDef> vehicleDefs) {
         if (GamePlay.instance.showTestTrack) {
             tracks.add(new Track("test", "Test"));
         }
 
-        this.atlas = new StrictTextureAtlas(Gdx.files.internal("sprites/sprites.atlas"));
+        this.atlas = atlas;
+        this.ui = ui;
+        this.soundAtlas = soundAtlas;
+        this.vehicleDefs = vehicleDefs;
         this.wheel = findRegion("wheel");
         this.explosion =
                 new Animation<>(EXPLOSION_FRAME_DURATION, this.atlas.findRegions("explosion"));
@@ -121,32 +122,10 @@ public class Assets implements TextureRegionProvider {
 
         this.lockedVehicle = this.findRegion("vehicles/locked");
 
-        loadVehicleDefinitions();
         loadObstacleDefinitions();
-        initSoundAtlas();
         initChampionships();
     }
 
-    private void initSoundAtlas() {
-        for (int i = 0; i < 5; ++i) {
-            String name = StringUtils.format("engine-%d", i);
-            String filename = StringUtils.format("loop_%d_0.wav", i + 1);
-            this.soundAtlas.load(filename, name);
-        }
-        this.soundAtlas.load("drifting.wav");
-        this.soundAtlas.load("bonus.wav");
-        this.soundAtlas.load("explosion.wav");
-        this.soundAtlas.load("shoot.wav");
-        this.soundAtlas.load("impact.wav");
-        this.soundAtlas.load("turbo.wav");
-        this.soundAtlas.load("impact.wav", "collision");
-        this.soundAtlas.load("helicopter.wav");
-        this.soundAtlas.load("missile.wav");
-        this.soundAtlas.load("countdown1.wav");
-        this.soundAtlas.load("countdown2.wav");
-        this.soundAtlas.load("splash.wav");
-    }
-
     private void initChampionships() {
         this.championships.add(
                 new Championship("country", "Country life").addTrack(findTrackById("country")));
@@ -224,12 +203,6 @@ public class Assets implements TextureRegionProvider {
         return ui.atlas.findRegion("map-icons/locked");
     }
 
-    private void loadVehicleDefinitions() {
-        for (String id : VEHICLE_IDS) {
-            this.vehicleDefs.add(VehicleIO.get(id));
-        }
-    }
-
     private void loadObstacleDefinitions() {
         obstacleDefs.clear();
         obstacleDefs.addAll(ObstacleIO.getAll(this));
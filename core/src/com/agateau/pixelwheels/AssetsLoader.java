@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels;
+
+import com.agateau.pixelwheels.sound.EngineSoundPlayer;
+import com.agateau.pixelwheels.sound.SoundAtlas;
+import com.agateau.pixelwheels.vehicledef.VehicleDef;
+import com.agateau.pixelwheels.vehicledef.VehicleIO;
+import com.agateau.ui.StrictTextureAtlas;
+import com.agateau.ui.UiAssets;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+/**
+ * Loads the game assets in small steps, so that a progress screen can be shown while loading.
+ *
+ * <p>Parsing files and decoding images happen on a background thread. Everything which needs the GL
+ * context (texture uploads, font rasterization) happens on the main thread, one step per call to
+ * update(). Sounds are only registered: SoundAtlas decodes them when they are first used.
+ */
+public class AssetsLoader {
+    private static final String[] VEHICLE_IDS = {
+        "red", "police", "pickup", "roadster", "antonin", "santa", "2cv", "harvester", "rocket"
+    };
+
+    /**
+     * How many bytes of decoded sounds to keep between races. The most recently used sounds are
+     * kept, the others are decoded again when needed.
+     *
+     * <p>A race uses about 1.5 MB of decoded sounds: the budget must be above this, otherwise every
+     * race decodes again the sounds released at the end of the previous one.
+     */
+    private static final long SOUND_BUDGET = 2 * 1024 * 1024;
+
+    private interface Step {
+        /** Returns false if the step cannot run yet because it waits for a background task */
+        boolean run();
+    }
+
+    /** An atlas whose images have been decoded, but not uploaded yet */
+    private static class AtlasData {
+        TextureAtlas.TextureAtlasData data;
+        final Array<TextureData> textureDatas = new Array<>();
+    }
+
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "AssetsLoader");
+    private final AsyncResult<AtlasData> mAtlasResult;
+    private final AsyncResult<AtlasData> mUiAtlasResult;
+    private final AsyncResult<Array<VehicleDef>> mVehicleDefsResult;
+
+    private final Array<Step> mSteps = new Array<>();
+    private int mStepIndex = 0;
+    private boolean mBlocking = false;
+
+    private StrictTextureAtlas mAtlas;
+    private StrictTextureAtlas mUiAtlas;
+    private UiAssets mUiAssets;
+    private final SoundAtlas mSoundAtlas = new SoundAtlas(Gdx.files.internal("sounds"));
+    private Assets mAssets;
+
+    public AssetsLoader() {
+        loadSounds();
+
+        // Submit in the order the steps need them, since the executor has only one thread
+        mAtlasResult = mExecutor.submit(() -> loadAtlasData("sprites/sprites.atlas"));
+        mUiAtlasResult = mExecutor.submit(() -> loadAtlasData("ui/uiskin.atlas"));
+        mVehicleDefsResult = mExecutor.submit(AssetsLoader::loadVehicleDefinitions);
+
+        mSteps.add(
+                () -> {
+                    if (!isReady(mAtlasResult)) {
+                        return false;
+                    }
+                    mAtlas = createAtlas(mAtlasResult.get());
+                    return true;
+                });
+        mSteps.add(
+                () -> {
+                    if (!isReady(mUiAtlasResult)) {
+                        return false;
+                    }
+                    mUiAtlas = createAtlas(mUiAtlasResult.get());
+                    return true;
+                });
+        mSteps.add(
+                () -> {
+                    mUiAssets = new UiAssets(mUiAtlas);
+                    return true;
+                });
+        mSteps.add(
+                () -> {
+                    if (!isReady(mVehicleDefsResult)) {
+                        return false;
+                    }
+                    mAssets = new Assets(mAtlas, mUiAssets, mSoundAtlas, mVehicleDefsResult.get());
+                    mExecutor.dispose();
+                    return true;
+                });
+    }
+
+    /** Runs the next loading step. Returns true once all assets are loaded. */
+    public boolean update() {
+        if (mStepIndex < mSteps.size && mSteps.get(mStepIndex).run()) {
+            ++mStepIndex;
+        }
+        return mStepIndex == mSteps.size;
+    }
+
+    /** Returns a value between 0 and 1 */
+    public float getProgress() {
+        return (float) mStepIndex / mSteps.size;
+    }
+
+    /** Loads all the remaining assets, blocking until they are ready */
+    public Assets finishLoading() {
+        mBlocking = true;
+        while (!update()) {}
+        return mAssets;
+    }
+
+    /** Returns the loaded assets, or null if update() has not returned true yet */
+    public Assets getAssets() {
+        return mAssets;
+    }
+
+    private boolean isReady(AsyncResult<?> result) {
+        // In blocking mode, AsyncResult.get() waits for the result to be ready
+        return mBlocking || result.isDone();
+    }
+
+    private void loadSounds() {
+        EngineSoundPlayer.loadSounds(mSoundAtlas);
+        mSoundAtlas.load("drifting.wav");
+        mSoundAtlas.load("bonus.wav");
+        mSoundAtlas.load("explosion.wav");
+        mSoundAtlas.load("shoot.wav");
+        mSoundAtlas.load("impact.wav");
+        mSoundAtlas.load("turbo.wav");
+        mSoundAtlas.load("impact.wav", "collision");
+        mSoundAtlas.load("helicopter.wav");
+        mSoundAtlas.load("missile.wav");
+        mSoundAtlas.load("countdown1.wav");
+        mSoundAtlas.load("countdown2.wav");
+        mSoundAtlas.load("splash.wav");
+        mSoundAtlas.setBudget(SOUND_BUDGET);
+    }
+
+    /** Runs in the background thread: parses the atlas and decodes its images */
+    private static AtlasData loadAtlasData(String path) {
+        FileHandle file = Gdx.files.internal(path);
+        AtlasData atlasData = new AtlasData();
+        atlasData.data = new TextureAtlas.TextureAtlasData(file, file.parent(), false);
+        for (TextureAtlas.TextureAtlasData.Page page : atlasData.data.getPages()) {
+            // FileTextureData keeps a reference to the file, so that the texture can be reloaded
+            // if the GL context is lost
+            TextureData textureData =
+                    TextureData.Factory.loadFromFile(
+                            page.textureFile, page.format, page.useMipMaps);
+            textureData.prepare();
+            atlasData.textureDatas.add(textureData);
+        }
+        return atlasData;
+    }
+
+    /** Runs in the main thread: uploads the decoded images and creates the atlas */
+    private static StrictTextureAtlas createAtlas(AtlasData atlasData) {
+        Array<TextureAtlas.TextureAtlasData.Page> pages = atlasData.data.getPages();
+        for (int idx = 0; idx < pages.size; ++idx) {
+            pages.get(idx).texture = new Texture(atlasData.textureDatas.get(idx));
+        }
+        return new StrictTextureAtlas(atlasData.data);
+    }
+
+    /** Runs in the background thread */
+    private static Array<VehicleDef> loadVehicleDefinitions() {
+        Array<VehicleDef> vehicleDefs = new Array<>();
+        for (String id : VEHICLE_IDS) {
+            vehicleDefs.add(VehicleIO.get(id));
+        }
+        return vehicleDefs;
+    }
+}
@@ -24,6 +24,9 @@ import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racescreen.CountDown;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.utils.BodyRecycler;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 
@@ -43,13 +46,21 @@ public interface GameWorld {
 
     World getBox2DWorld();
 
+    BodyRecycler getBodyRecycler();
+
+    /**
+     * Casts a ray in the Box2D world. Use this instead of World.rayCast(), so that ray casts show
+     * up in the profiler counters.
+     */
+    void rayCast(RayCastCallback callback, Vector2 point1, Vector2 point2);
+
     Racer getPlayerRacer(int playerId);
 
     Array<Racer> getPlayerRacers();
 
     Array<Racer> getRacers();
 
-    Array<BonusPool> getBonusPools();
+    Array<BonusPool<?>> getBonusPools();
 
     Array<GameObject> getActiveGameObjects();
 
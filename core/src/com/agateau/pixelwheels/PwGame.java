@@ -19,12 +19,16 @@
 package com.agateau.pixelwheels;
 
 import com.agateau.pixelwheels.debug.Debug;
+import com.agateau.pixelwheels.debug.MetricsExporter;
 import com.agateau.pixelwheels.gamesetup.ChampionshipGameInfo;
 import com.agateau.pixelwheels.gamesetup.ChampionshipMaestro;
 import com.agateau.pixelwheels.gamesetup.Maestro;
 import com.agateau.pixelwheels.gamesetup.PlayerCount;
 import com.agateau.pixelwheels.gamesetup.QuickRaceMaestro;
+import com.agateau.pixelwheels.replay.RaceBenchmarkScreen;
+import com.agateau.pixelwheels.replay.RaceRecording;
 import com.agateau.pixelwheels.rewards.RewardManager;
+import com.agateau.pixelwheels.screens.LoadingScreen;
 import com.agateau.pixelwheels.screens.MainMenuScreen;
 import com.agateau.pixelwheels.screens.MouseCursorManager;
 import com.agateau.pixelwheels.screens.PwStageScreen;
@@ -47,9 +51,10 @@ import com.badlogic.gdx.Graphics;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.physics.box2d.Box2D;
+import java.io.IOException;
 
 /** The game */
-public class PwGame extends Game implements GameConfig.ChangeListener {
+public class PwGame extends Game implements GameConfig.ChangeListener, LoadingScreen.Listener {
     private Assets mAssets;
     private final ScreenStack mScreenStack = new ScreenStack(this);
     private Maestro mMaestro;
@@ -61,6 +66,8 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
     private Introspector mDebugIntrospector;
     private GameStats mGameStats;
     private RewardManager mRewardManager;
+    private MetricsExporter mMetricsExporter = null;
+    private String mBenchmarkPath = null;
 
     public Assets getAssets() {
         return mAssets;
@@ -74,6 +81,14 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         return mRewardManager;
     }
 
+    /**
+     * Makes the game replay the race recorded in @p path, instead of showing the main menu. Must be
+     * called before create().
+     */
+    public void setBenchmarkPath(String path) {
+        mBenchmarkPath = path;
+    }
+
     @Override
     public void create() {
         mGamePlayIntrospector =
@@ -88,14 +103,38 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         mGamePlayIntrospector.load();
         mDebugIntrospector.load();
 
-        mAssets = new Assets();
         mMouseCursorManager = new MouseCursorManager();
         setupConfig();
         setupTrackStats();
-        setupRewardManager();
+        if (Debug.instance.exportMetrics) {
+            mMetricsExporter =
+                    new MetricsExporter(FileUtils.getUserWritableFile("metrics.jsonl"), mGameStats);
+        }
         Box2D.init();
         setupDisplay();
-        showMainMenu();
+        mScreenStack.push(new LoadingScreen(new AssetsLoader(), this));
+    }
+
+    @Override
+    public void onAssetsLoaded(Assets assets) {
+        mAssets = assets;
+        setupRewardManager();
+        if (mBenchmarkPath != null) {
+            startBenchmark();
+        } else {
+            showMainMenu();
+        }
+    }
+
+    private void startBenchmark() {
+        RaceRecording recording;
+        try {
+            recording = RaceRecording.load(Gdx.files.absolute(mBenchmarkPath));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load race recording " + mBenchmarkPath, e);
+        }
+        mScreenStack.clear();
+        mScreenStack.push(new RaceBenchmarkScreen(this, recording));
     }
 
     @Override
@@ -106,10 +145,25 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         }
         mMouseCursorManager.act();
         super.render();
+        if (mMetricsExporter != null) {
+            mMetricsExporter.act(Gdx.graphics.getDeltaTime());
+        }
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        if (mAssets != null) {
+            mAssets.trackCache.dispose();
+        }
+        if (mMetricsExporter != null) {
+            mMetricsExporter.dispose();
+        }
     }
 
     void refreshAssets() {
-        mAssets = new Assets();
+        mAssets.trackCache.dispose();
+        mAssets = new AssetsLoader().finishLoading();
         // Tracks and championship have been recreated, need to recreate reward manager
         setupRewardManager();
         mMouseCursorManager.refreshAssets();
@@ -168,6 +222,11 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         return mGameStats;
     }
 
+    /** Returns the metrics exporter, or null if metrics are not exported */
+    public MetricsExporter getMetricsExporter() {
+        return mMetricsExporter;
+    }
+
     public Introspector getGamePlayIntrospector() {
         return mGamePlayIntrospector;
     }
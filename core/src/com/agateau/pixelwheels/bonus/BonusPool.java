@@ -22,17 +22,19 @@ import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.utils.AgcMathUtils;
-import com.badlogic.gdx.utils.ReflectionPool;
+import com.agateau.utils.InstrumentedPool;
 
 /** Pool of bonus instances */
-public class BonusPool<T extends Bonus> extends ReflectionPool<T> {
+public class BonusPool<T extends Bonus> extends InstrumentedPool<T> {
     private final Assets mAssets;
     private final GameWorld mGameWorld;
     private final AudioManager mAudioManager;
+    private final String mName;
     private float[] mCounts;
 
     public BonusPool(Class<T> type, Assets assets, GameWorld gameWorld, AudioManager audioManager) {
         super(type);
+        mName = type.getSimpleName();
         mAssets = assets;
         mGameWorld = gameWorld;
         mAudioManager = audioManager;
@@ -58,6 +60,10 @@ public class BonusPool<T extends Bonus> extends ReflectionPool<T> {
         return AgcMathUtils.arrayLerp(mCounts, normalizedRank);
     }
 
+    public String getName() {
+        return mName;
+    }
+
     public GameWorld getGameWorld() {
         return mGameWorld;
     }
@@ -30,25 +30,27 @@ import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.utils.BodyRecycler;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.utils.InstrumentedPool;
+import com.agateau.utils.PoolRegistry;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A player bullet */
 public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolable, Disposable {
-    private static final ReflectionPool<Bullet> sPool = new ReflectionPool<>(Bullet.class);
+    private static final InstrumentedPool<Bullet> sPool =
+            PoolRegistry.register("Bullet", new InstrumentedPool<>(Bullet.class));
 
     private static final float IMPULSE = 160;
 
@@ -58,6 +60,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
     private Assets mAssets;
     private BodyDef mBodyDef;
     private PolygonShape mShape;
+    private BodyRecycler.BodyFactory mBodyFactory;
 
     private Body mBody;
     private boolean mJustShot = false;
@@ -81,11 +84,15 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
         object.mAudioManager = audioManager;
         object.setFinished(false);
         object.mJustShot = true;
-        object.mBodyDef.position.set(originX, originY);
-        object.mBodyDef.angle = angle * MathUtils.degreesToRadians;
-
-        object.mBody = gameWorld.getBox2DWorld().createBody(object.mBodyDef);
-        object.mBody.createFixture(object.mShape, 0f);
+        object.mBody =
+                gameWorld
+                        .getBodyRecycler()
+                        .obtain(
+                                Bullet.class,
+                                object.mBodyFactory,
+                                originX,
+                                originY,
+                                angle * MathUtils.degreesToRadians);
         object.mBody.setUserData(object);
         object.mBody.applyLinearImpulse(
                 IMPULSE * MathUtils.cosDeg(angle),
@@ -93,13 +100,6 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
                 originX,
                 originY,
                 true);
-
-        Box2DUtils.setCollisionInfo(
-                object.mBody,
-                CollisionCategories.RACER_BULLET,
-                CollisionCategories.WALL
-                        | CollisionCategories.RACER
-                        | CollisionCategories.EXPLOSABLE);
         return object;
     }
 
@@ -113,11 +113,24 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
         mShape.setAsBox(
                 assets.bullet.getRegionWidth() * Constants.UNIT_FOR_PIXEL / 2,
                 assets.bullet.getRegionHeight() * Constants.UNIT_FOR_PIXEL / 2);
+
+        mBodyFactory =
+                world -> {
+                    Body body = world.createBody(mBodyDef);
+                    body.createFixture(mShape, 0f);
+                    Box2DUtils.setCollisionInfo(
+                            body,
+                            CollisionCategories.RACER_BULLET,
+                            CollisionCategories.WALL
+                                    | CollisionCategories.RACER
+                                    | CollisionCategories.EXPLOSABLE);
+                    return body;
+                };
     }
 
     @Override
     public void reset() {
-        mGameWorld.getBox2DWorld().destroyBody(mBody);
+        mGameWorld.getBodyRecycler().free(Bullet.class, mBody);
         mBody = null;
     }
 
@@ -166,9 +179,6 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
     @Override
     public void beginContact(Contact contact, Fixture otherFixture) {}
 
-    @Override
-    public void endContact(Contact contact, Fixture otherFixture) {}
-
     @Override
     public void preSolve(Contact contact, Fixture otherFixture, Manifold oldManifold) {
         if (isFinished()) {
@@ -187,7 +197,4 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
             ((Explosable) other).explode();
         }
     }
-
-    @Override
-    public void postSolve(Contact contact, Fixture otherFixture, ContactImpulse impulse) {}
 }
@@ -18,34 +18,66 @@
  */
 package com.agateau.pixelwheels.bonus;
 
-import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.IGNORE;
-import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.STOP_FAILED;
-import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.STOP_SUCCESS;
-
 import com.agateau.pixelwheels.BodyIdentifier;
+import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.racer.Racer;
-import com.agateau.pixelwheels.utils.ArcClosestBodyFinder;
+import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
 
+/**
+ * Finds the closest racer in an arc.
+ *
+ * <p>Racers are few, so instead of casting rays all over the arc, it goes through the racers to
+ * find those inside the arc, then uses a single raycast to check the closest one can be seen. If it
+ * cannot, it tries the next closest one, up to the limit set with setMaxRayCasts().
+ */
 public class ClosestRacerFinder {
-    private final ArcClosestBodyFinder mBodyFinder;
-    private final RacerBodyFilter mFilter = new RacerBodyFilter();
+    private final float mDepth;
+    private final float mArc;
+    private Racer mIgnoredRacer;
+    private int mMaxRayCasts = Integer.MAX_VALUE;
 
-    private static class RacerBodyFilter implements ArcClosestBodyFinder.BodyFilter {
-        Racer mIgnoredRacer;
+    private final Array<Racer> mCandidates = new Array<>();
+    private final FloatArray mCandidateDistances = new FloatArray();
+    private final VisibilityCallback mVisibilityCallback = new VisibilityCallback();
+
+    // Work vars
+    private final Vector2 mTmp = new Vector2();
+    private final Vector2 mTargetPos = new Vector2();
+
+    /** Checks if the first static obstacle on the ray is behind the target, if there is one */
+    private static class VisibilityCallback implements RayCastCallback {
+        Racer mTarget;
+        float mTargetFraction;
+        float mObstacleFraction;
+
+        void reset(Racer target) {
+            mTarget = target;
+            mTargetFraction = 2;
+            mObstacleFraction = 2;
+        }
+
+        boolean isTargetVisible() {
+            return mTargetFraction < mObstacleFraction;
+        }
 
         @Override
-        public ArcClosestBodyFinder.FilterResult filter(Body body) {
-            if (BodyIdentifier.isStaticObstacle(body)) {
-                return STOP_FAILED;
+        public float reportRayFixture(
+                Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+            if (BodyIdentifier.isStaticObstacle(fixture.getBody())) {
+                mObstacleFraction = Math.min(fraction, mObstacleFraction);
+                return fraction;
             }
-            Object userData = body.getUserData();
-            if (!(userData instanceof Racer) || userData == mIgnoredRacer) {
-                return IGNORE;
+            if (fixture.getBody().getUserData() == mTarget) {
+                mTargetFraction = Math.min(fraction, mTargetFraction);
             }
-            return STOP_SUCCESS;
+            return 1;
         }
     }
 
@@ -54,28 +86,92 @@ public class ClosestRacerFinder {
     }
 
     public ClosestRacerFinder(float depth, float arc) {
-        mBodyFinder = new ArcClosestBodyFinder(depth, arc);
-        mBodyFinder.setBodyFilter(mFilter);
+        mDepth = depth;
+        mArc = arc;
     }
 
     public void setIgnoredRacer(Racer ignoredRacer) {
-        mFilter.mIgnoredRacer = ignoredRacer;
+        mIgnoredRacer = ignoredRacer;
+    }
+
+    /**
+     * Limits the number of candidates checked by find(). Useful for callers which call find() at
+     * every frame, since a later frame is likely to have a better view anyway.
+     */
+    public void setMaxRayCasts(int maxRayCasts) {
+        mMaxRayCasts = maxRayCasts;
     }
 
-    public Racer find(World world, Vector2 origin, float angle) {
-        Body body = mBodyFinder.find(world, origin, angle);
-        if (body == null) {
-            return null;
-        } else {
-            return (Racer) body.getUserData();
+    /**
+     * Returns the closest racer which can be seen from @p origin, in the arc pointing in the @p
+     * angle direction
+     */
+    public Racer find(GameWorld gameWorld, Vector2 origin, float angle) {
+        findCandidates(gameWorld.getRacers(), origin, angle);
+        for (int rayCasts = 0; rayCasts < mMaxRayCasts && mCandidates.size > 0; ++rayCasts) {
+            int idx = findClosestCandidateIndex();
+            Racer racer = mCandidates.get(idx);
+            mVisibilityCallback.reset(racer);
+            mTargetPos.set(racer.getX(), racer.getY());
+            gameWorld.rayCast(mVisibilityCallback, origin, mTargetPos);
+            if (mVisibilityCallback.isTargetVisible()) {
+                mCandidates.clear();
+                return racer;
+            }
+            mCandidates.removeIndex(idx);
+            mCandidateDistances.removeIndex(idx);
+        }
+        mCandidates.clear();
+        return null;
+    }
+
+    private void findCandidates(Array<Racer> racers, Vector2 origin, float angle) {
+        mCandidates.clear();
+        mCandidateDistances.clear();
+        for (int idx = 0; idx < racers.size; ++idx) {
+            Racer racer = racers.get(idx);
+            if (racer == mIgnoredRacer) {
+                continue;
+            }
+            Vehicle vehicle = racer.getVehicle();
+            // Use the bounding circle of the vehicle, so that a vehicle is found as soon as one of
+            // its sides is inside the arc
+            float radius = Math.max(vehicle.getWidth(), vehicle.getHeight()) / 2;
+            mTmp.set(racer.getX(), racer.getY()).sub(origin);
+            float distance = mTmp.len();
+            if (distance - radius > mDepth) {
+                continue;
+            }
+            float angleToRacer = AgcMathUtils.normalizeAngle180(mTmp.angle() - angle);
+            float angularRadius =
+                    distance > radius
+                            ? (float) Math.asin(radius / distance) * MathUtils.radiansToDegrees
+                            : 180;
+            if (Math.abs(angleToRacer) > mArc / 2 + angularRadius) {
+                continue;
+            }
+            mCandidates.add(racer);
+            mCandidateDistances.add(distance);
+        }
+    }
+
+    private int findClosestCandidateIndex() {
+        int closestIdx = 0;
+        for (int idx = 1; idx < mCandidates.size; ++idx) {
+            if (mCandidateDistances.get(idx) < mCandidateDistances.get(closestIdx)) {
+                closestIdx = idx;
+            }
         }
+        return closestIdx;
     }
 
     public Vector2 getLeftVertex(Vector2 origin, float angle) {
-        return mBodyFinder.getLeftVertex(origin, angle);
+        mTmp.set(mDepth, 0).rotate(angle + mArc / 2).add(origin);
+        return mTmp;
     }
 
     public Vector2 getRightVertex(Vector2 origin, float angle) {
-        return mBodyFinder.getRightVertex(origin, angle);
+        mTmp.set(mDepth, 0).rotate(angle - mArc / 2).add(origin);
+        return mTmp;
     }
 }
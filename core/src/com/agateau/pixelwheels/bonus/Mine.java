@@ -28,8 +28,11 @@ import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.utils.BodyRecycler;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.utils.InstrumentedPool;
+import com.agateau.utils.PoolRegistry;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
@@ -37,19 +40,18 @@ import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.CircleShape;
 import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Joint;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A mine on the road */
 public class Mine extends GameObjectAdapter
         implements Collidable, Pool.Poolable, Disposable, Explosable {
-    private static final ReflectionPool<Mine> sPool = new ReflectionPool<>(Mine.class);
+    private static final InstrumentedPool<Mine> sPool =
+            PoolRegistry.register("Mine", new InstrumentedPool<>(Mine.class));
 
     private static final float MINE_RADIUS = 0.8f;
 
@@ -60,6 +62,7 @@ public class Mine extends GameObjectAdapter
     private BodyDef mBodyDef;
     private final WeldJointDef mJointDef = new WeldJointDef();
     private CircleShape mShape;
+    private BodyRecycler.BodyFactory mBodyFactory;
 
     private Body mBody;
     private float mTime;
@@ -100,20 +103,14 @@ public class Mine extends GameObjectAdapter
         mine.mJoint = null;
         mine.setFinished(false);
 
-        mine.mBodyDef.position.set(position);
-
-        mine.mBody = gameWorld.getBox2DWorld().createBody(mine.mBodyDef);
-        mine.mBody.createFixture(mine.mShape, 0.00001f);
+        mine.mBody =
+                gameWorld
+                        .getBodyRecycler()
+                        .obtain(Mine.class, mine.mBodyFactory, position.x, position.y, 0);
         mine.mBody.setUserData(mine);
+        // Recycled bodies can be static if they come from a dropped mine
         mine.mBody.setType(BodyDef.BodyType.DynamicBody);
 
-        Box2DUtils.setCollisionInfo(
-                mine.mBody,
-                CollisionCategories.EXPLOSABLE,
-                CollisionCategories.WALL
-                        | CollisionCategories.RACER
-                        | CollisionCategories.RACER_BULLET);
-
         gameWorld.addGameObject(mine);
         return mine;
     }
@@ -125,6 +122,19 @@ public class Mine extends GameObjectAdapter
 
         mShape = new CircleShape();
         mShape.setRadius(MINE_RADIUS);
+
+        mBodyFactory =
+                world -> {
+                    Body body = world.createBody(mBodyDef);
+                    body.createFixture(mShape, 0.00001f);
+                    Box2DUtils.setCollisionInfo(
+                            body,
+                            CollisionCategories.EXPLOSABLE,
+                            CollisionCategories.WALL
+                                    | CollisionCategories.RACER
+                                    | CollisionCategories.RACER_BULLET);
+                    return body;
+                };
     }
 
     private void initJoint() {
@@ -139,8 +149,10 @@ public class Mine extends GameObjectAdapter
 
     @Override
     public void reset() {
-        mGameWorld.getBox2DWorld().destroyBody(mBody);
+        // This also destroys the joint, if any
+        mGameWorld.getBodyRecycler().free(Mine.class, mBody);
         mBody = null;
+        mJoint = null;
     }
 
     @Override
@@ -205,15 +217,9 @@ public class Mine extends GameObjectAdapter
         ((Racer) other).spin();
     }
 
-    @Override
-    public void endContact(Contact contact, Fixture otherFixture) {}
-
     @Override
     public void preSolve(Contact contact, Fixture otherFixture, Manifold oldManifold) {}
 
-    @Override
-    public void postSolve(Contact contact, Fixture otherFixture, ContactImpulse impulse) {}
-
     public void drop() {
         mGameWorld.getBox2DWorld().destroyJoint(mJoint);
         mJoint = null;
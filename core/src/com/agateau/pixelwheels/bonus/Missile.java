@@ -34,8 +34,11 @@ import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.SoundPlayer;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.utils.BodyRecycler;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.utils.InstrumentedPool;
+import com.agateau.utils.PoolRegistry;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -45,21 +48,19 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Joint;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
-import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A player bullet */
 public class Missile extends GameObjectAdapter
         implements Collidable, Pool.Poolable, Disposable, Explosable {
-    private static final ReflectionPool<Missile> sPool = new ReflectionPool<>(Missile.class);
+    private static final InstrumentedPool<Missile> sPool =
+            PoolRegistry.register("Missile", new InstrumentedPool<>(Missile.class));
 
     private static final float WIDTH = 44;
     private static final float HEIGHT = 13;
@@ -67,6 +68,12 @@ public class Missile extends GameObjectAdapter
 
     private static final float LOCK_DISTANCE = 40;
     private static final float LOCK_ARC = 120;
+    /**
+     * Lock-on runs at every frame while the missile is waiting, so only check the closest racer
+     * each time
+     */
+    private static final int LOCK_MAX_RAYCASTS = 1;
+
     private static final float WAITING_DENSITY = 0.0000001f;
     private static final float SHOT_DENSITY = 0.0001f;
     private static final Color TARGETED_COLOR = new Color(1, 1, 1, 0.7f);
@@ -83,6 +90,18 @@ public class Missile extends GameObjectAdapter
     private final BodyDef mBodyDef = new BodyDef();
     private final WeldJointDef mJointDef = new WeldJointDef();
     private final PolygonShape mShape = new PolygonShape();
+    private final BodyRecycler.BodyFactory mBodyFactory =
+            world -> {
+                Body body = world.createBody(mBodyDef);
+                body.createFixture(mShape, WAITING_DENSITY);
+                Box2DUtils.setCollisionInfo(
+                        body,
+                        CollisionCategories.RACER_BULLET,
+                        CollisionCategories.WALL
+                                | CollisionCategories.RACER
+                                | CollisionCategories.EXPLOSABLE);
+                return body;
+            };
     private final BodyRegionDrawer mDrawer = new BodyRegionDrawer();
     private final ClosestRacerFinder mRacerFinder = new ClosestRacerFinder(LOCK_DISTANCE, LOCK_ARC);
     private final MissileGuidingSystem mGuidingSystem = new MissileGuidingSystem();
@@ -121,6 +140,7 @@ public class Missile extends GameObjectAdapter
         mBodyDef.bullet = true;
         mShape.setAsBox(
                 WIDTH * Constants.UNIT_FOR_PIXEL / 2, HEIGHT * Constants.UNIT_FOR_PIXEL / 2);
+        mRacerFinder.setMaxRayCasts(LOCK_MAX_RAYCASTS);
     }
 
     public static Missile create(
@@ -133,18 +153,18 @@ public class Missile extends GameObjectAdapter
         object.mRacerFinder.setIgnoredRacer(shooter);
         Vehicle vehicle = shooter.getVehicle();
         object.mShooter = shooter;
-        object.mBodyDef.position.set(vehicle.getX(), vehicle.getY());
-        object.mBodyDef.angle = vehicle.getAngle() * MathUtils.degRad;
-
-        object.mBody = gameWorld.getBox2DWorld().createBody(object.mBodyDef);
-        object.mBody.createFixture(object.mShape, WAITING_DENSITY);
+        object.mBody =
+                gameWorld
+                        .getBodyRecycler()
+                        .obtain(
+                                Missile.class,
+                                object.mBodyFactory,
+                                vehicle.getX(),
+                                vehicle.getY(),
+                                vehicle.getAngle() * MathUtils.degRad);
         object.mBody.setUserData(object);
-        Box2DUtils.setCollisionInfo(
-                object.mBody,
-                CollisionCategories.RACER_BULLET,
-                CollisionCategories.WALL
-                        | CollisionCategories.RACER
-                        | CollisionCategories.EXPLOSABLE);
+        // Recycled bodies have the density of a shot missile
+        object.setDensity(WAITING_DENSITY);
 
         object.mStatus = Status.WAITING;
         object.mNeedShootSound = false;
@@ -176,20 +196,26 @@ public class Missile extends GameObjectAdapter
 
     public void shoot() {
         resetJoint();
-        mBody.getFixtureList().first().setDensity(SHOT_DENSITY);
-        mBody.resetMassData();
+        setDensity(SHOT_DENSITY);
         mBody.setAngularVelocity(0);
         mStatus = Status.SHOT;
         mTime = 0;
         mNeedShootSound = true;
     }
 
+    private void setDensity(float density) {
+        mBody.getFixtureList().first().setDensity(density);
+        mBody.resetMassData();
+    }
+
     @Override
     public void reset() {
-        // Do not reset the joint here: it crashes for some reason.
-        // The joint is deleted when the body is destroyed anyway.
-        mGameWorld.getBox2DWorld().destroyBody(mBody);
+        // Do not call resetJoint() here: mJoint may already have been destroyed along with the
+        // vehicle body. The recycler destroys the joints which are still attached to the body.
+        mGameWorld.getBodyRecycler().free(Missile.class, mBody);
         mBody = null;
+        mJoint = null;
+        mSoundPlayer = null;
         DebugShapeMap.remove(this);
     }
 
@@ -246,10 +272,9 @@ public class Missile extends GameObjectAdapter
     }
 
     private void findTarget() {
-        World world = mGameWorld.getBox2DWorld();
         mTarget =
                 mRacerFinder.find(
-                        world, mBody.getWorldCenter(), mBody.getAngle() * MathUtils.radDeg);
+                        mGameWorld, mBody.getWorldCenter(), mBody.getAngle() * MathUtils.radDeg);
     }
 
     @Override
@@ -339,16 +364,16 @@ public class Missile extends GameObjectAdapter
         Vector2 pos = mBody.getPosition();
         AnimationObject obj = mAssets.createExplosion(mAudioManager, pos.x, pos.y);
         mGameWorld.addGameObject(obj);
-        mSoundPlayer.stop();
+        // Null if the missile explodes before being shot, or if audioRender() is never called
+        if (mSoundPlayer != null) {
+            mSoundPlayer.stop();
+        }
         setFinished(true);
     }
 
     @Override
     public void beginContact(Contact contact, Fixture otherFixture) {}
 
-    @Override
-    public void endContact(Contact contact, Fixture otherFixture) {}
-
     @Override
     public void preSolve(Contact contact, Fixture otherFixture, Manifold oldManifold) {
         if (isFinished()) {
@@ -372,7 +397,4 @@ public class Missile extends GameObjectAdapter
             ((Explosable) other).explode();
         }
     }
-
-    @Override
-    public void postSolve(Contact contact, Fixture otherFixture, ContactImpulse impulse) {}
 }
@@ -27,6 +27,11 @@ public class Debug {
     public boolean showHudDebugLines = false;
     public boolean oneLapOnly = false;
     public boolean freeCamera = false;
+    public boolean profileFrames = false;
+    public boolean recordHitches = false;
+    public boolean trackAllocations = false;
+    public boolean exportMetrics = false;
+    public boolean recordRaces = false;
 
     public static final Debug instance = new Debug();
 }
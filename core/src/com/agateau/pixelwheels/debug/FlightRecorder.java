@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.utils.CsvWriter;
+import com.agateau.utils.RuntimeStats;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the last frames recorded by a FrameProfiler, together with a few counters, and writes them
+ * to a CSV file when a frame takes too long.
+ *
+ * <p>Frames are stored in a preallocated ring buffer, so recording a frame does not allocate. When
+ * a hitch happens, the recorder waits for a few more frames then writes the whole buffer from a
+ * background thread, so that the file shows what happened before and after the hitch.
+ *
+ * <p>Reading the GC count allocates on some platforms, so it is only sampled once per second.
+ */
+public class FlightRecorder implements Disposable {
+    // About 5 seconds at 60 FPS
+    private static final int DEFAULT_CAPACITY = 300;
+    private static final int DEFAULT_FRAMES_AFTER_HITCH = 60;
+    private static final long DEFAULT_HITCH_THRESHOLD_US = 50_000;
+    // Do not fill the disk if the game keeps hitching
+    private static final int MAX_DUMPS = 10;
+    private static final float GC_SAMPLE_INTERVAL = 1;
+
+    // Columns which are not frame profiler sections
+    private static final int FRAME_COLUMN = 0;
+    private static final int DURATION_COLUMN = 1;
+    private static final int GAME_OBJECTS_COLUMN = 2;
+    private static final int CONTACTS_COLUMN = 3;
+    private static final int BODIES_COLUMN = 4;
+    private static final int GC_COLUMN = 5;
+    private static final int FIRST_SECTION_COLUMN = 6;
+    private static final String[] COLUMN_NAMES = {
+        "frame", "duration", "gameObjects", "contacts", "bodies", "gcCount"
+    };
+
+    private final Array<FrameProfiler.Section> mSections;
+    private final Array<FrameProfiler.Counter> mCounters;
+    private final int mFirstCounterColumn;
+    private final FileHandle mDir;
+    private final int mCapacity;
+    private final int mFramesAfterHitch;
+    private final long mHitchThreshold;
+    private final int mColumnCount;
+
+    private final long[] mFrames;
+    private long mFrameIndex = 0;
+    // Number of frames to record before dumping, -1 if no hitch is pending
+    private int mFramesUntilDump = -1;
+    private int mDumpCount = 0;
+    private long mGcCount = RuntimeStats.UNKNOWN;
+    // Start with a full interval, so that the first frame samples the GC count
+    private float mTimeSinceGcSample = GC_SAMPLE_INTERVAL;
+
+    private final long[] mDumpFrames;
+    private final AtomicBoolean mDumping = new AtomicBoolean(false);
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "FlightRecorder");
+
+    /**
+     * All the sections and counters of @p profiler must have been added when the recorder is
+     * created
+     */
+    public FlightRecorder(FrameProfiler profiler, FileHandle dir) {
+        this(
+                profiler,
+                dir,
+                DEFAULT_CAPACITY,
+                DEFAULT_FRAMES_AFTER_HITCH,
+                DEFAULT_HITCH_THRESHOLD_US);
+    }
+
+    FlightRecorder(
+            FrameProfiler profiler,
+            FileHandle dir,
+            int capacity,
+            int framesAfterHitch,
+            long hitchThresholdUs) {
+        mSections = profiler.getSections();
+        mCounters = profiler.getCounters();
+        mFirstCounterColumn = FIRST_SECTION_COLUMN + mSections.size;
+        mDir = dir;
+        mCapacity = capacity;
+        mFramesAfterHitch = framesAfterHitch;
+        mHitchThreshold = hitchThresholdUs;
+        mColumnCount = mFirstCounterColumn + mCounters.size;
+        mFrames = new long[mCapacity * mColumnCount];
+        mDumpFrames = new long[mCapacity * mColumnCount];
+    }
+
+    /**
+     * Records a frame. Must be called after FrameProfiler.endFrame().
+     *
+     * @param delta the duration of the frame, in seconds
+     */
+    public void recordFrame(float delta, int gameObjectCount, int contactCount, int bodyCount) {
+        long duration = (long) (delta * 1_000_000);
+        mTimeSinceGcSample += delta;
+        if (mTimeSinceGcSample >= GC_SAMPLE_INTERVAL) {
+            mGcCount = RuntimeStats.getGcCount();
+            mTimeSinceGcSample = 0;
+        }
+        int offset = (int) (mFrameIndex % mCapacity) * mColumnCount;
+        mFrames[offset + FRAME_COLUMN] = mFrameIndex;
+        mFrames[offset + DURATION_COLUMN] = duration;
+        mFrames[offset + GAME_OBJECTS_COLUMN] = gameObjectCount;
+        mFrames[offset + CONTACTS_COLUMN] = contactCount;
+        mFrames[offset + BODIES_COLUMN] = bodyCount;
+        mFrames[offset + GC_COLUMN] = mGcCount;
+        for (int idx = 0; idx < mSections.size; ++idx) {
+            mFrames[offset + FIRST_SECTION_COLUMN + idx] = mSections.get(idx).getLastFrameTime();
+        }
+        for (int idx = 0; idx < mCounters.size; ++idx) {
+            mFrames[offset + mFirstCounterColumn + idx] = mCounters.get(idx).getLastFrameValue();
+        }
+        ++mFrameIndex;
+
+        // Ignore the first frames: the delta of the first one includes the loading time of the
+        // race
+        if (duration > mHitchThreshold
+                && mFrameIndex > mFramesAfterHitch
+                && mFramesUntilDump == -1
+                && mDumpCount < MAX_DUMPS) {
+            mFramesUntilDump = mFramesAfterHitch;
+        }
+        if (mFramesUntilDump > 0) {
+            --mFramesUntilDump;
+        } else if (mFramesUntilDump == 0) {
+            mFramesUntilDump = -1;
+            dump();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (mFramesUntilDump >= 0) {
+            dump();
+        }
+        mExecutor.dispose();
+    }
+
+    private void dump() {
+        if (!mDumping.compareAndSet(false, true)) {
+            NLog.e("Previous dump is not finished, skipping");
+            return;
+        }
+        // Copy the frames in chronological order, so that the ring buffer can continue to be
+        // filled while the file is written
+        int frameCount = (int) Math.min(mFrameIndex, mCapacity);
+        int first = (int) ((mFrameIndex - frameCount) % mCapacity);
+        int headCount = Math.min(frameCount, mCapacity - first);
+        System.arraycopy(mFrames, first * mColumnCount, mDumpFrames, 0, headCount * mColumnCount);
+        System.arraycopy(
+                mFrames,
+                0,
+                mDumpFrames,
+                headCount * mColumnCount,
+                (frameCount - headCount) * mColumnCount);
+
+        FileHandle handle = mDir.child(String.format(Locale.US, "hitch-%d.csv", mDumpCount));
+        ++mDumpCount;
+        mExecutor.submit(
+                () -> {
+                    writeFrames(handle, frameCount);
+                    mDumping.set(false);
+                    return null;
+                });
+    }
+
+    private void writeFrames(FileHandle handle, int frameCount) {
+        NLog.i("Writing %d frames to %s", frameCount, handle.path());
+        CsvWriter writer = new CsvWriter(handle);
+        Object[] row = new Object[mColumnCount];
+        System.arraycopy(COLUMN_NAMES, 0, row, 0, COLUMN_NAMES.length);
+        for (int idx = 0; idx < mSections.size; ++idx) {
+            // Sections are indented to show their hierarchy, so a section and a counter or a column
+            // can have the same name once trimmed: add the unit to tell them apart
+            String name = mSections.get(idx).getName().replace("-", "").trim();
+            row[FIRST_SECTION_COLUMN + idx] = name + " (ms)";
+        }
+        for (int idx = 0; idx < mCounters.size; ++idx) {
+            row[mFirstCounterColumn + idx] = mCounters.get(idx).getName();
+        }
+        writer.addRow(row);
+        for (int frame = 0; frame < frameCount; ++frame) {
+            int offset = frame * mColumnCount;
+            for (int column = 0; column < mColumnCount; ++column) {
+                long value = mDumpFrames[offset + column];
+                row[column] = isTimeColumn(column) ? (Object) (value / 1000f) : (Object) value;
+            }
+            writer.addRow(row);
+        }
+        writer.close();
+    }
+
+    /** Time columns are stored in microseconds and written in milliseconds */
+    private boolean isTimeColumn(int column) {
+        return column == DURATION_COLUMN
+                || (column >= FIRST_SECTION_COLUMN && column < mFirstCounterColumn);
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.utils.RuntimeStats;
+import com.agateau.utils.TimeHistogram;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+import java.util.Locale;
+
+/**
+ * Measures how much time each section of a frame takes, and keeps the distribution of these times
+ * so that occasional spikes are not hidden by averages.
+ *
+ * <p>A section can be started and stopped several times per frame, the times are added. Call
+ * endFrame() once per frame to record them.
+ *
+ * <p>When the profiler is disabled, starting and stopping sections does not even read the clock.
+ *
+ * <p>The profiler can also count the bytes allocated by each section, if the platform provides the
+ * information through RuntimeStats. This is useful to find code which should not allocate but does.
+ *
+ * <p>Counters record how many times something happened in a frame, for example how many physics
+ * steps were run. Like sections, their values are added until endFrame() is called.
+ */
+public class FrameProfiler {
+    private static final float[] PERCENTILES = {50, 95, 99};
+
+    private static String sLastSummary = "";
+
+    public static class Section {
+        private final String mName;
+        private final boolean mEnabled;
+        private final boolean mTrackAllocations;
+        private final TimeHistogram mHistogram = new TimeHistogram();
+        private long mStartTime;
+        private long mFrameTime;
+        private long mLastFrameTime;
+
+        private long mStartAllocatedBytes;
+        private long mFrameAllocatedBytes;
+        private long mLastFrameAllocatedBytes;
+        private long mTotalAllocatedBytes;
+        private long mMaxFrameAllocatedBytes;
+
+        private Section(String name, boolean enabled, boolean trackAllocations) {
+            mName = name;
+            mEnabled = enabled;
+            mTrackAllocations = trackAllocations;
+        }
+
+        public void start() {
+            if (!mEnabled) {
+                return;
+            }
+            if (mTrackAllocations) {
+                mStartAllocatedBytes = RuntimeStats.getThreadAllocatedBytes();
+            }
+            mStartTime = TimeUtils.nanoTime();
+        }
+
+        public void stop() {
+            if (!mEnabled) {
+                return;
+            }
+            mFrameTime += TimeUtils.nanoTime() - mStartTime;
+            if (mTrackAllocations) {
+                mFrameAllocatedBytes +=
+                        RuntimeStats.getThreadAllocatedBytes() - mStartAllocatedBytes;
+            }
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public TimeHistogram getHistogram() {
+            return mHistogram;
+        }
+
+        /** Time spent in the section during the last recorded frame, in microseconds */
+        public long getLastFrameTime() {
+            return mLastFrameTime;
+        }
+
+        /** Bytes allocated in the section during the last recorded frame */
+        public long getLastFrameAllocatedBytes() {
+            return mLastFrameAllocatedBytes;
+        }
+
+        public long getMeanFrameAllocatedBytes() {
+            int count = mHistogram.getCount();
+            return count == 0 ? 0 : mTotalAllocatedBytes / count;
+        }
+
+        public long getMaxFrameAllocatedBytes() {
+            return mMaxFrameAllocatedBytes;
+        }
+    }
+
+    public static class Counter {
+        private final String mName;
+        private final boolean mEnabled;
+        // Not a time, but the histogram works for any positive value
+        private final TimeHistogram mHistogram = new TimeHistogram();
+        private long mFrameValue;
+        private long mLastFrameValue;
+
+        private Counter(String name, boolean enabled) {
+            mName = name;
+            mEnabled = enabled;
+        }
+
+        public void increment() {
+            if (mEnabled) {
+                ++mFrameValue;
+            }
+        }
+
+        public void add(long value) {
+            if (mEnabled) {
+                mFrameValue += value;
+            }
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public TimeHistogram getHistogram() {
+            return mHistogram;
+        }
+
+        public long getLastFrameValue() {
+            return mLastFrameValue;
+        }
+    }
+
+    private final boolean mEnabled;
+    private final boolean mTrackAllocations;
+    private final Array<Section> mSections = new Array<>();
+    private final Array<Counter> mCounters = new Array<>();
+
+    public FrameProfiler(boolean enabled) {
+        this(enabled, false);
+    }
+
+    public FrameProfiler(boolean enabled, boolean trackAllocations) {
+        mEnabled = enabled;
+        if (enabled
+                && trackAllocations
+                && RuntimeStats.getThreadAllocatedBytes() == RuntimeStats.UNKNOWN) {
+            NLog.e("Allocation tracking is not supported on this platform");
+            trackAllocations = false;
+        }
+        mTrackAllocations = enabled && trackAllocations;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    public boolean isTrackingAllocations() {
+        return mTrackAllocations;
+    }
+
+    public Section add(String name) {
+        Section section = new Section(name, mEnabled, mTrackAllocations);
+        mSections.add(section);
+        return section;
+    }
+
+    public Array<Section> getSections() {
+        return mSections;
+    }
+
+    public Counter addCounter(String name) {
+        Counter counter = new Counter(name, mEnabled);
+        mCounters.add(counter);
+        return counter;
+    }
+
+    public Array<Counter> getCounters() {
+        return mCounters;
+    }
+
+    /**
+     * Records the time spent in each section and the value of each counter since the last call to
+     * endFrame() or skipFrame()
+     */
+    public void endFrame() {
+        if (!mEnabled) {
+            return;
+        }
+        for (Counter counter : mCounters) {
+            counter.mHistogram.record(counter.mFrameValue);
+            counter.mLastFrameValue = counter.mFrameValue;
+            counter.mFrameValue = 0;
+        }
+        for (Section section : mSections) {
+            long time = section.mFrameTime / 1000;
+            section.mHistogram.record(time);
+            section.mLastFrameTime = time;
+            section.mFrameTime = 0;
+
+            long bytes = section.mFrameAllocatedBytes;
+            section.mLastFrameAllocatedBytes = bytes;
+            section.mTotalAllocatedBytes += bytes;
+            section.mMaxFrameAllocatedBytes = Math.max(bytes, section.mMaxFrameAllocatedBytes);
+            section.mFrameAllocatedBytes = 0;
+        }
+    }
+
+    /**
+     * Forgets the time spent in each section and the counter values since the last call to
+     * endFrame() or skipFrame()
+     */
+    public void skipFrame() {
+        for (Counter counter : mCounters) {
+            counter.mFrameValue = 0;
+        }
+        for (Section section : mSections) {
+            section.mFrameTime = 0;
+            section.mFrameAllocatedBytes = 0;
+        }
+    }
+
+    /**
+     * Returns a table with the percentiles of each section, in milliseconds. If allocations are
+     * tracked, the table also contains the mean and max bytes allocated per frame. Counters are
+     * listed in a second table.
+     */
+    public String createSummary() {
+        StringBuilder builder = new StringBuilder();
+        int frameCount = mSections.size > 0 ? mSections.first().mHistogram.getCount() : 0;
+        builder.append(String.format(Locale.US, "%d frames, times in ms\n", frameCount));
+        builder.append(String.format(Locale.US, "%-16s", "section"));
+        for (float percentile : PERCENTILES) {
+            builder.append(String.format(Locale.US, " %7s", "p" + (int) percentile));
+        }
+        builder.append(String.format(Locale.US, " %7s", "max"));
+        if (mTrackAllocations) {
+            builder.append(String.format(Locale.US, " %9s %9s", "B/frame", "max B"));
+        }
+        builder.append('\n');
+        for (Section section : mSections) {
+            TimeHistogram histogram = section.mHistogram;
+            builder.append(String.format(Locale.US, "%-16s", section.mName));
+            for (float percentile : PERCENTILES) {
+                builder.append(formatTime(histogram.getPercentile(percentile)));
+            }
+            builder.append(formatTime(histogram.getMax()));
+            if (mTrackAllocations) {
+                builder.append(
+                        String.format(
+                                Locale.US,
+                                " %9d %9d",
+                                section.getMeanFrameAllocatedBytes(),
+                                section.mMaxFrameAllocatedBytes));
+            }
+            builder.append('\n');
+        }
+        if (mCounters.size > 0) {
+            builder.append(String.format(Locale.US, "%-16s", "counter"));
+            for (float percentile : PERCENTILES) {
+                builder.append(String.format(Locale.US, " %7s", "p" + (int) percentile));
+            }
+            builder.append(String.format(Locale.US, " %7s %7s\n", "max", "mean"));
+            for (Counter counter : mCounters) {
+                TimeHistogram histogram = counter.mHistogram;
+                builder.append(String.format(Locale.US, "%-16s", counter.mName));
+                for (float percentile : PERCENTILES) {
+                    builder.append(
+                            String.format(Locale.US, " %7d", histogram.getPercentile(percentile)));
+                }
+                builder.append(
+                        String.format(
+                                Locale.US, " %7d %7d\n", histogram.getMax(), histogram.getMean()));
+            }
+        }
+        return builder.toString();
+    }
+
+    /** Logs the summary and keeps it so that it can be shown by getLastSummary() */
+    public void finish() {
+        if (!mEnabled) {
+            return;
+        }
+        sLastSummary = createSummary();
+        NLog.i("Frame profile:\n%s", sLastSummary);
+    }
+
+    /** Returns the summary of the last profiler on which finish() was called */
+    public static String getLastSummary() {
+        return sLastSummary;
+    }
+
+    private static String formatTime(long us) {
+        return String.format(Locale.US, " %7.2f", us / 1000f);
+    }
+}
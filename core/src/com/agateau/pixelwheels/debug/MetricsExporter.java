@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.bonus.BonusPool;
+import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.utils.InstrumentedPool;
+import com.agateau.utils.PoolRegistry;
+import com.agateau.utils.RuntimeStats;
+import com.agateau.utils.TimeHistogram;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.google.gson.JsonObject;
+
+/**
+ * Periodically appends a snapshot of the game metrics to a JSON-lines file, to be able to graph
+ * leaks and slowdowns during long runs.
+ *
+ * <p>Each line is a JSON object with the frame time percentiles since the previous line, the heap
+ * and GC counts, the pool sizes and, if a race is running, the game object and Box2D counts.
+ */
+public class MetricsExporter implements Disposable {
+    private static final float DEFAULT_INTERVAL = 10;
+
+    private final FileHandle mFile;
+    private final GameStats mGameStats;
+    private final float mInterval;
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "MetricsExporter");
+    private final TimeHistogram mFrameTimes = new TimeHistogram();
+    private final long mStartTime = System.currentTimeMillis();
+
+    private GameWorld mGameWorld = null;
+    private float mElapsed = 0;
+
+    public MetricsExporter(FileHandle file, GameStats gameStats) {
+        this(file, gameStats, DEFAULT_INTERVAL);
+    }
+
+    MetricsExporter(FileHandle file, GameStats gameStats, float interval) {
+        NLog.i("Exporting metrics to %s", file.path());
+        mFile = file;
+        mGameStats = gameStats;
+        mInterval = interval;
+    }
+
+    public void setGameWorld(GameWorld gameWorld) {
+        mGameWorld = gameWorld;
+    }
+
+    /**
+     * Stops reporting metrics for @p gameWorld. Does nothing if another world has been set since,
+     * which happens when a race is restarted: the new race is created before the old one is
+     * disposed.
+     */
+    public void removeGameWorld(GameWorld gameWorld) {
+        if (mGameWorld == gameWorld) {
+            mGameWorld = null;
+        }
+    }
+
+    /** Must be called once per frame */
+    public void act(float delta) {
+        mFrameTimes.record((long) (delta * 1_000_000));
+        mElapsed += delta;
+        if (mElapsed >= mInterval) {
+            export();
+            mElapsed -= mInterval;
+            mFrameTimes.reset();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        mExecutor.dispose();
+    }
+
+    private void export() {
+        String line = createSnapshot().toString() + "\n";
+        mExecutor.submit(
+                () -> {
+                    mFile.writeString(line, true /* append */);
+                    return null;
+                });
+    }
+
+    JsonObject createSnapshot() {
+        JsonObject root = new JsonObject();
+        root.addProperty("timestamp", System.currentTimeMillis());
+        root.addProperty("uptime", (System.currentTimeMillis() - mStartTime) / 1000f);
+
+        JsonObject frames = new JsonObject();
+        frames.addProperty("count", mFrameTimes.getCount());
+        frames.addProperty("p50", mFrameTimes.getPercentile(50) / 1000f);
+        frames.addProperty("p95", mFrameTimes.getPercentile(95) / 1000f);
+        frames.addProperty("p99", mFrameTimes.getPercentile(99) / 1000f);
+        frames.addProperty("max", mFrameTimes.getMax() / 1000f);
+        root.add("frameTimeMs", frames);
+
+        Runtime runtime = Runtime.getRuntime();
+        root.addProperty("heapUsed", runtime.totalMemory() - runtime.freeMemory());
+        root.addProperty("heapTotal", runtime.totalMemory());
+        root.addProperty("gcCount", RuntimeStats.getGcCount());
+        root.addProperty("gameStatsSaves", mGameStats.getSaveCount());
+
+        JsonObject pools = new JsonObject();
+        for (ObjectMap.Entry<String, InstrumentedPool<?>> entry : PoolRegistry.getPools()) {
+            pools.add(entry.key, createPoolObject(entry.value));
+        }
+        if (mGameWorld != null) {
+            for (BonusPool<?> pool : mGameWorld.getBonusPools()) {
+                pools.add(pool.getName(), createPoolObject(pool));
+            }
+        }
+        root.add("pools", pools);
+
+        if (mGameWorld != null) {
+            root.add("race", createRaceObject(mGameWorld));
+        }
+        return root;
+    }
+
+    private static JsonObject createPoolObject(InstrumentedPool<?> pool) {
+        JsonObject object = new JsonObject();
+        object.addProperty("free", pool.getFree());
+        object.addProperty("peak", pool.peak);
+        object.addProperty("live", pool.getLiveCount());
+        object.addProperty("peakLive", pool.getPeakLiveCount());
+        return object;
+    }
+
+    private static JsonObject createRaceObject(GameWorld gameWorld) {
+        JsonObject race = new JsonObject();
+        ObjectIntMap<String> counts = new ObjectIntMap<>();
+        for (GameObject object : gameWorld.getActiveGameObjects()) {
+            counts.getAndIncrement(object.getClass().getSimpleName(), 0, 1);
+        }
+        JsonObject gameObjects = new JsonObject();
+        for (ObjectIntMap.Entry<String> entry : counts) {
+            gameObjects.addProperty(entry.key, entry.value);
+        }
+        race.addProperty("gameObjectCount", gameWorld.getActiveGameObjects().size);
+        race.add("gameObjects", gameObjects);
+
+        World world = gameWorld.getBox2DWorld();
+        race.addProperty("bodies", world.getBodyCount());
+        race.addProperty("contacts", world.getContactCount());
+        return race;
+    }
+}
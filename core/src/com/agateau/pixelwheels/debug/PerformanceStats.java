@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.utils.RuntimeStats;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.StringBuilder;
+
+/**
+ * The performance numbers shown by the debug overlays: FPS, frame times, allocation rate and GC
+ * count.
+ *
+ * <p>The allocation rate and the GC count are sampled once per second, since reading them is not
+ * cheap on all platforms: it allocates on Android.
+ */
+public class PerformanceStats {
+    private static final float SAMPLE_INTERVAL = 1;
+
+    private final FrameProfiler mFrameProfiler;
+    private final long mStartGcCount = RuntimeStats.getGcCount();
+
+    private float mElapsed = 0;
+    private long mLastAllocatedBytes = RuntimeStats.getAllocatedBytes();
+    // In bytes per second
+    private long mAllocationRate = RuntimeStats.UNKNOWN;
+    private long mGcCount = mStartGcCount;
+
+    public PerformanceStats(FrameProfiler frameProfiler) {
+        mFrameProfiler = frameProfiler;
+    }
+
+    public void act(float delta) {
+        mElapsed += delta;
+        if (mElapsed < SAMPLE_INTERVAL) {
+            return;
+        }
+        long bytes = RuntimeStats.getAllocatedBytes();
+        if (bytes != RuntimeStats.UNKNOWN && mLastAllocatedBytes != RuntimeStats.UNKNOWN) {
+            mAllocationRate = (long) (Math.max(bytes - mLastAllocatedBytes, 0) / mElapsed);
+        }
+        mLastAllocatedBytes = bytes;
+        mGcCount = RuntimeStats.getGcCount();
+        mElapsed = 0;
+    }
+
+    /**
+     * Appends the stats to @p builder. The first profiler section gets all percentiles, the others
+     * only get p95. Times are in ms. Counters are listed after the sections.
+     */
+    public void appendTo(StringBuilder builder) {
+        builder.append("FPS: ").append(Gdx.graphics.getFramesPerSecond()).append('\n');
+        boolean first = true;
+        for (FrameProfiler.Section section : mFrameProfiler.getSections()) {
+            builder.append(section.getName()).append(": ");
+            appendTime(builder, section.getLastFrameTime());
+            if (first) {
+                builder.append(" | p50 ");
+                appendTime(builder, section.getHistogram().getPercentile(50));
+            }
+            builder.append(" | p95 ");
+            appendTime(builder, section.getHistogram().getPercentile(95));
+            if (first) {
+                builder.append(" | p99 ");
+                appendTime(builder, section.getHistogram().getPercentile(99));
+                first = false;
+            }
+            if (mFrameProfiler.isTrackingAllocations()) {
+                builder.append(" | ").append(section.getLastFrameAllocatedBytes()).append(" B");
+            }
+            builder.append('\n');
+        }
+        for (FrameProfiler.Counter counter : mFrameProfiler.getCounters()) {
+            builder.append(counter.getName())
+                    .append(": ")
+                    .append(counter.getLastFrameValue())
+                    .append(" | p95 ")
+                    .append(counter.getHistogram().getPercentile(95))
+                    .append('\n');
+        }
+
+        builder.append("Alloc: ");
+        if (mAllocationRate == RuntimeStats.UNKNOWN) {
+            builder.append("n/a");
+        } else {
+            builder.append(mAllocationRate / 1024).append(" KB/s");
+        }
+        builder.append('\n');
+
+        builder.append("GC: ");
+        if (mGcCount == RuntimeStats.UNKNOWN) {
+            builder.append("n/a");
+        } else {
+            builder.append(mGcCount).append(" (+").append(mGcCount - mStartGcCount).append(')');
+        }
+        builder.append('\n');
+    }
+
+    /** Appends @p us in ms, with one decimal */
+    private static void appendTime(StringBuilder builder, long us) {
+        long tenths = us / 100;
+        builder.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.pixelwheels.bonus.BonusPool;
+import com.agateau.utils.InstrumentedPool;
+import com.agateau.utils.PoolRegistry;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StringBuilder;
+import java.util.Locale;
+
+/**
+ * Reports the occupancy of the registered pools and of the bonus pools of a race.
+ *
+ * <p>Registered pools are static: once a race is over and its game objects have been disposed, all
+ * their objects must have been freed. Live objects at this point are leaks. Bonus pools belong to
+ * the race, so bonuses still held by racers at the end of the race are not leaks.
+ */
+public class PoolDiagnostics {
+    /** Restarts peak tracking of the registered pools, must be called when a race starts */
+    public static void onRaceStarted() {
+        for (InstrumentedPool<?> pool : PoolRegistry.getPools().values()) {
+            pool.resetPeakLiveCount();
+        }
+    }
+
+    /**
+     * Logs the occupancy of all pools, and reports leaks. Must be called once the game world has
+     * been disposed.
+     */
+    public static void onRaceFinished(Array<BonusPool<?>> bonusPools) {
+        NLog.i("Pools at race end:\n%s", createSummary(bonusPools));
+        for (ObjectMap.Entry<String, InstrumentedPool<?>> entry : PoolRegistry.getPools()) {
+            int liveCount = entry.value.getLiveCount();
+            if (liveCount > 0) {
+                NLog.e(
+                        "%d %s objects have not been freed, dispose() is not called",
+                        liveCount, entry.key);
+            }
+        }
+    }
+
+    public static String createSummary(Array<BonusPool<?>> bonusPools) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(
+                String.format(
+                        Locale.US,
+                        "%-16s %8s %8s %6s %6s %6s\n",
+                        "pool",
+                        "obtained",
+                        "freed",
+                        "live",
+                        "peak",
+                        "free"));
+        for (ObjectMap.Entry<String, InstrumentedPool<?>> entry : PoolRegistry.getPools()) {
+            appendSummaryLine(builder, entry.key, entry.value);
+        }
+        for (BonusPool<?> pool : bonusPools) {
+            appendSummaryLine(builder, pool.getName(), pool);
+        }
+        return builder.toString();
+    }
+
+    /** Appends one "name: live/peak" line per pool to @p builder, for the debug hud */
+    public static void appendHudLines(StringBuilder builder, Array<BonusPool<?>> bonusPools) {
+        for (ObjectMap.Entry<String, InstrumentedPool<?>> entry : PoolRegistry.getPools()) {
+            appendHudLine(builder, entry.key, entry.value);
+        }
+        for (BonusPool<?> pool : bonusPools) {
+            appendHudLine(builder, pool.getName(), pool);
+        }
+    }
+
+    private static void appendHudLine(
+            StringBuilder builder, String name, InstrumentedPool<?> pool) {
+        builder.append(name)
+                .append(": ")
+                .append(pool.getLiveCount())
+                .append('/')
+                .append(pool.getPeakLiveCount())
+                .append('\n');
+    }
+
+    private static void appendSummaryLine(
+            StringBuilder builder, String name, InstrumentedPool<?> pool) {
+        builder.append(
+                String.format(
+                        Locale.US,
+                        "%-16s %8d %8d %6d %6d %6d\n",
+                        name,
+                        pool.getObtainCount(),
+                        pool.getFreeCount(),
+                        pool.getLiveCount(),
+                        pool.getPeakLiveCount(),
+                        pool.getFree()));
+    }
+}
@@ -21,18 +21,19 @@ package com.agateau.pixelwheels.gameobjet;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.utils.InstrumentedPool;
+import com.agateau.utils.PoolRegistry;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A generic short-animation game object */
 public class AnimationObject extends GameObjectAdapter implements Pool.Poolable, Disposable {
-    private static final ReflectionPool<AnimationObject> sPool =
-            new ReflectionPool<>(AnimationObject.class);
+    private static final InstrumentedPool<AnimationObject> sPool =
+            PoolRegistry.register("AnimationObject", new InstrumentedPool<>(AnimationObject.class));
     private float mTime;
     private Animation<TextureRegion> mAnimation;
     private float mPosX;
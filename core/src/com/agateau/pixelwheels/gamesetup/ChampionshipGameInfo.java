@@ -50,4 +50,9 @@ public class ChampionshipGameInfo extends GameInfo {
     public Track getTrack() {
         return mChampionship.getTracks().get(mTrackIndex);
     }
+
+    /** Returns the track of the race after this one, or null if this is the last one */
+    public Track getNextTrack() {
+        return isLastTrack() ? null : mChampionship.getTracks().get(mTrackIndex + 1);
+    }
 }
@@ -22,6 +22,7 @@ import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GameConfig;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.map.Championship;
+import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racescreen.RaceScreen;
 import com.agateau.pixelwheels.rewards.Reward;
 import com.agateau.pixelwheels.screens.ChampionshipFinishedScreen;
@@ -157,6 +158,15 @@ public class ChampionshipMaestro extends Maestro {
                                     rewards, () -> getGame().replaceScreen(createRaceScreen()));
                         }
                     }
+
+                    @Override
+                    public void onRaceFinished() {
+                        // Prepare the next race while the player looks at the results
+                        Track nextTrack = mGameInfo.getNextTrack();
+                        if (nextTrack != null) {
+                            getGame().getAssets().trackCache.prefetch(nextTrack);
+                        }
+                    }
                 };
         return new RaceScreen(getGame(), listener, mGameInfo, RaceScreen.PauseButtons.NO_RESTART);
     }
@@ -111,7 +111,6 @@ public class QuickRaceMaestro extends Maestro {
                 new RaceScreen.Listener() {
                     @Override
                     public void onRestartPressed() {
-                        ((RaceScreen) getGame().getScreen()).forgetTrack();
                         getGame().replaceScreen(createRaceScreen());
                     }
 
@@ -128,6 +127,9 @@ public class QuickRaceMaestro extends Maestro {
                         updateAlreadyUnlockedRewards();
                         showUnlockedRewardScreen(rewards, () -> getGame().showMainMenu());
                     }
+
+                    @Override
+                    public void onRaceFinished() {}
                 };
         QuickRaceGameInfo gameInfo = mGameInfoBuilder.build();
         return new RaceScreen(getGame(), listener, gameInfo, RaceScreen.PauseButtons.ALL);
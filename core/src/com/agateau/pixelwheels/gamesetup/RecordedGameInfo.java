@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.gamesetup;
+
+import com.agateau.pixelwheels.map.Track;
+
+/** A GameInfo whose entrants are known in advance, used to replay recorded races */
+public class RecordedGameInfo extends GameInfo {
+    private final Track mTrack;
+
+    public RecordedGameInfo(Track track) {
+        mTrack = track;
+    }
+
+    /**
+     * Adds an entrant. Entrants must be added in the same order as they were in the recorded race,
+     * since this defines their start positions.
+     *
+     * @param playerIndex the index of the player, or -1 for an AI entrant
+     */
+    public void addEntrant(String vehicleId, int playerIndex) {
+        Entrant entrant;
+        if (playerIndex >= 0) {
+            entrant = new Player(playerIndex, vehicleId);
+        } else {
+            entrant = new Entrant();
+            entrant.mVehicleId = vehicleId;
+        }
+        getEntrants().add(entrant);
+    }
+
+    @Override
+    public Track getTrack() {
+        return mTrack;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.pixelwheels.Constants;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.objects.EllipseMapObject;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Ellipse;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * The borders of a map, in world coordinates, merged into as few shapes as possible.
+ *
+ * <p>Axis-aligned rectangles which share an edge or contain each other are merged together.
+ * Outlines which fit in a Box2D PolygonShape (convex, at most 8 vertices) are listed in {@link
+ * #polygons}, the others are listed in {@link #chains} and must be turned into chain loops.
+ *
+ * <p>Since all coordinates are in world units, all the shapes can be attached to a single static
+ * body positioned at the origin.
+ */
+public class BorderShapes {
+    /** Maximum number of vertices Box2D accepts in a PolygonShape */
+    private static final int MAX_POLYGON_VERTICES = 8;
+
+    /** Distance, in pixels, under which two rectangle edges are considered to be the same */
+    private static final float MERGE_TOLERANCE = 0.5f;
+
+    /** Box2D refuses chain vertices closer than its linear slop */
+    private static final float MIN_VERTEX_DISTANCE2 = 0.005f * 0.005f * 4;
+
+    public final Array<float[]> polygons = new Array<>();
+    public final Array<float[]> chains = new Array<>();
+    public final Array<Circle> circles = new Array<>();
+
+    public static BorderShapes create(Iterable<MapObject> objects) {
+        BorderShapes shapes = new BorderShapes();
+        Array<Rectangle> rectangles = new Array<>();
+        for (MapObject object : objects) {
+            if (!MapUtils.isBorderObstacle(object)) {
+                continue;
+            }
+            float rotation = MapUtils.getObjectRotation(object);
+            if (object instanceof RectangleMapObject && rotation == 0) {
+                // Copy the rectangle: we are going to modify it when merging
+                rectangles.add(new Rectangle(((RectangleMapObject) object).getRectangle()));
+            } else {
+                shapes.addObject(object, rotation);
+            }
+        }
+        mergeRectangles(rectangles);
+        for (Rectangle rect : rectangles) {
+            shapes.addRectangle(rect, 0);
+        }
+        return shapes;
+    }
+
+    public int getShapeCount() {
+        return polygons.size + chains.size + circles.size;
+    }
+
+    private void addObject(MapObject object, float rotation) {
+        final float u = Constants.UNIT_FOR_PIXEL;
+        if (object instanceof RectangleMapObject) {
+            addRectangle(((RectangleMapObject) object).getRectangle(), rotation);
+        } else if (object instanceof PolygonMapObject) {
+            Polygon polygon = ((PolygonMapObject) object).getPolygon();
+            float[] vertices = polygon.getVertices().clone();
+            transformVertices(vertices, polygon.getX(), polygon.getY(), rotation);
+            addOutline(vertices);
+        } else if (object instanceof EllipseMapObject) {
+            Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
+            float radius = ellipse.width * u / 2;
+            circles.add(new Circle(ellipse.x * u + radius, ellipse.y * u + radius, radius));
+        } else {
+            throw new RuntimeException("Unsupported MapObject type: " + object);
+        }
+    }
+
+    /**
+     * Adds a rectangle, rotated by @p rotation degrees around its top-left corner, like Tiled does
+     */
+    private void addRectangle(Rectangle rect, float rotation) {
+        /*
+         A          D
+          x--------x
+          |        |
+          x--------x
+         B          C
+        */
+        float[] vertices =
+                new float[] {0, 0, 0, -rect.height, rect.width, -rect.height, rect.width, 0};
+        transformVertices(vertices, rect.x, rect.y + rect.height, rotation);
+        addOutline(vertices);
+    }
+
+    private void addOutline(float[] vertices) {
+        if (vertices.length / 2 <= MAX_POLYGON_VERTICES && isConvex(vertices)) {
+            polygons.add(vertices);
+        } else {
+            chains.add(removeCloseVertices(vertices));
+        }
+    }
+
+    /**
+     * Rotates @p vertices by @p rotation degrees, moves them to (@p originX, @p originY) then
+     * converts them from pixels to world units
+     */
+    private static void transformVertices(
+            float[] vertices, float originX, float originY, float rotation) {
+        final float u = Constants.UNIT_FOR_PIXEL;
+        float cos = MathUtils.cosDeg(rotation);
+        float sin = MathUtils.sinDeg(rotation);
+        for (int idx = 0; idx < vertices.length; idx += 2) {
+            float x = vertices[idx];
+            float y = vertices[idx + 1];
+            vertices[idx] = (originX + x * cos - y * sin) * u;
+            vertices[idx + 1] = (originY + x * sin + y * cos) * u;
+        }
+    }
+
+    /** Merge rectangles until no more merge is possible */
+    static void mergeRectangles(Array<Rectangle> rectangles) {
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < rectangles.size; ++i) {
+                Rectangle r1 = rectangles.get(i);
+                for (int j = rectangles.size - 1; j > i; --j) {
+                    Rectangle r2 = rectangles.get(j);
+                    if (canMerge(r1, r2)) {
+                        r1.merge(r2);
+                        rectangles.removeIndex(j);
+                        merged = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Returns true if the bounding box of @p r1 and @p r2 covers exactly the same area as them */
+    private static boolean canMerge(Rectangle r1, Rectangle r2) {
+        if (contains(r1, r2) || contains(r2, r1)) {
+            return true;
+        }
+        if (isSameSpan(r1.x, r1.width, r2.x, r2.width)) {
+            return isTouchingSpan(r1.y, r1.height, r2.y, r2.height);
+        }
+        if (isSameSpan(r1.y, r1.height, r2.y, r2.height)) {
+            return isTouchingSpan(r1.x, r1.width, r2.x, r2.width);
+        }
+        return false;
+    }
+
+    private static boolean contains(Rectangle r1, Rectangle r2) {
+        return r2.x >= r1.x - MERGE_TOLERANCE
+                && r2.y >= r1.y - MERGE_TOLERANCE
+                && r2.x + r2.width <= r1.x + r1.width + MERGE_TOLERANCE
+                && r2.y + r2.height <= r1.y + r1.height + MERGE_TOLERANCE;
+    }
+
+    private static boolean isSameSpan(float start1, float length1, float start2, float length2) {
+        return Math.abs(start1 - start2) < MERGE_TOLERANCE
+                && Math.abs(start1 + length1 - start2 - length2) < MERGE_TOLERANCE;
+    }
+
+    private static boolean isTouchingSpan(
+            float start1, float length1, float start2, float length2) {
+        return start2 <= start1 + length1 + MERGE_TOLERANCE
+                && start1 <= start2 + length2 + MERGE_TOLERANCE;
+    }
+
+    static boolean isConvex(float[] vertices) {
+        int count = vertices.length / 2;
+        if (count < 3) {
+            return false;
+        }
+        int sign = 0;
+        for (int idx = 0; idx < count; ++idx) {
+            int i1 = idx * 2;
+            int i2 = ((idx + 1) % count) * 2;
+            int i3 = ((idx + 2) % count) * 2;
+            float cross =
+                    (vertices[i2] - vertices[i1]) * (vertices[i3 + 1] - vertices[i2 + 1])
+                            - (vertices[i2 + 1] - vertices[i1 + 1]) * (vertices[i3] - vertices[i2]);
+            int crossSign = (int) Math.signum(cross);
+            if (crossSign == 0) {
+                continue;
+            }
+            if (sign == 0) {
+                sign = crossSign;
+            } else if (sign != crossSign) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static float[] removeCloseVertices(float[] vertices) {
+        float[] result = new float[vertices.length];
+        int length = 0;
+        for (int idx = 0; idx < vertices.length; idx += 2) {
+            float x = vertices[idx];
+            float y = vertices[idx + 1];
+            if (length > 0 && isClose(x, y, result[length - 2], result[length - 1])) {
+                continue;
+            }
+            result[length++] = x;
+            result[length++] = y;
+        }
+        // Chains are loops: the last vertex must not be close to the first one either
+        if (length > 2 && isClose(result[0], result[1], result[length - 2], result[length - 1])) {
+            length -= 2;
+        }
+        float[] trimmed = new float[length];
+        System.arraycopy(result, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    private static boolean isClose(float x1, float y1, float x2, float y2) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        return dx * dx + dy * dy < MIN_VERTEX_DISTANCE2;
+    }
+}
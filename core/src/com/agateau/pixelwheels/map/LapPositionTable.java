@@ -26,6 +26,8 @@ import com.badlogic.gdx.utils.Array;
 /** Can provide the position within a lap based on x, y (in tile pixels) */
 public class LapPositionTable {
     private final Array<LapSection> mSections = new Array<>();
+    // Number of calls to get(), used by the performance tests
+    private long mLookupCount = 0;
 
     private static class LapSection {
         private final int mSectionId;
@@ -65,7 +67,18 @@ public class LapPositionTable {
         mSections.add(new LapSection(section, polygon));
     }
 
+    /** Returns a copy of the table, which can be used from another thread */
+    LapPositionTable copy() {
+        LapPositionTable table = new LapPositionTable();
+        for (LapSection section : mSections) {
+            Polygon polygon = new Polygon(section.mPolygon.getTransformedVertices().clone());
+            table.addSection(section.mSectionId, polygon);
+        }
+        return table;
+    }
+
     public LapPosition get(int x, int y) {
+        ++mLookupCount;
         for (LapSection zone : mSections) {
             if (zone.mPolygon.contains(x, y)) {
                 return zone.computePosition(x, y);
@@ -74,7 +87,15 @@ public class LapPositionTable {
         return null;
     }
 
+    Polygon getSectionPolygon(int section) {
+        return mSections.get(section).mPolygon;
+    }
+
     public int getSectionCount() {
         return mSections.size;
     }
+
+    public long getLookupCount() {
+        return mLookupCount;
+    }
 }
@@ -29,8 +29,12 @@ import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.math.Polyline;
 import com.badlogic.gdx.utils.Array;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Loads a LapPositionTable from a TiledMap. Parses the section segments defined in
@@ -105,25 +109,103 @@ public class LapPositionTableIO {
         return table;
     }
 
+    /**
+     * Creates a pixmap showing the lap position of each pixel. Rows are split into bands which are
+     * computed in parallel.
+     */
     public static Pixmap createPixmap(LapPositionTable table, int width, int height) {
         NLog.i("Saving");
         Pixmap pixmap = new Pixmap(width, height, Pixmap.Format.RGBA8888);
-        for (int y = 0; y < height; ++y) {
-            NLog.i("Saving %d/%d", y, height);
-            for (int x = 0; x < width; ++x) {
-                LapPosition pos = table.get(x, y);
-                int color;
-                if (pos == null) {
-                    color = 0;
-                } else {
-                    int r = (int) ((1 - Math.abs(pos.getCenterDistance())) * 255);
-                    int g = pos.getSectionId() * 255 / table.getSectionCount();
-                    int b = (int) (pos.getSectionDistance() * 255);
-                    color = (r << 24) | (g << 16) | (b << 8) | 0xff;
+        PixmapBandTask task =
+                new PixmapBandTask(table, pixmap.getPixels(), width, height, 0, height);
+        ForkJoinPool.commonPool().invoke(task);
+        return pixmap;
+    }
+
+    /** Computes rows [start, end[ of the pixmap, splitting them in smaller bands if needed */
+    private static class PixmapBandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int BAND_HEIGHT = 32;
+        private static final int PROGRESS_STEP_PERCENT = 10;
+
+        private final LapPositionTable mTable;
+        private final ByteBuffer mPixels;
+        private final int mWidth;
+        private final int mHeight;
+        private final int mStart;
+        private final int mEnd;
+        // Shared by all the tasks of a pixmap
+        private final AtomicInteger mDoneRows;
+
+        PixmapBandTask(
+                LapPositionTable table,
+                ByteBuffer pixels,
+                int width,
+                int height,
+                int start,
+                int end) {
+            this(table, pixels, width, height, start, end, new AtomicInteger());
+        }
+
+        private PixmapBandTask(
+                LapPositionTable table,
+                ByteBuffer pixels,
+                int width,
+                int height,
+                int start,
+                int end,
+                AtomicInteger doneRows) {
+            mTable = table;
+            mPixels = pixels;
+            mWidth = width;
+            mHeight = height;
+            mStart = start;
+            mEnd = end;
+            mDoneRows = doneRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (mEnd - mStart > BAND_HEIGHT) {
+                int middle = (mStart + mEnd) / 2;
+                invokeAll(
+                        new PixmapBandTask(
+                                mTable, mPixels, mWidth, mHeight, mStart, middle, mDoneRows),
+                        new PixmapBandTask(
+                                mTable, mPixels, mWidth, mHeight, middle, mEnd, mDoneRows));
+                return;
+            }
+            // LapPositionTable.get() reuses its result objects, so each band needs its own table
+            LapPositionTable table = mTable.copy();
+            for (int y = mStart; y < mEnd; ++y) {
+                // The pixmap is flipped vertically
+                int offset = (mHeight - 1 - y) * mWidth * 4;
+                for (int x = 0; x < mWidth; ++x) {
+                    // Absolute puts do not change the buffer position, so bands can share it
+                    mPixels.putInt(offset + x * 4, computeColor(table, x, y));
                 }
-                pixmap.drawPixel(x, height - 1 - y, color);
             }
+            reportProgress(mEnd - mStart);
         }
-        return pixmap;
+
+        private void reportProgress(int rows) {
+            int done = mDoneRows.addAndGet(rows);
+            int before = (done - rows) * 100 / mHeight / PROGRESS_STEP_PERCENT;
+            int after = done * 100 / mHeight / PROGRESS_STEP_PERCENT;
+            if (after > before) {
+                NLog.i("Saving %d%%", after * PROGRESS_STEP_PERCENT);
+            }
+        }
+    }
+
+    private static int computeColor(LapPositionTable table, int x, int y) {
+        LapPosition pos = table.get(x, y);
+        if (pos == null) {
+            return 0;
+        }
+        int r = (int) ((1 - Math.abs(pos.getCenterDistance())) * 255);
+        int g = pos.getSectionId() * 255 / table.getSectionCount();
+        int b = (int) (pos.getSectionDistance() * 255);
+        return (r << 24) | (g << 16) | (b << 8) | 0xff;
     }
 }
@@ -22,8 +22,12 @@ import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.utils.OrientedPoint;
 import com.agateau.utils.Assert;
+import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
 import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.maps.MapObjects;
@@ -39,21 +43,59 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
-
-/** The map of the current game */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The map of the current game
+ *
+ * <p>A track is loaded from its compiled file if there is an up-to-date one in {@link
+ * #COMPILED_DIR}, and from its TMX file otherwise. Compiled files are created by the AssetBuilder
+ * and TrackCompiler tools. Whether a compiled file is up-to-date is decided by the build, which
+ * compares the checksums of the TMX files. At runtime Track only checks the compiled file is not
+ * older than the TMX file, to catch TMX files edited since the last build.
+ *
+ * <p>Tracks are loaded and disposed by {@link TrackCache}.
+ */
 public class Track implements Disposable {
+    public static final String COMPILED_DIR = "maps/compiled";
+    public static final String COMPILED_EXTENSION = ".track";
+    /** Must be increased every time the compiled format changes */
+    public static final int COMPILED_FORMAT_VERSION = 2;
+
     private static final int CELL_ID_ROW_STRIDE = 10000;
 
     private final String mId;
     private final String mMapName;
 
     private TiledMap mMap;
-    private Material[] mMaterialForTileId;
-    private int mStartTileId = -1;
-    private Array<TiledMapTileLayer> mBackgroundLayers;
-    private Array<TiledMapTileLayer> mForegroundLayers;
-    private MapLayer mObstaclesLayer;
-    private final WaypointStore mWaypointStore = new WaypointStore();
+    // Set by load(). mTileLayers is null if the track has no up-to-date compiled file.
+    private boolean mLoaded = false;
+    private TrackCache mCache;
+    private TrackIO.TileLayers mTileLayers;
+    // Prepared data for the tile set textures, null for textures which are already in the cache
+    private final Array<TextureData> mTextureData = new Array<>();
+    // Tile set textures, obtained from the cache
+    private final Array<Texture> mTextures = new Array<>();
+    private int mWidth;
+    private int mHeight;
+    private int mBackgroundLayerCount;
+    private int mForegroundLayerCount;
+    // Material of the top background tile of each cell, row by row
+    private Material[] mMaterials;
+    private final Array<Vector2> mStartTilePositions = new Array<>();
+    private final Array<Vector2> mBonusSpotPositions = new Array<>();
+    private MapObjects mObstacleObjects;
+    // Not reset by dispose(): borders never change, so they can be reused for the next race
+    private BorderShapes mBorderShapes;
+    private WaypointStore mWaypointStore;
     private float mTileWidth;
     private float mTileHeight;
     private LapPositionTable mLapPositionTable;
@@ -64,18 +106,78 @@ public class Track implements Disposable {
         mMapName = name;
     }
 
-    public void init() {
+    /**
+     * Reads the compiled file of the track, if there is an up-to-date one. Does not need a GL
+     * context, so it can be called from a background thread to prepare init().
+     */
+    void load(TrackCache cache) {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        mCache = cache;
+        FileHandle compiledFile = Gdx.files.internal(COMPILED_DIR + "/" + mId + COMPILED_EXTENSION);
+        if (compiledFile.exists()) {
+            loadCompiled(compiledFile, getTmxFile());
+        }
+    }
+
+    /** Makes the track ready to race on. Must be called from the GL thread. */
+    void init(TrackCache cache) {
         if (mMap != null) {
             return;
         }
+        load(cache);
+        if (mTileLayers == null) {
+            loadTmx(getTmxFile());
+            return;
+        }
+        for (int idx = 0; idx < mTileLayers.tileSets.size; ++idx) {
+            FileHandle file = getTileSetImageFile(mTileLayers.tileSets.get(idx));
+            mTextures.add(cache.obtainTexture(file, mTextureData.get(idx)));
+        }
+        mTextureData.clear();
+        mMap = TrackIO.createMap(mTileLayers, mTextures);
+        mTileLayers = null;
+    }
+
+    private FileHandle getTmxFile() {
+        return Gdx.files.internal("maps/" + mId + ".tmx");
+    }
+
+    private FileHandle getTileSetImageFile(TrackIO.TileSetData tileSet) {
+        return getTmxFile().parent().child(tileSet.imageSource);
+    }
+
+    /** Loads the track from @p tmxFile and saves it in the compiled format to @p compiledFile */
+    public static void compile(FileHandle tmxFile, FileHandle compiledFile) throws IOException {
+        Track track = new Track(tmxFile.nameWithoutExtension(), "");
+        track.loadTmx(tmxFile);
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(compiledFile.write(false)))) {
+            TrackIO.writeHeader(out);
+            // Tile layers are mostly made of the same few values: compress them like TMX does
+            DataOutputStream body = new DataOutputStream(new DeflaterOutputStream(out));
+            track.writeCompiled(body, tmxFile.parent());
+            body.close();
+        } finally {
+            track.dispose();
+        }
+    }
+
+    private void loadTmx(FileHandle tmxFile) {
         TmxMapLoader loader = new TmxMapLoader();
-        mMap = loader.load(Gdx.files.internal("maps/" + mId + ".tmx").path());
-        mMaterialForTileId = computeMaterialForTileId();
-        findSpecialTileIds();
+        mMap = loader.load(tmxFile.path());
         findLayers();
+        TiledMapTileLayer groundLayer = (TiledMapTileLayer) mMap.getLayers().get(0);
+        mWidth = groundLayer.getWidth();
+        mHeight = groundLayer.getHeight();
+        mTileWidth = Constants.UNIT_FOR_PIXEL * groundLayer.getTileWidth();
+        mTileHeight = Constants.UNIT_FOR_PIXEL * groundLayer.getTileHeight();
 
-        mTileWidth = Constants.UNIT_FOR_PIXEL * mBackgroundLayers.get(0).getTileWidth();
-        mTileHeight = Constants.UNIT_FOR_PIXEL * mBackgroundLayers.get(0).getTileHeight();
+        mMaterials = computeMaterials();
+        readStartTilePositions(findStartTileId());
+        readBonusSpotPositions();
 
         mLapPositionTable = LapPositionTableIO.load(mMap);
         readWaypoints();
@@ -85,25 +187,101 @@ public class Track implements Disposable {
         mBackgroundColor = Color.valueOf(bgColorText);
     }
 
+    private void loadCompiled(FileHandle compiledFile, FileHandle tmxFile) {
+        // lastModified() returns 0 for files which are not on the file system, like Android
+        // assets. They come from a build, so they are up-to-date.
+        if (compiledFile.lastModified() < tmxFile.lastModified()) {
+            NLog.i("%s is outdated, loading %s", compiledFile.path(), tmxFile.path());
+            return;
+        }
+        try {
+            // Read the whole file at once, the rest of the loading happens in memory
+            InputStream stream = new ByteArrayInputStream(compiledFile.readBytes());
+            if (!TrackIO.readHeader(new DataInputStream(stream))) {
+                NLog.i("%s has an old format, loading %s", compiledFile.path(), tmxFile.path());
+                return;
+            }
+            readCompiled(
+                    new DataInputStream(new BufferedInputStream(new InflaterInputStream(stream))));
+        } catch (IOException | RuntimeException e) {
+            // A corrupt file can cause runtime exceptions as well, for example when it contains
+            // an invalid array size
+            NLog.e("Failed to load %s: %s", compiledFile.path(), e);
+            mTileLayers = null;
+            return;
+        }
+        // Decode the images now, unless another track already created their textures
+        for (TrackIO.TileSetData tileSet : mTileLayers.tileSets) {
+            FileHandle file = getTileSetImageFile(tileSet);
+            TextureData data = null;
+            if (!mCache.hasTexture(file)) {
+                data = TextureData.Factory.loadFromFile(file, false);
+                data.prepare();
+            }
+            mTextureData.add(data);
+        }
+    }
+
+    private void writeCompiled(DataOutputStream out, FileHandle mapDir) throws IOException {
+        TrackIO.writeTileLayers(out, mMap, mapDir, mBackgroundLayerCount + mForegroundLayerCount);
+        out.writeInt(mBackgroundLayerCount);
+        out.writeInt(Color.rgba8888(mBackgroundColor));
+        TrackIO.writeMaterials(out, mMaterials);
+        TrackIO.writePositions(out, mStartTilePositions);
+        TrackIO.writePositions(out, mBonusSpotPositions);
+        TrackIO.writeLapPositionTable(out, mLapPositionTable);
+        TrackIO.writeWaypoints(out, mWaypointStore);
+        TrackIO.writeObstacles(out, mObstacleObjects);
+        TrackIO.writeBorderShapes(out, getBorderShapes());
+    }
+
+    private void readCompiled(DataInputStream in) throws IOException {
+        mTileLayers = TrackIO.readTileLayers(in);
+        mBackgroundLayerCount = in.readInt();
+        mForegroundLayerCount = mTileLayers.layers.size - mBackgroundLayerCount;
+        TrackIO.LayerData groundLayer = mTileLayers.layers.get(0);
+        mWidth = groundLayer.width;
+        mHeight = groundLayer.height;
+        mTileWidth = Constants.UNIT_FOR_PIXEL * groundLayer.tileWidth;
+        mTileHeight = Constants.UNIT_FOR_PIXEL * groundLayer.tileHeight;
+        mBackgroundColor = new Color(in.readInt());
+
+        mMaterials = TrackIO.readMaterials(in);
+        mStartTilePositions.clear();
+        TrackIO.readPositions(in, mStartTilePositions);
+        mBonusSpotPositions.clear();
+        TrackIO.readPositions(in, mBonusSpotPositions);
+        mLapPositionTable = TrackIO.readLapPositionTable(in);
+        mWaypointStore = new WaypointStore();
+        TrackIO.readWaypoints(in, mWaypointStore);
+        mObstacleObjects = TrackIO.readObstacles(in);
+        mBorderShapes = TrackIO.readBorderShapes(in);
+    }
+
     private void findLayers() {
-        mBackgroundLayers = findLayersMatching("bg");
-        Assert.check(mBackgroundLayers.size > 0, "No background layers found");
+        // Background layers come first, then foreground layers
+        mBackgroundLayerCount = countLayersMatching("bg");
+        Assert.check(mBackgroundLayerCount > 0, "No background layers found");
 
-        mForegroundLayers = findLayersMatching("fg");
+        mForegroundLayerCount = countLayersMatching("fg");
 
-        mObstaclesLayer = mMap.getLayers().get("Obstacles");
-        Assert.check(mObstaclesLayer != null, "No \"Obstacles\" layer found");
+        MapLayer obstaclesLayer = mMap.getLayers().get("Obstacles");
+        Assert.check(obstaclesLayer != null, "No \"Obstacles\" layer found");
+        mObstacleObjects = obstaclesLayer.getObjects();
     }
 
-    private Array<TiledMapTileLayer> findLayersMatching(String match) {
-        Array<TiledMapTileLayer> array = new Array<>();
+    private int countLayersMatching(String match) {
+        int count = 0;
         for (int idx = 0; idx < mMap.getLayers().getCount(); ++idx) {
             MapLayer layer = mMap.getLayers().get(idx);
             if (layer.getName().startsWith(match)) {
-                array.add((TiledMapTileLayer) layer);
+                Assert.check(
+                        layer instanceof TiledMapTileLayer,
+                        layer.getName() + " is not a tile layer");
+                ++count;
             }
         }
-        return array;
+        return count;
     }
 
     public String getId() {
@@ -131,15 +309,23 @@ public class Track implements Disposable {
     }
 
     public float getMapWidth() {
-        return mTileWidth * mBackgroundLayers.get(0).getWidth();
+        return mTileWidth * mWidth;
     }
 
     public float getMapHeight() {
-        return mTileHeight * mBackgroundLayers.get(0).getHeight();
+        return mTileHeight * mHeight;
     }
 
     public MapObjects getObstacleObjects() {
-        return mObstaclesLayer.getObjects();
+        return mObstacleObjects;
+    }
+
+    /** Returns the merged borders of the Obstacles layer. They are computed once per track. */
+    public BorderShapes getBorderShapes() {
+        if (mBorderShapes == null) {
+            mBorderShapes = BorderShapes.create(getObstacleObjects());
+        }
+        return mBorderShapes;
     }
 
     public LapPositionTable getLapPositionTable() {
@@ -151,53 +337,51 @@ public class Track implements Disposable {
     }
 
     public int[] getExtraBackgroundLayerIndexes() {
-        int[] indexes = new int[mBackgroundLayers.size - 1];
-        for (int idx = 1; idx < mBackgroundLayers.size; ++idx) {
+        int[] indexes = new int[mBackgroundLayerCount - 1];
+        for (int idx = 1; idx < mBackgroundLayerCount; ++idx) {
             indexes[idx - 1] = idx;
         }
         return indexes;
     }
 
     public int[] getForegroundLayerIndexes() {
-        int[] indexes = new int[mForegroundLayers.size];
+        int[] indexes = new int[mForegroundLayerCount];
         // Foreground layers are just after background layers
-        int start = mBackgroundLayers.size;
-        for (int idx = 0; idx < mForegroundLayers.size; ++idx) {
+        int start = mBackgroundLayerCount;
+        for (int idx = 0; idx < mForegroundLayerCount; ++idx) {
             indexes[idx] = start + idx;
         }
         return indexes;
     }
 
-    private Material[] computeMaterialForTileId() {
-        TiledMapTileSet tileSet = mMap.getTileSets().getTileSet(0);
-        int maxId = 0;
-        for (TiledMapTile tile : tileSet) {
-            maxId = Math.max(maxId, tile.getId());
-        }
-        Material[] array = new Material[maxId + 1];
-        for (int id = 0; id < array.length; ++id) {
-            TiledMapTile tile = tileSet.getTile(id);
-            array[id] = MapUtils.getTileMaterial(tile);
+    private Material[] computeMaterials() {
+        Material[] materials = new Material[mWidth * mHeight];
+        for (int ty = 0; ty < mHeight; ++ty) {
+            for (int tx = 0; tx < mWidth; ++tx) {
+                TiledMapTile tile = getTopBackgroundTileAt(tx, ty);
+                materials[ty * mWidth + tx] = MapUtils.getTileMaterial(tile);
+            }
         }
-        return array;
+        return materials;
     }
 
-    private void findSpecialTileIds() {
+    private int findStartTileId() {
         TiledMapTileSet tileSet = mMap.getTileSets().getTileSet(0);
+        int startTileId = -1;
         for (TiledMapTile tile : tileSet) {
             MapProperties properties = tile.getProperties();
             if (MapUtils.getBooleanProperty(properties, "start", false)) {
-                mStartTileId = tile.getId();
+                startTileId = tile.getId();
             }
         }
-        Assert.check(mStartTileId != -1, "No start id");
+        Assert.check(startTileId != -1, "No start id");
+        return startTileId;
     }
 
-    private TiledMapTile getTopTileAt(Array<TiledMapTileLayer> layers, float x, float y) {
-        int tx = MathUtils.floor(x / mTileWidth);
-        int ty = MathUtils.floor(y / mTileHeight);
-        for (int idx = layers.size - 1; idx >= 0; idx--) {
-            TiledMapTileLayer.Cell cell = layers.get(idx).getCell(tx, ty);
+    private TiledMapTile getTopBackgroundTileAt(int tx, int ty) {
+        for (int idx = mBackgroundLayerCount - 1; idx >= 0; idx--) {
+            TiledMapTileLayer layer = (TiledMapTileLayer) mMap.getLayers().get(idx);
+            TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
             if (cell != null) {
                 return cell.getTile();
             }
@@ -221,43 +405,74 @@ public class Track implements Disposable {
     }
 
     public Material getMaterialAt(float x, float y) {
-        TiledMapTile tile = getTopTileAt(mBackgroundLayers, x, y);
-        if (tile == null) {
+        int tx = MathUtils.floor(x / mTileWidth);
+        int ty = MathUtils.floor(y / mTileHeight);
+        if (tx < 0 || tx >= mWidth || ty < 0 || ty >= mHeight) {
             return Material.ROAD;
         }
-        return mMaterialForTileId[tile.getId()];
+        return mMaterials[ty * mWidth + tx];
     }
 
     @Override
     public void dispose() {
-        mMap.dispose();
-        mMap = null;
+        if (mMap != null) {
+            // Maps loaded from TMX files own their textures, the others do not
+            mMap.dispose();
+            mMap = null;
+        }
+        for (Texture texture : mTextures) {
+            mCache.releaseTexture(texture);
+        }
+        mTextures.clear();
+        for (TextureData data : mTextureData) {
+            if (data != null) {
+                TrackCache.disposeTextureData(data);
+            }
+        }
+        mTextureData.clear();
+        mTileLayers = null;
+        mLoaded = false;
     }
 
     public Array<Vector2> findStartTilePositions() {
-        Array<Vector2> lst = new Array<>();
-        TiledMapTileLayer groundLayer = mBackgroundLayers.get(0);
-        for (int ty = 0; ty < groundLayer.getHeight(); ++ty) {
-            for (int tx = 0; tx < groundLayer.getWidth(); ++tx) {
+        return copyPositions(mStartTilePositions);
+    }
+
+    public Array<Vector2> findBonusSpotPositions() {
+        return copyPositions(mBonusSpotPositions);
+    }
+
+    private static Array<Vector2> copyPositions(Array<Vector2> positions) {
+        Array<Vector2> lst = new Array<>(positions.size);
+        for (Vector2 pos : positions) {
+            lst.add(new Vector2(pos));
+        }
+        return lst;
+    }
+
+    private void readStartTilePositions(int startTileId) {
+        mStartTilePositions.clear();
+        TiledMapTileLayer groundLayer = (TiledMapTileLayer) mMap.getLayers().get(0);
+        for (int ty = 0; ty < mHeight; ++ty) {
+            for (int tx = 0; tx < mWidth; ++tx) {
                 TiledMapTileLayer.Cell cell = groundLayer.getCell(tx, ty);
                 if (cell == null) {
                     continue;
                 }
                 int tileId = cell.getTile().getId();
-                if (tileId == mStartTileId) {
+                if (tileId == startTileId) {
                     Vector2 pos = new Vector2(tx * mTileWidth + mTileWidth / 2, ty * mTileHeight);
-                    lst.add(pos);
+                    mStartTilePositions.add(pos);
                 }
             }
         }
-        return lst;
     }
 
-    public Array<Vector2> findBonusSpotPositions() {
+    private void readBonusSpotPositions() {
         final float U = Constants.UNIT_FOR_PIXEL;
         MapLayer layer = mMap.getLayers().get("BonusSpots");
         Assert.check(layer != null, "No BonusSpots layer");
-        Array<Vector2> lst = new Array<>();
+        mBonusSpotPositions.clear();
 
         for (MapObject object : layer.getObjects()) {
             if (!(object instanceof EllipseMapObject)) {
@@ -268,14 +483,14 @@ public class Track implements Disposable {
             }
             Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
             Vector2 pos = new Vector2(ellipse.x * U, ellipse.y * U);
-            lst.add(pos);
+            mBonusSpotPositions.add(pos);
         }
-        return lst;
     }
 
     private void readWaypoints() {
         MapLayer layer = mMap.getLayers().get("Waypoints");
         Assert.check(layer != null, "No Waypoints layer");
+        mWaypointStore = new WaypointStore();
         mWaypointStore.read(layer, mLapPositionTable);
     }
 
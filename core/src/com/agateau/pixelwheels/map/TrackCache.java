@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.utils.Assert;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+/**
+ * Keeps the last used tracks initialized, so that racing on them again does not require loading
+ * them again.
+ *
+ * <p>The tile set textures of compiled tracks are shared between the tracks using the same images,
+ * and disposed when no track uses them anymore.
+ *
+ * <p>prefetch() loads a track in a background thread, then creates its textures on the GL thread.
+ * Only compiled tracks are loaded in the background: loading a TMX file requires a GL context, so
+ * it happens in the GL thread part.
+ */
+public class TrackCache implements Disposable {
+    private static class TextureInfo {
+        final Texture texture;
+        int refCount = 0;
+
+        TextureInfo(Texture texture) {
+            this.texture = texture;
+        }
+    }
+
+    private final int mCapacity;
+    // Most recently used last
+    private final Array<Track> mTracks = new Array<>();
+    private final ObjectMap<String, TextureInfo> mTextures = new ObjectMap<>();
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "TrackCache");
+    private AsyncResult<Void> mPrefetchResult;
+    // The track mPrefetchResult loads
+    private Track mPrefetchTrack;
+
+    /**
+     * @p capacity must be at least 2, so that prefetching the next track does not dispose the
+     *     current one
+     */
+    public TrackCache(int capacity) {
+        Assert.check(capacity >= 2, "TrackCache capacity must be at least 2");
+        mCapacity = capacity;
+    }
+
+    /** Makes @p track ready to race on. Must be called from the GL thread. */
+    public void init(Track track) {
+        waitForPrefetch();
+        track.init(this);
+        use(track);
+    }
+
+    /**
+     * Starts loading @p track in a background thread. Once this is done, the textures of the track
+     * are created on the GL thread, so that the next call to init() has nothing left to do.
+     */
+    public void prefetch(Track track) {
+        if (mTracks.contains(track, true)) {
+            return;
+        }
+        waitForPrefetch();
+        use(track);
+        mPrefetchTrack = track;
+        mPrefetchResult =
+                mExecutor.submit(
+                        () -> {
+                            track.load(this);
+                            Gdx.app.postRunnable(() -> finishPrefetch(track));
+                            return null;
+                        });
+    }
+
+    /** Disposes the cached tracks and stops the prefetch thread */
+    @Override
+    public void dispose() {
+        waitForPrefetch();
+        for (Track track : mTracks) {
+            track.dispose();
+        }
+        mTracks.clear();
+        mExecutor.dispose();
+    }
+
+    public int getTrackCount() {
+        return mTracks.size;
+    }
+
+    private void use(Track track) {
+        mTracks.removeValue(track, true);
+        mTracks.add(track);
+        while (mTracks.size > mCapacity) {
+            mTracks.removeIndex(0).dispose();
+        }
+    }
+
+    private void finishPrefetch(Track track) {
+        // The track may have been evicted since prefetch() was called
+        if (mTracks.contains(track, true)) {
+            // Another track may be prefetched by now, its loading must not be waited for. The
+            // loading of this one is done: prefetch() waits for it before starting a new one.
+            if (track == mPrefetchTrack) {
+                waitForPrefetch();
+            }
+            track.init(this);
+        }
+    }
+
+    private void waitForPrefetch() {
+        if (mPrefetchResult == null) {
+            return;
+        }
+        mPrefetchResult.get();
+        mPrefetchResult = null;
+        mPrefetchTrack = null;
+    }
+
+    /** Can be called from any thread */
+    synchronized boolean hasTexture(FileHandle file) {
+        return mTextures.containsKey(file.path());
+    }
+
+    /**
+     * Returns the texture for @p file, creating it if necessary. @p data can be null or a prepared
+     * TextureData for @p file: it is used to create the texture, or disposed if the texture already
+     * exists.
+     */
+    synchronized Texture obtainTexture(FileHandle file, TextureData data) {
+        TextureInfo info = mTextures.get(file.path());
+        if (info == null) {
+            Texture texture = data == null ? new Texture(file) : new Texture(data);
+            info = new TextureInfo(texture);
+            mTextures.put(file.path(), info);
+        } else if (data != null) {
+            disposeTextureData(data);
+        }
+        info.refCount++;
+        return info.texture;
+    }
+
+    synchronized void releaseTexture(Texture texture) {
+        for (ObjectMap.Entry<String, TextureInfo> entry : mTextures) {
+            TextureInfo info = entry.value;
+            if (info.texture != texture) {
+                continue;
+            }
+            info.refCount--;
+            if (info.refCount == 0) {
+                info.texture.dispose();
+                mTextures.remove(entry.key);
+            }
+            return;
+        }
+        Assert.check(false, "Released texture is not in the cache");
+    }
+
+    /** Frees the pixmap of a prepared TextureData which will not be turned into a texture */
+    static void disposeTextureData(TextureData data) {
+        Pixmap pixmap = data.consumePixmap();
+        if (data.disposePixmap()) {
+            pixmap.dispose();
+        }
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.utils.Assert;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.PolylineMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Polyline;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads and writes the parts of a compiled track.
+ *
+ * <p>A compiled track contains everything Track extracts from a TMX file, already computed: the
+ * tile layers to render, the material of each tile, the start and bonus spot positions, the lap
+ * sections, the waypoints, the obstacles and the merged borders. The caller is responsible for
+ * reading the parts in the same order they were written.
+ */
+class TrackIO {
+    private static final int MAGIC = 0x50575452; // "PWTR"
+
+    private static final int FLAG_FLIP_HORIZONTALLY = 0x80000000;
+    private static final int FLAG_FLIP_VERTICALLY = 0x40000000;
+    private static final int ROTATION_SHIFT = 28;
+    private static final int TILE_ID_MASK = 0x0fffffff;
+
+    private static final byte OBSTACLE_RECTANGLE = 0;
+    private static final byte OBSTACLE_POLYLINE = 1;
+
+    /** The tile sets and tile layers of a compiled track, without their textures */
+    static class TileLayers {
+        final Array<TileSetData> tileSets = new Array<>();
+        final Array<LayerData> layers = new Array<>();
+    }
+
+    static class TileSetData {
+        String name;
+        String imageSource;
+        int[] ids;
+        // x, y, width and height of the region of each tile
+        int[] regions;
+        // x and y offsets of each tile
+        float[] offsets;
+    }
+
+    static class LayerData {
+        String name;
+        boolean visible;
+        float opacity;
+        int width;
+        int height;
+        int tileWidth;
+        int tileHeight;
+        // Encoded cells, row by row
+        int[] cells;
+    }
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(Track.COMPILED_FORMAT_VERSION);
+    }
+
+    /** Returns true if the file has the expected format */
+    static boolean readHeader(DataInputStream in) throws IOException {
+        return in.readInt() == MAGIC && in.readInt() == Track.COMPILED_FORMAT_VERSION;
+    }
+
+    /**
+     * Writes the tile sets of @p map and its first @p layerCount layers, which must all be tile
+     * layers. Only tile sets made of a single image, located in @p mapDir, are supported.
+     */
+    static void writeTileLayers(
+            DataOutputStream out, TiledMap map, FileHandle mapDir, int layerCount)
+            throws IOException {
+        out.writeInt(countTileSets(map));
+        for (TiledMapTileSet tileSet : map.getTileSets()) {
+            writeTileSet(out, tileSet, mapDir);
+        }
+
+        out.writeInt(layerCount);
+        for (int idx = 0; idx < layerCount; ++idx) {
+            writeLayer(out, (TiledMapTileLayer) map.getLayers().get(idx));
+        }
+    }
+
+    /** Reads data written by writeTileLayers(). Does not need a GL context. */
+    static TileLayers readTileLayers(DataInputStream in) throws IOException {
+        TileLayers tileLayers = new TileLayers();
+        int tileSetCount = in.readInt();
+        for (int idx = 0; idx < tileSetCount; ++idx) {
+            tileLayers.tileSets.add(readTileSet(in));
+        }
+        int layerCount = in.readInt();
+        for (int idx = 0; idx < layerCount; ++idx) {
+            tileLayers.layers.add(readLayer(in));
+        }
+        return tileLayers;
+    }
+
+    /**
+     * Creates a map from @p tileLayers. @p textures must contain the texture of each tile set. The
+     * map does not own them.
+     */
+    static TiledMap createMap(TileLayers tileLayers, Array<Texture> textures) {
+        TiledMap map = new TiledMap();
+        IntMap<TiledMapTile> tiles = new IntMap<>();
+        for (int idx = 0; idx < tileLayers.tileSets.size; ++idx) {
+            TiledMapTileSet tileSet =
+                    createTileSet(tileLayers.tileSets.get(idx), textures.get(idx), tiles);
+            map.getTileSets().addTileSet(tileSet);
+        }
+        for (LayerData layerData : tileLayers.layers) {
+            map.getLayers().add(createLayer(layerData, tiles));
+        }
+        return map;
+    }
+
+    private static int countTileSets(TiledMap map) {
+        int count = 0;
+        for (TiledMapTileSet ignored : map.getTileSets()) {
+            ++count;
+        }
+        return count;
+    }
+
+    private static void writeTileSet(
+            DataOutputStream out, TiledMapTileSet tileSet, FileHandle mapDir) throws IOException {
+        String imageSource = tileSet.getProperties().get("imagesource", String.class);
+        Assert.check(imageSource != null, "Tile set " + tileSet.getName() + " has no image");
+        Assert.check(
+                mapDir.child(imageSource).exists(),
+                "Tile set image " + imageSource + " must be in " + mapDir.path());
+        out.writeUTF(tileSet.getName());
+        out.writeUTF(imageSource);
+        out.writeInt(tileSet.size());
+        for (TiledMapTile tile : tileSet) {
+            TextureRegion region = tile.getTextureRegion();
+            out.writeInt(tile.getId());
+            out.writeShort(region.getRegionX());
+            out.writeShort(region.getRegionY());
+            out.writeShort(region.getRegionWidth());
+            out.writeShort(region.getRegionHeight());
+            out.writeFloat(tile.getOffsetX());
+            out.writeFloat(tile.getOffsetY());
+        }
+    }
+
+    private static TileSetData readTileSet(DataInputStream in) throws IOException {
+        TileSetData data = new TileSetData();
+        data.name = in.readUTF();
+        data.imageSource = in.readUTF();
+        int tileCount = in.readInt();
+        data.ids = new int[tileCount];
+        data.regions = new int[tileCount * 4];
+        data.offsets = new float[tileCount * 2];
+        for (int idx = 0; idx < tileCount; ++idx) {
+            data.ids[idx] = in.readInt();
+            for (int i = 0; i < 4; ++i) {
+                data.regions[idx * 4 + i] = in.readUnsignedShort();
+            }
+            data.offsets[idx * 2] = in.readFloat();
+            data.offsets[idx * 2 + 1] = in.readFloat();
+        }
+        return data;
+    }
+
+    private static TiledMapTileSet createTileSet(
+            TileSetData data, Texture texture, IntMap<TiledMapTile> tiles) {
+        TiledMapTileSet tileSet = new TiledMapTileSet();
+        tileSet.setName(data.name);
+        for (int idx = 0; idx < data.ids.length; ++idx) {
+            int id = data.ids[idx];
+            int[] regions = data.regions;
+            TextureRegion region =
+                    new TextureRegion(
+                            texture,
+                            regions[idx * 4],
+                            regions[idx * 4 + 1],
+                            regions[idx * 4 + 2],
+                            regions[idx * 4 + 3]);
+            StaticTiledMapTile tile = new StaticTiledMapTile(region);
+            tile.setId(id);
+            tile.setOffsetX(data.offsets[idx * 2]);
+            tile.setOffsetY(data.offsets[idx * 2 + 1]);
+            tileSet.putTile(id, tile);
+            tiles.put(id, tile);
+        }
+        return tileSet;
+    }
+
+    private static void writeLayer(DataOutputStream out, TiledMapTileLayer layer)
+            throws IOException {
+        out.writeUTF(layer.getName());
+        out.writeBoolean(layer.isVisible());
+        out.writeFloat(layer.getOpacity());
+        out.writeInt(layer.getWidth());
+        out.writeInt(layer.getHeight());
+        out.writeInt((int) layer.getTileWidth());
+        out.writeInt((int) layer.getTileHeight());
+        for (int y = 0; y < layer.getHeight(); ++y) {
+            for (int x = 0; x < layer.getWidth(); ++x) {
+                out.writeInt(encodeCell(layer.getCell(x, y)));
+            }
+        }
+    }
+
+    private static LayerData readLayer(DataInputStream in) throws IOException {
+        LayerData data = new LayerData();
+        data.name = in.readUTF();
+        data.visible = in.readBoolean();
+        data.opacity = in.readFloat();
+        data.width = in.readInt();
+        data.height = in.readInt();
+        data.tileWidth = in.readInt();
+        data.tileHeight = in.readInt();
+        data.cells = new int[data.width * data.height];
+        for (int idx = 0; idx < data.cells.length; ++idx) {
+            data.cells[idx] = in.readInt();
+        }
+        return data;
+    }
+
+    private static TiledMapTileLayer createLayer(LayerData data, IntMap<TiledMapTile> tiles) {
+        TiledMapTileLayer layer =
+                new TiledMapTileLayer(data.width, data.height, data.tileWidth, data.tileHeight);
+        layer.setName(data.name);
+        layer.setVisible(data.visible);
+        layer.setOpacity(data.opacity);
+
+        // Cells are never modified, so layers can share them
+        IntMap<TiledMapTileLayer.Cell> cells = new IntMap<>();
+        for (int y = 0; y < data.height; ++y) {
+            for (int x = 0; x < data.width; ++x) {
+                int value = data.cells[y * data.width + x];
+                if (value == 0) {
+                    continue;
+                }
+                TiledMapTileLayer.Cell cell = cells.get(value);
+                if (cell == null) {
+                    cell = decodeCell(value, tiles);
+                    cells.put(value, cell);
+                }
+                layer.setCell(x, y, cell);
+            }
+        }
+        return layer;
+    }
+
+    private static int encodeCell(TiledMapTileLayer.Cell cell) {
+        if (cell == null) {
+            return 0;
+        }
+        int id = cell.getTile().getId();
+        Assert.check(id > 0 && id <= TILE_ID_MASK, "Invalid tile id " + id);
+        int value = id | (cell.getRotation() << ROTATION_SHIFT);
+        if (cell.getFlipHorizontally()) {
+            value |= FLAG_FLIP_HORIZONTALLY;
+        }
+        if (cell.getFlipVertically()) {
+            value |= FLAG_FLIP_VERTICALLY;
+        }
+        return value;
+    }
+
+    private static TiledMapTileLayer.Cell decodeCell(int value, IntMap<TiledMapTile> tiles) {
+        TiledMapTile tile = tiles.get(value & TILE_ID_MASK);
+        Assert.check(tile != null, "Unknown tile id " + (value & TILE_ID_MASK));
+        TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+        cell.setTile(tile);
+        cell.setRotation((value >> ROTATION_SHIFT) & 3);
+        cell.setFlipHorizontally((value & FLAG_FLIP_HORIZONTALLY) != 0);
+        cell.setFlipVertically((value & FLAG_FLIP_VERTICALLY) != 0);
+        return cell;
+    }
+
+    static void writeMaterials(DataOutputStream out, Material[] materials) throws IOException {
+        out.writeInt(materials.length);
+        for (Material material : materials) {
+            out.writeByte(material.ordinal());
+        }
+    }
+
+    static Material[] readMaterials(DataInputStream in) throws IOException {
+        Material[] values = Material.values();
+        Material[] materials = new Material[in.readInt()];
+        for (int idx = 0; idx < materials.length; ++idx) {
+            materials[idx] = values[in.readByte()];
+        }
+        return materials;
+    }
+
+    static void writePositions(DataOutputStream out, Array<Vector2> positions) throws IOException {
+        out.writeInt(positions.size);
+        for (Vector2 pos : positions) {
+            out.writeFloat(pos.x);
+            out.writeFloat(pos.y);
+        }
+    }
+
+    static void readPositions(DataInputStream in, Array<Vector2> positions) throws IOException {
+        int count = in.readInt();
+        positions.ensureCapacity(count);
+        for (int idx = 0; idx < count; ++idx) {
+            positions.add(new Vector2(in.readFloat(), in.readFloat()));
+        }
+    }
+
+    static void writeLapPositionTable(DataOutputStream out, LapPositionTable table)
+            throws IOException {
+        out.writeInt(table.getSectionCount());
+        for (int idx = 0; idx < table.getSectionCount(); ++idx) {
+            writeFloats(out, table.getSectionPolygon(idx).getVertices());
+        }
+    }
+
+    static LapPositionTable readLapPositionTable(DataInputStream in) throws IOException {
+        LapPositionTable table = new LapPositionTable();
+        int count = in.readInt();
+        for (int idx = 0; idx < count; ++idx) {
+            table.addSection(idx, new Polygon(readFloats(in)));
+        }
+        return table;
+    }
+
+    static void writeWaypoints(DataOutputStream out, WaypointStore store) throws IOException {
+        out.writeInt(store.getCount());
+        for (int idx = 0; idx < store.getCount(); ++idx) {
+            Vector2 waypoint = store.getWaypoint(idx);
+            out.writeFloat(waypoint.x);
+            out.writeFloat(waypoint.y);
+            out.writeFloat(store.getLapDistance(idx));
+        }
+    }
+
+    static void readWaypoints(DataInputStream in, WaypointStore store) throws IOException {
+        int count = in.readInt();
+        for (int idx = 0; idx < count; ++idx) {
+            store.addWaypoint(in.readFloat(), in.readFloat(), in.readFloat());
+        }
+    }
+
+    /** Writes the obstacles of @p objects. Borders are skipped: use writeBorderShapes() for them */
+    static void writeObstacles(DataOutputStream out, Iterable<MapObject> objects)
+            throws IOException {
+        Array<MapObject> obstacles = new Array<>();
+        for (MapObject object : objects) {
+            if (!MapUtils.isBorderObstacle(object)) {
+                obstacles.add(object);
+            }
+        }
+        out.writeInt(obstacles.size);
+        for (MapObject object : obstacles) {
+            out.writeUTF(MapUtils.getObstacleId(object));
+            if (object instanceof RectangleMapObject) {
+                Rectangle rectangle = ((RectangleMapObject) object).getRectangle();
+                out.writeByte(OBSTACLE_RECTANGLE);
+                out.writeFloat(rectangle.x);
+                out.writeFloat(rectangle.y);
+                out.writeFloat(rectangle.width);
+                out.writeFloat(rectangle.height);
+                out.writeFloat(MapUtils.getObjectRotation(object));
+            } else if (object instanceof PolylineMapObject) {
+                Polyline polyline = ((PolylineMapObject) object).getPolyline();
+                out.writeByte(OBSTACLE_POLYLINE);
+                writeFloats(out, polyline.getTransformedVertices());
+            } else {
+                throw new RuntimeException("Unsupported obstacle type: " + object);
+            }
+        }
+    }
+
+    static MapObjects readObstacles(DataInputStream in) throws IOException {
+        MapObjects objects = new MapObjects();
+        int count = in.readInt();
+        for (int idx = 0; idx < count; ++idx) {
+            String id = in.readUTF();
+            byte type = in.readByte();
+            MapObject object;
+            if (type == OBSTACLE_RECTANGLE) {
+                object =
+                        new RectangleMapObject(
+                                in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+                MapUtils.setObjectRotation(object, in.readFloat());
+            } else if (type == OBSTACLE_POLYLINE) {
+                object = new PolylineMapObject(readFloats(in));
+            } else {
+                throw new IOException("Invalid obstacle type " + type);
+            }
+            MapUtils.setObstacleId(object, id);
+            objects.add(object);
+        }
+        return objects;
+    }
+
+    static void writeBorderShapes(DataOutputStream out, BorderShapes shapes) throws IOException {
+        writeFloatArrays(out, shapes.polygons);
+        writeFloatArrays(out, shapes.chains);
+        out.writeInt(shapes.circles.size);
+        for (Circle circle : shapes.circles) {
+            out.writeFloat(circle.x);
+            out.writeFloat(circle.y);
+            out.writeFloat(circle.radius);
+        }
+    }
+
+    static BorderShapes readBorderShapes(DataInputStream in) throws IOException {
+        BorderShapes shapes = new BorderShapes();
+        readFloatArrays(in, shapes.polygons);
+        readFloatArrays(in, shapes.chains);
+        int count = in.readInt();
+        for (int idx = 0; idx < count; ++idx) {
+            shapes.circles.add(new Circle(in.readFloat(), in.readFloat(), in.readFloat()));
+        }
+        return shapes;
+    }
+
+    private static void writeFloatArrays(DataOutputStream out, Array<float[]> arrays)
+            throws IOException {
+        out.writeInt(arrays.size);
+        for (float[] array : arrays) {
+            writeFloats(out, array);
+        }
+    }
+
+    private static void readFloatArrays(DataInputStream in, Array<float[]> arrays)
+            throws IOException {
+        int count = in.readInt();
+        for (int idx = 0; idx < count; ++idx) {
+            arrays.add(readFloats(in));
+        }
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        out.writeInt(values.length);
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    private static float[] readFloats(DataInputStream in) throws IOException {
+        float[] values = new float[in.readInt()];
+        for (int idx = 0; idx < values.length; ++idx) {
+            values[idx] = in.readFloat();
+        }
+        return values;
+    }
+}
@@ -57,18 +57,27 @@ public class WaypointStore {
                             + " is not an ellipse.");
             Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
             final LapPosition pos = lapPositionTable.get((int) ellipse.x, (int) ellipse.y);
-            WaypointInfo info = new WaypointInfo();
-            info.waypoint = new Vector2(ellipse.x * U, ellipse.y * U);
-            info.lapDistance = pos.getLapDistance();
-            mWaypointInfos.add(info);
+            addWaypoint(ellipse.x * U, ellipse.y * U, pos.getLapDistance());
         }
         mWaypointInfos.sort();
     }
 
+    /** Waypoints must be added sorted by lap distance */
+    void addWaypoint(float x, float y, float lapDistance) {
+        WaypointInfo info = new WaypointInfo();
+        info.waypoint = new Vector2(x, y);
+        info.lapDistance = lapDistance;
+        mWaypointInfos.add(info);
+    }
+
     public Vector2 getWaypoint(int index) {
         return mWaypointInfos.get(index).waypoint;
     }
 
+    float getLapDistance(int index) {
+        return mWaypointInfos.get(index).lapDistance;
+    }
+
     public int getPreviousIndex(int index) {
         return (index > 0 ? index : mWaypointInfos.size) - 1;
     }
@@ -22,20 +22,29 @@ import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.TextureRegionProvider;
+import com.agateau.pixelwheels.map.BorderShapes;
 import com.agateau.pixelwheels.map.MapObjectWalker;
 import com.agateau.pixelwheels.map.MapObjectWalkerFactory;
 import com.agateau.pixelwheels.map.MapUtils;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.utils.Assert;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.ChainShape;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
 import java.util.HashMap;
 
 /** Helper class to create GameObjects and Box2D bodies from the Obstacles layer of a map */
 public class ObstacleCreator {
+    private static final Vector2 sTmp = new Vector2();
+
     private final HashMap<String, ObstacleDef> mObstacleDefs = new HashMap<>();
     private final HashMap<ObstacleDef, BodyDef> mBodyDefs = new HashMap<>();
 
@@ -52,11 +61,8 @@ public class ObstacleCreator {
     public void create(
             GameWorld gameWorld, TextureRegionProvider textureRegionProvider, MapObject mapObject) {
         String id = MapUtils.getObstacleId(mapObject);
-        if (id == null) {
-            // Special case: an obstacle with no id is a border
-            createBorder(gameWorld.getBox2DWorld(), mapObject);
-            return;
-        }
+        // Borders are created all at once by createBorders()
+        Assert.check(id != null, "create() must not be called on borders");
         ObstacleDef obstacleDef = mObstacleDefs.get(id);
         final BodyDef bodyDef = mBodyDefs.get(obstacleDef);
         MapObjectWalker walker = MapObjectWalkerFactory.get(mapObject);
@@ -77,8 +83,38 @@ public class ObstacleCreator {
                 });
     }
 
-    private static void createBorder(World world, MapObject mapObject) {
-        Body body = Box2DUtils.createStaticBodyForMapObject(world, mapObject);
+    /**
+     * Creates a single static body holding all the borders of a map.
+     *
+     * <p>This is much cheaper for Box2D than having one body per border.
+     */
+    public static Body createBorders(World world, BorderShapes shapes) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+        Body body = world.createBody(bodyDef);
+
+        PolygonShape polygonShape = new PolygonShape();
+        for (float[] vertices : shapes.polygons) {
+            polygonShape.set(vertices);
+            body.createFixture(polygonShape, 1);
+        }
+        polygonShape.dispose();
+
+        for (float[] vertices : shapes.chains) {
+            ChainShape chainShape = new ChainShape();
+            chainShape.createLoop(vertices);
+            body.createFixture(chainShape, 1);
+            chainShape.dispose();
+        }
+
+        CircleShape circleShape = new CircleShape();
+        for (Circle circle : shapes.circles) {
+            circleShape.setPosition(sTmp.set(circle.x, circle.y));
+            circleShape.setRadius(circle.radius);
+            body.createFixture(circleShape, 1);
+        }
+        circleShape.dispose();
+
         Box2DUtils.setCollisionInfo(
                 body,
                 CollisionCategories.WALL,
@@ -86,5 +122,6 @@ public class ObstacleCreator {
                         | CollisionCategories.EXPLOSABLE
                         | CollisionCategories.RACER_BULLET);
         Box2DUtils.setBodyRestitution(body, GamePlay.instance.borderRestitution / 10.0f);
+        return body;
     }
 }
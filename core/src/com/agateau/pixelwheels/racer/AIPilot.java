@@ -22,6 +22,7 @@ import com.agateau.pixelwheels.BodyIdentifier;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.bonus.Bonus;
+import com.agateau.pixelwheels.debug.FrameProfiler;
 import com.agateau.pixelwheels.map.Championship;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.map.WaypointStore;
@@ -32,7 +33,6 @@ import com.agateau.utils.AgcMathUtils;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.World;
 
 /** An AI pilot */
 public class AIPilot implements Pilot {
@@ -79,6 +79,7 @@ public class AIPilot implements Pilot {
     private final GameWorld mGameWorld;
     private final Track mTrack;
     private final Racer mRacer;
+    private final FrameProfiler.Section mThinkSection;
 
     private final MineFilter mMineFilter = new MineFilter();
     private final ClosestBodyFinder mClosestBodyFinder = new ClosestBodyFinder(mMineFilter);
@@ -90,10 +91,12 @@ public class AIPilot implements Pilot {
     private final Target mTarget = new Target();
     private final Target mNextTarget = new Target();
 
-    public AIPilot(GameWorld gameWorld, Track track, Racer racer) {
+    public AIPilot(
+            GameWorld gameWorld, Track track, Racer racer, FrameProfiler.Section thinkSection) {
         mGameWorld = gameWorld;
         mTrack = track;
         mRacer = racer;
+        mThinkSection = thinkSection;
     }
 
     Vector2 getTargetPosition() {
@@ -102,6 +105,7 @@ public class AIPilot implements Pilot {
 
     @Override
     public void act(float dt) {
+        mThinkSection.start();
         handleBonus(dt);
         switch (mState) {
             case NORMAL:
@@ -111,6 +115,7 @@ public class AIPilot implements Pilot {
                 actBlocked(dt);
                 break;
         }
+        mThinkSection.stop();
     }
 
     private static final GameStats sDummyGameStats =
@@ -144,6 +149,11 @@ public class AIPilot implements Pilot {
 
                 @Override
                 public void save() {}
+
+                @Override
+                public int getSaveCount() {
+                    return 0;
+                }
             };
 
     @Override
@@ -247,7 +257,6 @@ public class AIPilot implements Pilot {
     }
 
     private void updateNextTarget() {
-        World world = mGameWorld.getBox2DWorld();
         Vector2 halfWidth = mTmpVector1;
         Vector2 position = mTmpVector2;
         Vector2 adjustedTargetPos = mTmpVector3;
@@ -258,7 +267,7 @@ public class AIPilot implements Pilot {
         // Check on the right
         position.set(mRacer.getPosition()).add(halfWidth);
         adjustedTargetPos.set(mNextTarget.position).add(halfWidth);
-        Body body = mClosestBodyFinder.find(world, position, adjustedTargetPos);
+        Body body = mClosestBodyFinder.find(mGameWorld, position, adjustedTargetPos);
         if (body != null) {
             if (BodyIdentifier.isMine(body)) {
                 halfWidth.scl(-2 * MINE_AVOIDANCE_FACTOR);
@@ -273,7 +282,7 @@ public class AIPilot implements Pilot {
         // Check on the left
         position.set(mRacer.getPosition()).sub(halfWidth);
         adjustedTargetPos.set(mNextTarget.position).add(halfWidth);
-        body = mClosestBodyFinder.find(world, position, adjustedTargetPos);
+        body = mClosestBodyFinder.find(mGameWorld, position, adjustedTargetPos);
         if (body != null) {
             if (BodyIdentifier.isMine(body)) {
                 halfWidth.scl(-2 * MINE_AVOIDANCE_FACTOR);
@@ -29,7 +29,6 @@ import com.agateau.pixelwheels.sound.SoundPlayer;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.utils.Array;
@@ -158,9 +157,6 @@ class AudioComponent implements Racer.Component, Disposable, Collidable {
     @Override
     public void beginContact(Contact contact, Fixture otherFixture) {}
 
-    @Override
-    public void endContact(Contact contact, Fixture otherFixture) {}
-
     @Override
     public void preSolve(Contact contact, Fixture otherFixture, Manifold oldManifold) {
         Body otherBody = otherFixture.getBody();
@@ -168,7 +164,4 @@ class AudioComponent implements Racer.Component, Disposable, Collidable {
             onCollision();
         }
     }
-
-    @Override
-    public void postSolve(Contact contact, Fixture otherFixture, ContactImpulse impulse) {}
 }
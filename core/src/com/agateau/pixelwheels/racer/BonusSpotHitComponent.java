@@ -21,7 +21,6 @@ package com.agateau.pixelwheels.racer;
 import com.agateau.pixelwheels.bonus.BonusSpot;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Manifold;
 
@@ -49,15 +48,9 @@ public class BonusSpotHitComponent implements Racer.Component, Collidable {
         }
     }
 
-    @Override
-    public void endContact(Contact contact, Fixture otherFixture) {}
-
     @Override
     public void preSolve(Contact contact, Fixture otherFixture, Manifold oldManifold) {}
 
-    @Override
-    public void postSolve(Contact contact, Fixture otherFixture, ContactImpulse impulse) {}
-
     @Override
     public void act(float delta) {
         if (mMustSelectBonus) {
@@ -31,6 +31,11 @@ import com.agateau.ui.VirtualKey;
 
 /** A pilot controlled by the player */
 public class PlayerPilot implements Pilot {
+    /** Notified of each GameInput used to drive the vehicle */
+    public interface InputListener {
+        void onGameInput(GameInput input);
+    }
+
     private final Assets mAssets;
     private final GameWorld mGameWorld;
     private final Racer mRacer;
@@ -38,6 +43,9 @@ public class PlayerPilot implements Pilot {
     private final int mPlayerIndex;
 
     private GameInputHandler mInputHandler;
+    // True if mInputHandler has been set by setInputHandler(), and thus must not follow the config
+    private boolean mForcedInputHandler = false;
+    private InputListener mInputListener = null;
     private boolean mLastTriggering = false;
 
     public PlayerPilot(
@@ -56,6 +64,20 @@ public class PlayerPilot implements Pilot {
         mGameConfig.addListener(() -> updateInputHandler());
     }
 
+    public int getPlayerIndex() {
+        return mPlayerIndex;
+    }
+
+    /** Replaces the input handler from the config with @p handler, used to replay races */
+    public void setInputHandler(GameInputHandler handler) {
+        mInputHandler = handler;
+        mForcedInputHandler = true;
+    }
+
+    public void setInputListener(InputListener listener) {
+        mInputListener = listener;
+    }
+
     public void createHudButtons(Hud hud) {
         hud.deleteInputUiContainer();
         mInputHandler.createHudButtons(mAssets, hud);
@@ -68,6 +90,9 @@ public class PlayerPilot implements Pilot {
         if (mGameWorld.getState() == GameWorld.State.RUNNING) {
             mInputHandler.setBonus(mRacer.getBonus());
             GameInput input = mInputHandler.getGameInput();
+            if (mInputListener != null) {
+                mInputListener.onGameInput(input);
+            }
             vehicle.setDirection(input.direction);
             vehicle.setAccelerating(input.accelerating);
             vehicle.setBraking(input.braking);
@@ -92,6 +117,9 @@ public class PlayerPilot implements Pilot {
     }
 
     private void updateInputHandler() {
+        if (mForcedInputHandler) {
+            return;
+        }
         mInputHandler = mGameConfig.getPlayerInputHandler(mPlayerIndex);
     }
 }
@@ -31,12 +31,13 @@ import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.utils.FileUtils;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.utils.Array;
@@ -126,9 +127,13 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         addComponent(mAudioComponent);
 
         if (GamePlay.instance.createSpeedReport) {
-            Probe probe = new Probe("speed.dat");
-            mVehicle.setProbe(probe);
-            addComponent(probe);
+            // Racers are not added to the world yet, so this is the index of this one
+            int index = gameWorld.getRacers().size;
+            FileHandle file = FileUtils.getUserWritableFile("telemetry-" + index + ".dat");
+            TelemetryComponent telemetry =
+                    new TelemetryComponent(file, mVehicle, mLapPositionComponent);
+            mVehicle.setTelemetry(telemetry);
+            addComponent(telemetry);
         }
     }
 
@@ -200,15 +205,9 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
 
     @Override
     public void beginContact(Contact contact, Fixture otherFixture) {
-        for (Collidable collidable : mCollidableComponents) {
-            collidable.beginContact(contact, otherFixture);
-        }
-    }
-
-    @Override
-    public void endContact(Contact contact, Fixture otherFixture) {
-        for (Collidable collidable : mCollidableComponents) {
-            collidable.endContact(contact, otherFixture);
+        // Index loops, so that contact callbacks never allocate an Array iterator
+        for (int idx = 0; idx < mCollidableComponents.size; ++idx) {
+            mCollidableComponents.get(idx).beginContact(contact, otherFixture);
         }
     }
 
@@ -220,8 +219,8 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
             applySimplifiedRacerCollision((Racer) other);
         }
 
-        for (Collidable collidable : mCollidableComponents) {
-            collidable.preSolve(contact, otherFixture, oldManifold);
+        for (int idx = 0; idx < mCollidableComponents.size; ++idx) {
+            mCollidableComponents.get(idx).preSolve(contact, otherFixture, oldManifold);
         }
     }
 
@@ -249,13 +248,6 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         body1.applyLinearImpulse(mTmp, body1.getWorldCenter(), true);
     }
 
-    @Override
-    public void postSolve(Contact contact, Fixture otherFixture, ContactImpulse impulse) {
-        for (Collidable collidable : mCollidableComponents) {
-            collidable.postSolve(contact, otherFixture, impulse);
-        }
-    }
-
     @Override
     public void dispose() {
         for (Racer.Component component : mComponents) {
@@ -267,8 +259,8 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
 
     @Override
     public void act(float delta) {
-        for (Racer.Component component : mComponents) {
-            component.act(delta);
+        for (int idx = 0; idx < mComponents.size; ++idx) {
+            mComponents.get(idx).act(delta);
         }
 
         if (mBonus != null) {
@@ -279,16 +271,16 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
     public void selectBonus() {
         float normalizedRank = mGameWorld.getRacerNormalizedRank(this);
 
-        Array<BonusPool> pools = mGameWorld.getBonusPools();
+        Array<BonusPool<?>> pools = mGameWorld.getBonusPools();
         float totalCount = 0;
-        for (BonusPool pool : pools) {
+        for (BonusPool<?> pool : pools) {
             totalCount += pool.getCountForNormalizedRank(normalizedRank);
         }
 
         // To avoid allocating an array of the counts for each normalized rank, we subtract counts
         // from pick, until it is less than 0, at this point we are on the selected pool
         float pick = MathUtils.random(0f, totalCount);
-        BonusPool pool = null;
+        BonusPool<?> pool = null;
         for (int idx = 0; idx < pools.size; ++idx) {
             pool = pools.get(idx);
             pick -= pool.getCountForNormalizedRank(normalizedRank);
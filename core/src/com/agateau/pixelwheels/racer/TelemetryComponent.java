@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.racescreen.Collidable;
+import com.agateau.utils.TelemetryRecorder;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Records the driving data of a racer, one row per frame. Enabled by GamePlay.createSpeedReport.
+ */
+public class TelemetryComponent implements Racer.Component, Collidable, Disposable {
+    private final TelemetryRecorder mRecorder;
+    private final Vehicle mVehicle;
+    private final LapPositionComponent mLapPositionComponent;
+
+    private final int mTimeChannel;
+    private final int mSpeedChannel;
+    private final int mSteerChannel;
+    private final int mCategoryChannel;
+    private final int mLapDistanceChannel;
+    private final int mMaterialChannel;
+    private final int mContactsChannel;
+
+    private float mTime = 0;
+    private int mContactCount = 0;
+
+    TelemetryComponent(
+            FileHandle file, Vehicle vehicle, LapPositionComponent lapPositionComponent) {
+        mRecorder = new TelemetryRecorder(file);
+        mVehicle = vehicle;
+        mLapPositionComponent = lapPositionComponent;
+        mTimeChannel = mRecorder.addChannel("t", TelemetryRecorder.Type.FLOAT);
+        mSpeedChannel = mRecorder.addChannel("speed", TelemetryRecorder.Type.FLOAT);
+        mSteerChannel = mRecorder.addChannel("steer", TelemetryRecorder.Type.FLOAT);
+        mCategoryChannel = mRecorder.addChannel("category", TelemetryRecorder.Type.INT);
+        mLapDistanceChannel = mRecorder.addChannel("lapDistance", TelemetryRecorder.Type.FLOAT);
+        mMaterialChannel = mRecorder.addChannel("material", TelemetryRecorder.Type.INT);
+        mContactsChannel = mRecorder.addChannel("contacts", TelemetryRecorder.Type.INT);
+    }
+
+    /** Called by Vehicle each time it computes its steer angle */
+    void recordSteer(float speed, float steer, int category) {
+        mRecorder.setFloat(mSpeedChannel, speed);
+        mRecorder.setFloat(mSteerChannel, steer);
+        mRecorder.setInt(mCategoryChannel, category);
+    }
+
+    @Override
+    public void act(float delta) {
+        mRecorder.setFloat(mTimeChannel, mTime);
+        mRecorder.setFloat(mLapDistanceChannel, mLapPositionComponent.getLapDistance());
+        mRecorder.setInt(mMaterialChannel, mVehicle.getMaterial().ordinal());
+        mRecorder.setInt(mContactsChannel, mContactCount);
+        mRecorder.endRow();
+        mContactCount = 0;
+        mTime += delta;
+    }
+
+    @Override
+    public void beginContact(Contact contact, Fixture otherFixture) {
+        ++mContactCount;
+    }
+
+    @Override
+    public void preSolve(Contact contact, Fixture otherFixture, Manifold oldManifold) {}
+
+    @Override
+    public void dispose() {
+        mRecorder.dispose();
+    }
+}
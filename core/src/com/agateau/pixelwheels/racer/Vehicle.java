@@ -35,8 +35,9 @@ import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJoint;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ArrayMap;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.LongArray;
 
 /** Represents a car on the world */
 public class Vehicle implements Racer.Component, Disposable {
@@ -74,9 +75,12 @@ public class Vehicle implements Racer.Component, Disposable {
     private Material mMaterial = Material.ROAD;
     private float mSpeedLimiter = 1f;
 
-    private Probe mProbe = null;
+    private TelemetryComponent mTelemetry = null;
 
-    private final ArrayMap<Long, Float> mTurboCellMap = new ArrayMap<>(8);
+    // Turbo cells which have been triggered, and how long before they can trigger again. Uses
+    // primitive arrays because they are updated at every frame: an ArrayMap<Long, Float> would box
+    private final LongArray mTurboCellIds = new LongArray(8);
+    private final FloatArray mTurboCellDurations = new FloatArray(8);
 
     public Vehicle(
             TextureRegion region,
@@ -146,8 +150,8 @@ public class Vehicle implements Racer.Component, Disposable {
         }
     }
 
-    public void setProbe(Probe probe) {
-        mProbe = probe;
+    public void setTelemetry(TelemetryComponent telemetry) {
+        mTelemetry = telemetry;
     }
 
     public void setCollisionInfo(int categoryBits, int maskBits) {
@@ -176,6 +180,10 @@ public class Vehicle implements Racer.Component, Disposable {
         return mRegion;
     }
 
+    public Material getMaterial() {
+        return mMaterial;
+    }
+
     public float getSpeed() {
         return mBody.getLinearVelocity().len();
     }
@@ -379,11 +387,9 @@ public class Vehicle implements Racer.Component, Disposable {
     private float computeSteerAngle() {
         final GamePlay GP = GamePlay.instance;
         if (mDirection == 0) {
-            if (mProbe != null) {
+            if (mTelemetry != null) {
                 float speed = mBody.getLinearVelocity().len() * Box2DUtils.MS_TO_KMH;
-                mProbe.addValue("steer", 0);
-                mProbe.addValue("speed", speed);
-                mProbe.addValue("category", 0);
+                mTelemetry.recordSteer(speed, 0, 0);
             }
             return 0;
         }
@@ -392,7 +398,7 @@ public class Vehicle implements Racer.Component, Disposable {
         float steer;
         // Category is 0 if speed is < GP.lowSpeed, 1 if < GP.maxSpeed, 2 if > GP.maxSpeed
         // For a better driving experience, it should not reach 2 except when triggering turbos
-        float category;
+        int category;
         if (speed < GP.lowSpeed) {
             steer = MathUtils.lerp(GP.stoppedMaxSteer, GP.lowSpeedMaxSteer, speed / GP.lowSpeed);
             category = 0;
@@ -404,29 +410,29 @@ public class Vehicle implements Racer.Component, Disposable {
             steer = GP.highSpeedMaxSteer;
             category = 2;
         }
-        if (mProbe != null) {
-            mProbe.addValue("steer", steer);
-            mProbe.addValue("speed", speed);
-            mProbe.addValue("category", category);
+        if (mTelemetry != null) {
+            mTelemetry.recordSteer(speed, steer, category);
         }
         return mDirection * steer;
     }
 
     private boolean alreadyTriggeredTurboCell(long cellId) {
-        return mTurboCellMap.containsKey(cellId);
+        return mTurboCellIds.contains(cellId);
     }
 
     private void addTriggeredTurboCell(long cellId) {
-        mTurboCellMap.put(cellId, GamePlay.instance.turboDuration);
+        mTurboCellIds.add(cellId);
+        mTurboCellDurations.add(GamePlay.instance.turboDuration);
     }
 
     private void updateTriggeredTurboTiles(float delta) {
-        for (int idx = mTurboCellMap.size - 1; idx >= 0; --idx) {
-            float duration = mTurboCellMap.getValueAt(idx) - delta;
+        for (int idx = mTurboCellIds.size - 1; idx >= 0; --idx) {
+            float duration = mTurboCellDurations.get(idx) - delta;
             if (duration <= 0) {
-                mTurboCellMap.removeIndex(idx);
+                mTurboCellIds.removeIndex(idx);
+                mTurboCellDurations.removeIndex(idx);
             } else {
-                mTurboCellMap.setValue(idx, duration);
+                mTurboCellDurations.set(idx, duration);
             }
         }
     }
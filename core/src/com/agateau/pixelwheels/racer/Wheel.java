@@ -56,6 +56,8 @@ public class Wheel implements Disposable {
 
         public void init(Vector2 pos) {
             mPos.set(pos);
+            // The instance may have been an end before being recycled
+            mIsEnd = false;
             mRemainingLife = SKIDMARK_LIFETIME;
         }
 
@@ -115,6 +117,9 @@ public class Wheel implements Disposable {
         shape.set(Box2DUtils.createOctogon(w, h, w / 4, w / 4));
         mBody.createFixture(shape, 2f);
         shape.dispose();
+
+        // Skidmarks are added while the race runs
+        mSkidmarks.preallocate();
     }
 
     public TextureRegion getRegion() {
@@ -19,16 +19,17 @@
 package com.agateau.pixelwheels.racescreen;
 
 import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Manifold;
 
+/**
+ * Implemented by objects which want to be notified of the contacts involving their body.
+ *
+ * <p>Only beginContact() and preSolve() are forwarded: nothing reacts to the end of a contact or to
+ * its impulse, so GameWorldImpl does not spend time dispatching these two callbacks.
+ */
 public interface Collidable {
     void beginContact(Contact contact, Fixture otherFixture);
 
-    void endContact(Contact contact, Fixture otherFixture);
-
     void preSolve(Contact contact, Fixture otherFixture, Manifold oldManifold);
-
-    void postSolve(Contact contact, Fixture otherFixture, ContactImpulse impulse);
 }
@@ -21,6 +21,7 @@ package com.agateau.pixelwheels.racescreen;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.SoundAtlas;
+import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.math.MathUtils;
 
 /** Handles the non-visible part of the count down */
@@ -30,7 +31,8 @@ public class CountDown {
 
     private final GameWorld mGameWorld;
     private final AudioManager mAudioManager;
-    private final SoundAtlas mSoundAtlas;
+    private final Sound mTickSound;
+    private final Sound mGoSound;
 
     private float mTime = START;
     private boolean mFirstCall = true;
@@ -38,7 +40,10 @@ public class CountDown {
     public CountDown(GameWorld gameWorld, AudioManager audioManager, SoundAtlas soundAtlas) {
         mGameWorld = gameWorld;
         mAudioManager = audioManager;
-        mSoundAtlas = soundAtlas;
+        soundAtlas.preload("countdown1");
+        soundAtlas.preload("countdown2");
+        mTickSound = soundAtlas.get("countdown1");
+        mGoSound = soundAtlas.get("countdown2");
     }
 
     public int getValue() {
@@ -63,8 +68,7 @@ public class CountDown {
         int newValue = getValue();
         if ((oldValue != newValue && newValue >= 0) || mFirstCall) {
             mFirstCall = false;
-            String soundName = newValue > 0 ? "countdown1" : "countdown2";
-            mAudioManager.play(mSoundAtlas.get(soundName), 1f);
+            mAudioManager.play(newValue > 0 ? mTickSound : mGoSound, 1f);
         }
         if (mTime < 0) {
             mGameWorld.startRace();
@@ -42,7 +42,7 @@ import java.util.Locale;
 /** Appears on top of RaceScreen at the end of the race */
 public class FinishedOverlay extends Overlay {
     private final PwGame mGame;
-    private final RaceScreen.Listener mListener;
+    private final RaceScreen mRaceScreen;
     private final Array<Racer> mRacers;
     private final Array<Racer> mRecordBreakers = new Array<>();
     private final TableRowCreator mTableRowCreator =
@@ -57,10 +57,10 @@ public class FinishedOverlay extends Overlay {
                 }
             };
 
-    public FinishedOverlay(PwGame game, RaceScreen.Listener listener, final Array<Racer> racers) {
+    public FinishedOverlay(PwGame game, RaceScreen raceScreen, final Array<Racer> racers) {
         super(game.getAssets().dot);
         mGame = game;
-        mListener = listener;
+        mRaceScreen = raceScreen;
         mRacers = racers;
         new PwRefreshHelper(mGame, this) {
             @Override
@@ -106,7 +106,7 @@ public class FinishedOverlay extends Overlay {
                         new MenuItemListener() {
                             @Override
                             public void triggered() {
-                                mListener.onNextTrackPressed();
+                                mRaceScreen.onNextTrackPressed();
                             }
                         });
     }
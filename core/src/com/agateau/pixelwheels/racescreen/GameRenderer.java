@@ -23,6 +23,7 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
+import com.agateau.pixelwheels.debug.FrameProfiler;
 import com.agateau.pixelwheels.gameobjet.GameObject;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.map.WaypointStore;
@@ -34,8 +35,6 @@ import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
-import com.badlogic.gdx.utils.PerformanceCounter;
-import com.badlogic.gdx.utils.PerformanceCounters;
 
 /** Responsible for rendering the game world */
 public class GameRenderer {
@@ -56,10 +55,10 @@ public class GameRenderer {
     private int mScreenY;
     private int mScreenWidth;
     private int mScreenHeight;
-    private final PerformanceCounter mTilePerformanceCounter;
-    private final PerformanceCounter mGameObjectPerformanceCounter;
+    private final FrameProfiler.Section mTileSection;
+    private final FrameProfiler.Section mGameObjectSection;
 
-    public GameRenderer(GameWorld world, Batch batch, PerformanceCounters counters) {
+    public GameRenderer(GameWorld world, Batch batch, FrameProfiler frameProfiler) {
         mDebugRenderer = new Box2DDebugRenderer();
         mWorld = world;
 
@@ -80,8 +79,8 @@ public class GameRenderer {
         mRenderer =
                 new OrthogonalTiledMapRenderer(mTrack.getMap(), Constants.UNIT_FOR_PIXEL, mBatch);
 
-        mTilePerformanceCounter = counters.add("- tiles");
-        mGameObjectPerformanceCounter = counters.add("- g.o.");
+        mTileSection = frameProfiler.add("- tiles");
+        mGameObjectSection = frameProfiler.add("- g.o.");
 
         mDebugRenderer.setDrawVelocities(Debug.instance.drawVelocities);
 
@@ -123,16 +122,16 @@ public class GameRenderer {
         updateCamera(delta);
         updateMapRendererCamera();
 
-        mTilePerformanceCounter.start();
+        mTileSection.start();
         mBatch.disableBlending();
         mRenderer.render(mBackgroundLayerFirstIndexes);
         mBatch.enableBlending();
         if (mExtraBackgroundLayerIndexes.length > 0) {
             mRenderer.render(mExtraBackgroundLayerIndexes);
         }
-        mTilePerformanceCounter.stop();
+        mTileSection.stop();
 
-        mGameObjectPerformanceCounter.start();
+        mGameObjectSection.start();
         mBatch.begin();
         for (ZLevel z : ZLevel.values()) {
             for (GameObject object : mWorld.getActiveGameObjects()) {
@@ -140,18 +139,18 @@ public class GameRenderer {
             }
 
             if (z == ZLevel.OBSTACLES && mForegroundLayerIndexes.length > 0) {
-                mGameObjectPerformanceCounter.stop();
-                mTilePerformanceCounter.start();
+                mGameObjectSection.stop();
+                mTileSection.start();
 
                 mBatch.end();
                 mRenderer.render(mForegroundLayerIndexes);
                 mBatch.begin();
 
-                mTilePerformanceCounter.stop();
-                mGameObjectPerformanceCounter.start();
+                mTileSection.stop();
+                mGameObjectSection.start();
             }
         }
-        mGameObjectPerformanceCounter.stop();
+        mGameObjectSection.stop();
         mBatch.end();
 
         if (Debug.instance.showDebugLayer) {
@@ -27,8 +27,10 @@ import com.agateau.pixelwheels.bonus.GunBonus;
 import com.agateau.pixelwheels.bonus.MineBonus;
 import com.agateau.pixelwheels.bonus.MissileBonus;
 import com.agateau.pixelwheels.bonus.TurboBonus;
+import com.agateau.pixelwheels.debug.FrameProfiler;
 import com.agateau.pixelwheels.gameobjet.GameObject;
 import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.map.MapUtils;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.obstacles.ObstacleCreator;
 import com.agateau.pixelwheels.obstacles.ObstacleDef;
@@ -38,61 +40,103 @@ import com.agateau.pixelwheels.racer.PlayerPilot;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.SoundAtlas;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.stats.TrackResult;
 import com.agateau.pixelwheels.stats.TrackStats;
+import com.agateau.pixelwheels.utils.BodyRecycler;
 import com.agateau.pixelwheels.vehicledef.VehicleCreator;
 import com.agateau.pixelwheels.vehicledef.VehicleDef;
 import com.agateau.utils.Assert;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.Contact;
 import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
-import com.badlogic.gdx.utils.PerformanceCounter;
-import com.badlogic.gdx.utils.PerformanceCounters;
 import com.badlogic.gdx.utils.Sort;
 import java.util.Comparator;
 
 public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
+    // Sounds which are looked up when they are played, during the race. The countdown sounds are
+    // preloaded by CountDown
+    private static final String[] PRELOADED_SOUNDS = {
+        "bonus", "explosion", "shoot", "impact", "missile", "helicopter"
+    };
+
     private final PwGame mGame;
-    private Track mTrack;
+    private final Track mTrack;
     private final CountDown mCountDown;
 
     private final World mBox2DWorld;
+    private final BodyRecycler mBodyRecycler;
     private float mTimeAccumulator = 0;
 
-    private final Array<BonusPool> mBonusPools = new Array<>();
+    private final Array<BonusPool<?>> mBonusPools = new Array<>();
 
-    private final Array<Racer> mRacers = new Array<>();
+    private final Array<Racer> mRacers = new Array<>(Racer.class);
     private final Array<Racer> mPlayerRacers = new Array<>();
     private State mState = GameWorld.State.COUNTDOWN;
 
     private final Array<GameObject> mActiveGameObjects = new Array<>();
 
-    private final PerformanceCounter mBox2DPerformanceCounter;
-    private final PerformanceCounter mGameObjectPerformanceCounter;
-
-    GameWorldImpl(PwGame game, GameInfo gameInfo, PerformanceCounters performanceCounters) {
+    private final FrameProfiler mFrameProfiler;
+    private final FrameProfiler.Section mBox2DSection;
+    private final FrameProfiler.Section mContactSection;
+    private final FrameProfiler.Section mPreSolveSection;
+    private final FrameProfiler.Counter mStepCounter;
+    private final FrameProfiler.Counter mContactCounter;
+    private final FrameProfiler.Counter mBeginContactCounter;
+    private final FrameProfiler.Counter mPreSolveCounter;
+    private final FrameProfiler.Counter mPostSolveCounter;
+    private final FrameProfiler.Counter mAwakeBodyCounter;
+    private final FrameProfiler.Counter mRayCastCounter;
+    // Only used to count awake bodies
+    private final Array<Body> mBodies = new Array<>();
+    private final FrameProfiler.Section mGameObjectSection;
+    private final FrameProfiler.Section mAISection;
+
+    GameWorldImpl(PwGame game, GameInfo gameInfo, FrameProfiler frameProfiler) {
         mGame = game;
         mBox2DWorld = new World(new Vector2(0, 0), true);
         mBox2DWorld.setContactListener(this);
+        mBodyRecycler = new BodyRecycler(mBox2DWorld);
         mTrack = gameInfo.getTrack();
-        mTrack.init();
+        game.getAssets().trackCache.init(mTrack);
+        preloadSounds(game.getAssets().soundAtlas);
         mCountDown = new CountDown(this, game.getAudioManager(), game.getAssets().soundAtlas);
 
-        mBox2DPerformanceCounter = performanceCounters.add("- box2d");
-        mGameObjectPerformanceCounter = performanceCounters.add("- g.o");
+        mFrameProfiler = frameProfiler;
+        mBox2DSection = frameProfiler.add("- box2d");
+        mContactSection = frameProfiler.add("  - contacts");
+        mPreSolveSection = frameProfiler.add("  - preSolve");
+        mStepCounter = frameProfiler.addCounter("box2d steps");
+        mContactCounter = frameProfiler.addCounter("contacts (sum)");
+        mBeginContactCounter = frameProfiler.addCounter("beginContact");
+        mPreSolveCounter = frameProfiler.addCounter("preSolve");
+        mPostSolveCounter = frameProfiler.addCounter("postSolve");
+        mAwakeBodyCounter = frameProfiler.addCounter("awake bodies");
+        mRayCastCounter = frameProfiler.addCounter("raycasts");
+        mGameObjectSection = frameProfiler.add("- g.o");
+        mAISection = frameProfiler.add("  - AI");
         setupRacers(gameInfo.getEntrants());
         setupObstacles();
         setupBonusSpots();
         setupBonusPools();
     }
 
+    private static void preloadSounds(SoundAtlas soundAtlas) {
+        for (String name : PRELOADED_SOUNDS) {
+            soundAtlas.preload(name);
+        }
+    }
+
     @Override
     public Track getTrack() {
         return mTrack;
@@ -103,6 +147,17 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         return mBox2DWorld;
     }
 
+    @Override
+    public BodyRecycler getBodyRecycler() {
+        return mBodyRecycler;
+    }
+
+    @Override
+    public void rayCast(RayCastCallback callback, Vector2 point1, Vector2 point2) {
+        mRayCastCounter.increment();
+        mBox2DWorld.rayCast(callback, point1, point2);
+    }
+
     @Override
     public Racer getPlayerRacer(int playerId) {
         return mPlayerRacers.get(playerId);
@@ -119,7 +174,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     }
 
     @Override
-    public Array<BonusPool> getBonusPools() {
+    public Array<BonusPool<?>> getBonusPools() {
         return mBonusPools;
     }
 
@@ -193,7 +248,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     @Override
     public void act(float delta) {
         mCountDown.act(delta);
-        mBox2DPerformanceCounter.start();
+        mBox2DSection.start();
         // fixed time step
         // max frame time to avoid spiral of death (on slow devices)
         float frameTime = Math.min(delta, 0.25f);
@@ -204,10 +259,18 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
                     GameWorld.VELOCITY_ITERATIONS,
                     GameWorld.POSITION_ITERATIONS);
             mTimeAccumulator -= GameWorld.BOX2D_TIME_STEP;
+            mStepCounter.increment();
+            // getContactCount() goes through JNI, so this is only done when profiling
+            if (mFrameProfiler.isEnabled()) {
+                mContactCounter.add(mBox2DWorld.getContactCount());
+            }
+        }
+        mBox2DSection.stop();
+        if (mFrameProfiler.isEnabled()) {
+            countAwakeBodies();
         }
-        mBox2DPerformanceCounter.stop();
 
-        mGameObjectPerformanceCounter.start();
+        mGameObjectSection.start();
         for (int idx = mActiveGameObjects.size - 1; idx >= 0; --idx) {
             GameObject obj = mActiveGameObjects.get(idx);
             obj.act(delta);
@@ -218,7 +281,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
                 }
             }
         }
-        mGameObjectPerformanceCounter.stop();
+        mGameObjectSection.stop();
 
         // Skip finished racers so that they keep the position they had when they crossed the finish
         // line, even if they continue a bit after it
@@ -230,9 +293,11 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         }
         Sort.instance().sort(mRacers.items, sRacerComparator, fromIndex, mRacers.size);
 
+        // AI-only races, like the ones run by TrackPerformanceTests, end when all the AIs are done
+        Array<Racer> racers = mPlayerRacers.size > 0 ? mPlayerRacers : mRacers;
         boolean allFinished = true;
-        for (Racer racer : mPlayerRacers) {
-            if (!racer.getLapPositionComponent().hasFinishedRace()) {
+        for (int idx = 0; idx < racers.size; ++idx) {
+            if (!racers.get(idx).getLapPositionComponent().hasFinishedRace()) {
                 allFinished = false;
                 break;
             }
@@ -293,7 +358,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
                 racer.setPilot(pilot);
                 mPlayerRacers.add(racer);
             } else {
-                racer.setPilot(new AIPilot(this, mTrack, racer));
+                racer.setPilot(new AIPilot(this, mTrack, racer, mAISection));
             }
             addGameObject(racer);
             mRacers.add(racer);
@@ -306,8 +371,11 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
             creator.addObstacleDef(def);
         }
 
+        ObstacleCreator.createBorders(mBox2DWorld, mTrack.getBorderShapes());
         for (MapObject object : mTrack.getObstacleObjects()) {
-            creator.create(this, mGame.getAssets(), object);
+            if (!MapUtils.isBorderObstacle(object)) {
+                creator.create(this, mGame.getAssets(), object);
+            }
         }
     }
 
@@ -335,57 +403,63 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
                 new float[] {0.2f, 1.0f, 1.0f});
     }
 
-    private void addPool(BonusPool pool, float[] counts) {
+    private void addPool(BonusPool<?> pool, float[] counts) {
         pool.setCounts(counts);
         mBonusPools.add(pool);
     }
 
-    @Override
-    public void beginContact(Contact contact) {
-        Object userA = contact.getFixtureA().getBody().getUserData();
-        Object userB = contact.getFixtureB().getBody().getUserData();
-        if (userA instanceof Collidable) {
-            ((Collidable) userA).beginContact(contact, contact.getFixtureB());
-        }
-        if (userB instanceof Collidable) {
-            ((Collidable) userB).beginContact(contact, contact.getFixtureA());
+    private void countAwakeBodies() {
+        // Body.isAwake() goes through JNI, so this is only done when profiling
+        mBox2DWorld.getBodies(mBodies);
+        for (int idx = 0; idx < mBodies.size; ++idx) {
+            if (mBodies.get(idx).isAwake()) {
+                mAwakeBodyCounter.increment();
+            }
         }
     }
 
     @Override
-    public void endContact(Contact contact) {
-        Object userA = contact.getFixtureA().getBody().getUserData();
-        Object userB = contact.getFixtureB().getBody().getUserData();
+    public void beginContact(Contact contact) {
+        mBeginContactCounter.increment();
+        mContactSection.start();
+        // Contact.getFixtureA() and getFixtureB() go through JNI, call them only once
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        Object userA = fixtureA.getBody().getUserData();
+        Object userB = fixtureB.getBody().getUserData();
         if (userA instanceof Collidable) {
-            ((Collidable) userA).endContact(contact, contact.getFixtureB());
+            ((Collidable) userA).beginContact(contact, fixtureB);
         }
         if (userB instanceof Collidable) {
-            ((Collidable) userB).endContact(contact, contact.getFixtureA());
+            ((Collidable) userB).beginContact(contact, fixtureA);
         }
+        mContactSection.stop();
     }
 
+    @Override
+    public void endContact(Contact contact) {}
+
     @Override
     public void preSolve(Contact contact, Manifold oldManifold) {
-        Object userA = contact.getFixtureA().getBody().getUserData();
-        Object userB = contact.getFixtureB().getBody().getUserData();
+        mPreSolveCounter.increment();
+        mPreSolveSection.start();
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        Object userA = fixtureA.getBody().getUserData();
+        Object userB = fixtureB.getBody().getUserData();
         if (userA instanceof Collidable) {
-            ((Collidable) userA).preSolve(contact, contact.getFixtureB(), oldManifold);
+            ((Collidable) userA).preSolve(contact, fixtureB, oldManifold);
         }
         if (userB instanceof Collidable) {
-            ((Collidable) userB).preSolve(contact, contact.getFixtureA(), oldManifold);
+            ((Collidable) userB).preSolve(contact, fixtureA, oldManifold);
         }
+        mPreSolveSection.stop();
     }
 
     @Override
     public void postSolve(Contact contact, ContactImpulse impulse) {
-        Object userA = contact.getFixtureA().getBody().getUserData();
-        Object userB = contact.getFixtureB().getBody().getUserData();
-        if (userA instanceof Collidable) {
-            ((Collidable) userA).postSolve(contact, contact.getFixtureB(), impulse);
-        }
-        if (userB instanceof Collidable) {
-            ((Collidable) userB).postSolve(contact, contact.getFixtureA(), impulse);
-        }
+        // Nothing to do, but count the calls: each of them is a JNI upcall
+        mPostSolveCounter.increment();
     }
 
     @Override
@@ -411,18 +485,15 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     @Override
     public void dispose() {
-        if (mTrack != null) {
-            mTrack.dispose();
-        }
+        // The track is not disposed: TrackCache keeps it for the next races
         for (GameObject gameObject : mActiveGameObjects) {
             if (gameObject instanceof Disposable) {
                 ((Disposable) gameObject).dispose();
             }
         }
         mActiveGameObjects.clear();
-    }
-
-    void forgetTrack() {
-        mTrack = null;
+        // No sound is needed until the next race, a good time to release the least used ones.
+        // Preloaded sounds are kept
+        mGame.getAssets().soundAtlas.trim();
     }
 }
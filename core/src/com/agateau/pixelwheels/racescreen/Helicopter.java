@@ -30,6 +30,8 @@ import com.agateau.pixelwheels.racer.HoleHandlerComponent;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.SoundPlayer;
+import com.agateau.utils.InstrumentedPool;
+import com.agateau.utils.PoolRegistry;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Pixmap;
@@ -43,7 +45,6 @@ import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** The rescue helicopter which comes to pick up fallen vehicles */
 public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disposable {
@@ -62,7 +63,8 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         LEAVING
     }
 
-    private static final ReflectionPool<Helicopter> sPool = new ReflectionPool<>(Helicopter.class);
+    private static final InstrumentedPool<Helicopter> sPool =
+            PoolRegistry.register("Helicopter", new InstrumentedPool<>(Helicopter.class));
 
     private SoundPlayer mSoundPlayer;
     private FrameBuffer mFrameBuffer;
@@ -21,19 +21,19 @@ package com.agateau.pixelwheels.racescreen;
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.debug.DebugStringMap;
+import com.agateau.pixelwheels.debug.FrameProfiler;
+import com.agateau.pixelwheels.debug.PerformanceStats;
+import com.agateau.pixelwheels.debug.PoolDiagnostics;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.utils.StringUtils;
 import com.agateau.ui.anchor.Anchor;
 import com.agateau.ui.anchor.AnchorGroup;
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.PerformanceCounter;
-import com.badlogic.gdx.utils.PerformanceCounters;
 import com.badlogic.gdx.utils.StringBuilder;
 import java.util.Map;
 
@@ -42,7 +42,7 @@ public class HudContent {
     private final Assets mAssets;
     private final GameWorld mGameWorld;
     private final Hud mHud;
-    private PerformanceCounters mPerformanceCounters = null;
+    private PerformanceStats mPerformanceStats = null;
 
     private final Array<Label> mRankLabels = new Array<>();
     private final Array<Label> mLapLabels = new Array<>();
@@ -95,8 +95,8 @@ public class HudContent {
         }
     }
 
-    public void setPerformanceCounters(PerformanceCounters performanceCounters) {
-        mPerformanceCounters = performanceCounters;
+    public void setFrameProfiler(FrameProfiler frameProfiler) {
+        mPerformanceStats = new PerformanceStats(frameProfiler);
         mDebugLabel = new Label("D", mAssets.ui.skin, "tiny");
 
         AnchorGroup root = mHud.getRoot();
@@ -110,11 +110,11 @@ public class HudContent {
         root.addPositionRule(button, Anchor.TOP_LEFT, root, Anchor.TOP_LEFT);
     }
 
-    @SuppressWarnings("UnusedParameters")
     public void act(float delta) {
         updateLabels();
         updateCountDownLabel();
         if (mDebugLabel != null) {
+            mPerformanceStats.act(delta);
             updateDebugLabel();
         }
     }
@@ -168,15 +168,9 @@ public class HudContent {
     private void updateDebugLabel() {
         sDebugSB.setLength(0);
         sDebugSB.append("objCount: ").append(mGameWorld.getActiveGameObjects().size).append('\n');
-        sDebugSB.append("FPS: ").append(Gdx.graphics.getFramesPerSecond()).append('\n');
-        for (PerformanceCounter counter : mPerformanceCounters.counters) {
-            sDebugSB.append(counter.name)
-                    .append(": ")
-                    .append(String.valueOf((int) (counter.time.value * 1000)))
-                    .append(" | ")
-                    .append(String.valueOf((int) (counter.load.value * 100)))
-                    .append("%\n");
-        }
+        mPerformanceStats.appendTo(sDebugSB);
+        sDebugSB.append("Pools (live/peak)\n");
+        PoolDiagnostics.appendHudLines(sDebugSB, mGameWorld.getBonusPools());
         for (Map.Entry<String, String> entry : DebugStringMap.getMap().entrySet()) {
             sDebugSB.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
         }
@@ -23,30 +23,40 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
+import com.agateau.pixelwheels.debug.FlightRecorder;
+import com.agateau.pixelwheels.debug.FrameProfiler;
+import com.agateau.pixelwheels.debug.MetricsExporter;
+import com.agateau.pixelwheels.debug.PoolDiagnostics;
 import com.agateau.pixelwheels.gameinput.GameInputHandlerFactories;
 import com.agateau.pixelwheels.gameobjet.AudioClipper;
 import com.agateau.pixelwheels.gameobjet.GameObject;
 import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.gamesetup.RecordedGameInfo;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racer.Pilot;
 import com.agateau.pixelwheels.racer.PlayerPilot;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.RacerDebugShape;
+import com.agateau.pixelwheels.replay.RaceRecorder;
 import com.agateau.pixelwheels.screens.ConfigScreen;
 import com.agateau.pixelwheels.screens.PwStageScreen;
+import com.agateau.utils.FileUtils;
 import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
-import com.badlogic.gdx.utils.PerformanceCounter;
-import com.badlogic.gdx.utils.PerformanceCounters;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
 
 public class RaceScreen extends ScreenAdapter {
     public interface Listener {
@@ -55,6 +65,9 @@ public class RaceScreen extends ScreenAdapter {
         void onQuitPressed();
 
         void onNextTrackPressed();
+
+        /** Called when the race is over, while the results are shown */
+        void onRaceFinished();
     }
 
     public enum PauseButtons {
@@ -77,13 +90,24 @@ public class RaceScreen extends ScreenAdapter {
     private final ScreenViewport mHudViewport = new ScreenViewport();
     private final Stage mHudStage;
 
-    private final PerformanceCounters mPerformanceCounters = new PerformanceCounters();
-    private final PerformanceCounter mGameWorldPerformanceCounter;
-    private final PerformanceCounter mRendererPerformanceCounter;
-    private final PerformanceCounter mOverallPerformanceCounter;
+    private final FrameProfiler mFrameProfiler =
+            new FrameProfiler(
+                    Debug.instance.showDebugHud
+                            || Debug.instance.profileFrames
+                            || Debug.instance.recordHitches
+                            || Debug.instance.trackAllocations,
+                    Debug.instance.trackAllocations);
+    private final FrameProfiler.Section mGameWorldSection;
+    private final FrameProfiler.Section mRendererSection;
+    private final FrameProfiler.Section mAudioSection;
+    private final FrameProfiler.Section mHudSection;
+    private final FrameProfiler.Section mOverallSection;
+    private FlightRecorder mFlightRecorder = null;
+    private RaceRecorder mRaceRecorder = null;
     private PauseOverlay mPauseOverlay = null;
 
     private boolean mFirstRender = true;
+    private boolean mGameWorldDisposed = false;
     private boolean mConfigVisible = false;
 
     public RaceScreen(
@@ -94,23 +118,50 @@ public class RaceScreen extends ScreenAdapter {
         mPauseButtons = pauseButtons;
 
         DebugShapeMap.clear();
-
-        mOverallPerformanceCounter = mPerformanceCounters.add("All");
-        mGameWorldPerformanceCounter = mPerformanceCounters.add("GameWorld.act");
-        mGameWorld = new GameWorldImpl(game, gameInfo, mPerformanceCounters);
+        PoolDiagnostics.onRaceStarted();
+
+        mOverallSection = mFrameProfiler.add("All");
+        mGameWorldSection = mFrameProfiler.add("GameWorld.act");
+        // Do not record replayed races
+        boolean recordRace = Debug.instance.recordRaces && !(gameInfo instanceof RecordedGameInfo);
+        if (recordRace) {
+            // Must be created before the game world, see RaceRecorder doc
+            mRaceRecorder = new RaceRecorder(gameInfo);
+        }
+        mGameWorld = new GameWorldImpl(game, gameInfo, mFrameProfiler);
+        if (recordRace) {
+            mRaceRecorder.attach(mGameWorld);
+        }
         mBackgroundColor = gameInfo.getTrack().getBackgroundColor();
-        mRendererPerformanceCounter = mPerformanceCounters.add("Renderer");
+        mRendererSection = mFrameProfiler.add("Renderer");
 
         SpriteBatch batch = new SpriteBatch();
         mHudStage = new Stage(mHudViewport, batch);
         mHudStage.setDebugAll(Debug.instance.showHudDebugLines);
 
-        mGameRenderer = new GameRenderer(mGameWorld, batch, mPerformanceCounters);
+        mGameRenderer = new GameRenderer(mGameWorld, batch, mFrameProfiler);
+        mAudioSection = mFrameProfiler.add("Audio");
+        mHudSection = mFrameProfiler.add("Hud");
+        if (Debug.instance.recordHitches) {
+            setupFlightRecorder();
+        }
         setupHud(mGameWorld.getTrack());
 
         mAudioClipper = createAudioClipper();
 
         setupMineDropper();
+
+        MetricsExporter exporter = mGame.getMetricsExporter();
+        if (exporter != null) {
+            exporter.setGameWorld(mGameWorld);
+        }
+    }
+
+    private void setupFlightRecorder() {
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        FileHandle dir = FileUtils.getUserWritableFile("hitches/" + timestamp);
+        NLog.i("Recording hitches in %s", dir.path());
+        mFlightRecorder = new FlightRecorder(mFrameProfiler, dir);
     }
 
     private void setupMineDropper() {
@@ -133,7 +184,7 @@ public class RaceScreen extends ScreenAdapter {
         }
 
         if (Debug.instance.showDebugHud) {
-            mHudContent.setPerformanceCounters(mPerformanceCounters);
+            mHudContent.setFrameProfiler(mFrameProfiler);
         }
 
         if (GameInputHandlerFactories.hasMultitouch()) {
@@ -179,8 +230,8 @@ public class RaceScreen extends ScreenAdapter {
         }
         boolean paused = mPauseOverlay != null;
 
-        mOverallPerformanceCounter.start();
-        mGameWorldPerformanceCounter.start();
+        mOverallSection.start();
+        mGameWorldSection.start();
         if (!paused) {
             GameWorld.State oldState = mGameWorld.getState();
             mGameWorld.act(delta);
@@ -189,16 +240,19 @@ public class RaceScreen extends ScreenAdapter {
                 onFinished();
             }
         }
-        mGameWorldPerformanceCounter.stop();
+        mGameWorldSection.stop();
 
-        mRendererPerformanceCounter.start();
+        mRendererSection.start();
         Gdx.gl.glClearColor(mBackgroundColor.r, mBackgroundColor.g, mBackgroundColor.b, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         mGameRenderer.render(delta);
+        mRendererSection.stop();
 
+        mAudioSection.start();
         for (GameObject gameObject : mGameWorld.getActiveGameObjects()) {
             gameObject.audioRender(mAudioClipper);
         }
+        mAudioSection.stop();
 
         if (isPauseKeyPressed()) {
             if (paused) {
@@ -208,20 +262,33 @@ public class RaceScreen extends ScreenAdapter {
             }
         }
 
-        mRendererPerformanceCounter.stop();
-
         // Process hud *after* rendering game so that if an action on the hud (called from
         // mHudStage.act()) causes us to leave this screen (back to menu from pause, or leaving
         // the FinishedOverlay) then the game renderer does not alter the OpenGL viewport *after*
         // we have changed screens.
+        mHudSection.start();
         mHudContent.act(delta);
         mHudViewport.apply(true);
         mHudStage.draw();
         mHudStage.act(delta);
-
-        mOverallPerformanceCounter.stop();
-        if (!paused) {
-            mPerformanceCounters.tick(delta);
+        mHudSection.stop();
+
+        mOverallSection.stop();
+        if (paused) {
+            mFrameProfiler.skipFrame();
+        } else {
+            mFrameProfiler.endFrame();
+            if (mRaceRecorder != null) {
+                mRaceRecorder.recordFrame(delta);
+            }
+            if (mFlightRecorder != null) {
+                World world = mGameWorld.getBox2DWorld();
+                mFlightRecorder.recordFrame(
+                        delta,
+                        mGameWorld.getActiveGameObjects().size,
+                        world.getContactCount(),
+                        world.getBodyCount());
+            }
         }
     }
 
@@ -247,8 +314,10 @@ public class RaceScreen extends ScreenAdapter {
     }
 
     private void onFinished() {
-        FinishedOverlay overlay = new FinishedOverlay(mGame, mListener, mGameWorld.getRacers());
+        mFrameProfiler.finish();
+        FinishedOverlay overlay = new FinishedOverlay(mGame, this, mGameWorld.getRacers());
         mHudStage.addActor(overlay);
+        mListener.onRaceFinished();
     }
 
     private void pauseRace() {
@@ -265,9 +334,15 @@ public class RaceScreen extends ScreenAdapter {
 
     void onRestartPressed() {
         unmuteIfNecessary();
+        disposeGameWorld();
         mListener.onRestartPressed();
     }
 
+    void onNextTrackPressed() {
+        disposeGameWorld();
+        mListener.onNextTrackPressed();
+    }
+
     void onQuitPressed() {
         mListener.onQuitPressed();
     }
@@ -295,32 +370,44 @@ public class RaceScreen extends ScreenAdapter {
     @Override
     public void dispose() {
         super.dispose();
+        if (mFlightRecorder != null) {
+            mFlightRecorder.dispose();
+        }
+        if (mRaceRecorder != null) {
+            saveRaceRecording();
+        }
+        disposeGameWorld();
+    }
+
+    /**
+     * Disposes the game world and reports the pools of the race. The listener creates the next
+     * RaceScreen before this one is disposed, so this is called before asking it to start a new
+     * race: the report must not include the objects of the new race.
+     */
+    private void disposeGameWorld() {
+        if (mGameWorldDisposed) {
+            return;
+        }
+        mGameWorldDisposed = true;
+        MetricsExporter exporter = mGame.getMetricsExporter();
+        if (exporter != null) {
+            exporter.removeGameWorld(mGameWorld);
+        }
         mGameWorld.dispose();
+        PoolDiagnostics.onRaceFinished(mGameWorld.getBonusPools());
+    }
+
+    private void saveRaceRecording() {
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        mRaceRecorder.save(FileUtils.getUserWritableFile("races/" + timestamp + ".pwrace"));
+    }
+
+    public GameWorld getGameWorld() {
+        return mGameWorld;
     }
 
-    public void forgetTrack() {
-        // HACK
-        // This is a hack to work around a dispose() issue.
-        // When the player restarts a race, the following events happen:
-        //
-        // 1. New RaceScreen is created,
-        // 2. The new RaceScreen creates a GameWorld
-        // 3. The new GameWorld calls Track.init()
-        // 4. RaceScreen is set to replace the current screen
-        // 5. PwGame.replaceScreen() calls dispose() on the old screen
-        // 6. The old screen calls dispose() on its GameWorld
-        // 7. The old GameWorld  calls dispose() on its Track
-        // 8. Since the Track of the old GameWorld is the same as the
-        //    Track of the new GameWorld, the Track of the new
-        //    GameWorld has now been disposed.
-        //
-        // Asking GameWorld to "forget" its track causes it to reset its
-        // Track pointer, so it won't dispose it on step #7
-        //
-        // This is only necessary when restarting a race because it is the
-        // only case where Track.dispose() is called *after* the same
-        // Track instance has been inited.
-        mGameWorld.forgetTrack();
+    public FrameProfiler getFrameProfiler() {
+        return mFrameProfiler;
     }
 
     public PauseButtons getPauseButtons() {
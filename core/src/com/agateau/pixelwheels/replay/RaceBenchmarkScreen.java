@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.PwGame;
+import com.agateau.pixelwheels.debug.Debug;
+import com.agateau.pixelwheels.racer.PlayerPilot;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racescreen.RaceScreen;
+import com.agateau.utils.TimeHistogram;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Replays a RaceRecording, one recorded frame per rendered frame, then logs how long the frames
+ * took and quits.
+ *
+ * <p>The replay runs at the speed of the render loop. The desktop launcher enables vsync by
+ * default, so frames are paced by the display refresh rate, like in a real game. Its --fast option
+ * disables vsync to replay as fast as possible.
+ *
+ * <p>The game world is fed the recorded frame durations, not the real ones, so each run simulates
+ * exactly the same race and the timings of different runs can be compared.
+ */
+public class RaceBenchmarkScreen extends ScreenAdapter implements RaceScreen.Listener {
+    private final RaceRecording mRecording;
+    private final RaceScreen mRaceScreen;
+    private final TimeHistogram mHistogram = new TimeHistogram();
+    private int mFrame = 0;
+    private long mStartTime;
+
+    public RaceBenchmarkScreen(PwGame game, RaceRecording recording) {
+        mRecording = recording;
+        Debug.instance.profileFrames = true;
+
+        // Must be done before creating the game world, since it uses random numbers
+        MathUtils.random.setSeed(recording.getSeed());
+        mRaceScreen =
+                new RaceScreen(
+                        game,
+                        this,
+                        recording.createGameInfo(game.getAssets()),
+                        RaceScreen.PauseButtons.NO_RESTART);
+
+        for (Racer racer : mRaceScreen.getGameWorld().getPlayerRacers()) {
+            PlayerPilot pilot = (PlayerPilot) racer.getPilot();
+            pilot.setInputHandler(new ReplayInputHandler(recording, pilot.getPlayerIndex()));
+        }
+    }
+
+    @Override
+    public void show() {
+        mRaceScreen.show();
+        mStartTime = System.nanoTime();
+    }
+
+    @Override
+    public void render(float delta) {
+        if (mFrame == mRecording.getFrameCount()) {
+            return;
+        }
+        long start = System.nanoTime();
+        mRaceScreen.render(mRecording.getDelta(mFrame));
+        mHistogram.record((System.nanoTime() - start) / 1000);
+        ++mFrame;
+        if (mFrame == mRecording.getFrameCount()) {
+            finish();
+        }
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        mRaceScreen.resize(width, height);
+    }
+
+    @Override
+    public void dispose() {
+        mRaceScreen.dispose();
+    }
+
+    private void finish() {
+        float wallTime = (System.nanoTime() - mStartTime) / 1e9f;
+        NLog.i(
+                "Benchmark: %d frames in %.2fs (%.1f fps)\n"
+                        + "frame times in ms: p50=%.2f p95=%.2f p99=%.2f max=%.2f\n%s",
+                mFrame,
+                wallTime,
+                mFrame / wallTime,
+                mHistogram.getPercentile(50) / 1000f,
+                mHistogram.getPercentile(95) / 1000f,
+                mHistogram.getPercentile(99) / 1000f,
+                mHistogram.getMax() / 1000f,
+                mRaceScreen.getFrameProfiler().createSummary());
+
+        GameWorld gameWorld = mRaceScreen.getGameWorld();
+        if (mRecording.matchesFinalPositions(gameWorld.getRacers())) {
+            NLog.i("Benchmark: replay matches the recorded race");
+        } else {
+            NLog.e(
+                    "Benchmark: replay diverged from the recorded race, timings are not"
+                            + " comparable. Check GamePlay settings are the same as when recording.");
+        }
+        Gdx.app.exit();
+    }
+
+    @Override
+    public void onRestartPressed() {}
+
+    @Override
+    public void onQuitPressed() {
+        Gdx.app.exit();
+    }
+
+    @Override
+    public void onNextTrackPressed() {
+        Gdx.app.exit();
+    }
+
+    @Override
+    public void onRaceFinished() {}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.racer.PlayerPilot;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.MathUtils;
+import java.io.IOException;
+
+/**
+ * Records a race so that it can be replayed later by RaceBenchmarkScreen.
+ *
+ * <p>Must be created before the GameWorld: it reseeds the random generator so that the replay can
+ * use the same seed.
+ */
+public class RaceRecorder {
+    private final RaceRecording mRecording;
+    private GameWorld mGameWorld;
+
+    public RaceRecorder(GameInfo gameInfo) {
+        long seed = System.nanoTime();
+        MathUtils.random.setSeed(seed);
+        mRecording = new RaceRecording(seed, gameInfo);
+    }
+
+    /** Starts recording the inputs of the players of @p gameWorld */
+    public void attach(GameWorld gameWorld) {
+        mGameWorld = gameWorld;
+        for (Racer racer : gameWorld.getPlayerRacers()) {
+            PlayerPilot pilot = (PlayerPilot) racer.getPilot();
+            final int playerIndex = pilot.getPlayerIndex();
+            pilot.setInputListener(input -> mRecording.addInput(playerIndex, input));
+        }
+    }
+
+    public void recordFrame(float delta) {
+        mRecording.addFrame(delta);
+    }
+
+    public void save(FileHandle handle) {
+        mRecording.setFinalPositions(mGameWorld.getRacers());
+        try {
+            mRecording.save(handle);
+            NLog.i("Race recorded in %s (%d frames)", handle.path(), mRecording.getFrameCount());
+        } catch (IOException e) {
+            NLog.e("Failed to save race recording to %s: %s", handle.path(), e);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.gameinput.GameInput;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.gamesetup.RecordedGameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.utils.Assert;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * All the information needed to replay a race: the track, the entrants, the random seed, the
+ * duration of each frame and the input of each player.
+ *
+ * <p>Replaying the same frame durations and inputs with the same seed produces the same race. The
+ * final positions of the racers are stored to check this.
+ *
+ * <p>File format, all values are big-endian:
+ *
+ * <pre>
+ * int magic, int version
+ * long seed, UTF trackId
+ * int entrantCount, entrantCount * (UTF vehicleId, int playerIndex)
+ * int frameCount, frameCount * float delta
+ * int playerCount, playerCount * (int inputCount, inputCount * (float direction, byte flags))
+ * int racerCount, racerCount * (float x, float y)
+ * </pre>
+ */
+public class RaceRecording {
+    private static final int MAGIC = 0x50575250;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int ACCELERATING = 1;
+    private static final int BRAKING = 2;
+    private static final int TRIGGERING_BONUS = 4;
+
+    private final long mSeed;
+    private final String mTrackId;
+    private final Array<String> mVehicleIds = new Array<>();
+    private final IntArray mPlayerIndexes = new IntArray();
+    private final FloatArray mDeltas = new FloatArray();
+    private final Array<FloatArray> mDirections = new Array<>();
+    private final Array<ByteArray> mFlags = new Array<>();
+    private final FloatArray mFinalPositions = new FloatArray();
+
+    /** Creates an empty recording for a race about to start */
+    public RaceRecording(long seed, GameInfo gameInfo) {
+        mSeed = seed;
+        mTrackId = gameInfo.getTrack().getId();
+        int playerCount = 0;
+        for (GameInfo.Entrant entrant : gameInfo.getEntrants()) {
+            mVehicleIds.add(entrant.getVehicleId());
+            if (entrant.isPlayer()) {
+                mPlayerIndexes.add(((GameInfo.Player) entrant).getIndex());
+                ++playerCount;
+            } else {
+                mPlayerIndexes.add(-1);
+            }
+        }
+        initInputs(playerCount);
+    }
+
+    private RaceRecording(long seed, String trackId) {
+        mSeed = seed;
+        mTrackId = trackId;
+    }
+
+    public long getSeed() {
+        return mSeed;
+    }
+
+    public String getTrackId() {
+        return mTrackId;
+    }
+
+    public GameInfo createGameInfo(Assets assets) {
+        Track track = assets.findTrackById(mTrackId);
+        Assert.check(track != null, "No track with id " + mTrackId);
+        RecordedGameInfo gameInfo = new RecordedGameInfo(track);
+        for (int idx = 0; idx < mVehicleIds.size; ++idx) {
+            gameInfo.addEntrant(mVehicleIds.get(idx), mPlayerIndexes.get(idx));
+        }
+        return gameInfo;
+    }
+
+    public void addFrame(float delta) {
+        mDeltas.add(delta);
+    }
+
+    public int getFrameCount() {
+        return mDeltas.size;
+    }
+
+    public float getDelta(int frame) {
+        return mDeltas.get(frame);
+    }
+
+    public void addInput(int playerIndex, GameInput input) {
+        int flags =
+                (input.accelerating ? ACCELERATING : 0)
+                        | (input.braking ? BRAKING : 0)
+                        | (input.triggeringBonus ? TRIGGERING_BONUS : 0);
+        mDirections.get(playerIndex).add(input.direction);
+        mFlags.get(playerIndex).add((byte) flags);
+    }
+
+    public int getInputCount(int playerIndex) {
+        return mDirections.get(playerIndex).size;
+    }
+
+    /** Sets @p input to the input number @p idx of player @p playerIndex */
+    public void getInput(int playerIndex, int idx, GameInput input) {
+        int flags = mFlags.get(playerIndex).get(idx);
+        input.direction = mDirections.get(playerIndex).get(idx);
+        input.accelerating = (flags & ACCELERATING) != 0;
+        input.braking = (flags & BRAKING) != 0;
+        input.triggeringBonus = (flags & TRIGGERING_BONUS) != 0;
+    }
+
+    public void setFinalPositions(Array<Racer> racers) {
+        mFinalPositions.clear();
+        for (Racer racer : racers) {
+            mFinalPositions.add(racer.getX());
+            mFinalPositions.add(racer.getY());
+        }
+    }
+
+    /** Returns true if @p racers are exactly where they were at the end of the recording */
+    public boolean matchesFinalPositions(Array<Racer> racers) {
+        if (mFinalPositions.size != racers.size * 2) {
+            return false;
+        }
+        for (int idx = 0; idx < racers.size; ++idx) {
+            Racer racer = racers.get(idx);
+            if (racer.getX() != mFinalPositions.get(idx * 2)
+                    || racer.getY() != mFinalPositions.get(idx * 2 + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void save(FileHandle handle) throws IOException {
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(handle.write(false)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(mSeed);
+            out.writeUTF(mTrackId);
+
+            out.writeInt(mVehicleIds.size);
+            for (int idx = 0; idx < mVehicleIds.size; ++idx) {
+                out.writeUTF(mVehicleIds.get(idx));
+                out.writeInt(mPlayerIndexes.get(idx));
+            }
+
+            out.writeInt(mDeltas.size);
+            for (int idx = 0; idx < mDeltas.size; ++idx) {
+                out.writeFloat(mDeltas.get(idx));
+            }
+
+            out.writeInt(mDirections.size);
+            for (int player = 0; player < mDirections.size; ++player) {
+                FloatArray directions = mDirections.get(player);
+                ByteArray flags = mFlags.get(player);
+                out.writeInt(directions.size);
+                for (int idx = 0; idx < directions.size; ++idx) {
+                    out.writeFloat(directions.get(idx));
+                    out.writeByte(flags.get(idx));
+                }
+            }
+
+            out.writeInt(mFinalPositions.size / 2);
+            for (int idx = 0; idx < mFinalPositions.size; ++idx) {
+                out.writeFloat(mFinalPositions.get(idx));
+            }
+        }
+    }
+
+    public static RaceRecording load(FileHandle handle) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(handle.read()))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(handle.path() + " is not a race recording");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported race recording version " + version);
+            }
+            RaceRecording recording = new RaceRecording(in.readLong(), in.readUTF());
+
+            int entrantCount = in.readInt();
+            for (int idx = 0; idx < entrantCount; ++idx) {
+                recording.mVehicleIds.add(in.readUTF());
+                recording.mPlayerIndexes.add(in.readInt());
+            }
+
+            int frameCount = in.readInt();
+            recording.mDeltas.ensureCapacity(frameCount);
+            for (int idx = 0; idx < frameCount; ++idx) {
+                recording.mDeltas.add(in.readFloat());
+            }
+
+            int playerCount = in.readInt();
+            recording.initInputs(playerCount);
+            for (int player = 0; player < playerCount; ++player) {
+                FloatArray directions = recording.mDirections.get(player);
+                ByteArray flags = recording.mFlags.get(player);
+                int inputCount = in.readInt();
+                for (int idx = 0; idx < inputCount; ++idx) {
+                    directions.add(in.readFloat());
+                    flags.add(in.readByte());
+                }
+            }
+
+            int racerCount = in.readInt();
+            for (int idx = 0; idx < racerCount * 2; ++idx) {
+                recording.mFinalPositions.add(in.readFloat());
+            }
+            return recording;
+        }
+    }
+
+    private void initInputs(int playerCount) {
+        for (int idx = 0; idx < playerCount; ++idx) {
+            mDirections.add(new FloatArray());
+            mFlags.add(new ByteArray());
+        }
+    }
+}
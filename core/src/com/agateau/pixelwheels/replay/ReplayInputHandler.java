@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.bonus.Bonus;
+import com.agateau.pixelwheels.gameinput.GameInput;
+import com.agateau.pixelwheels.gameinput.GameInputHandler;
+import com.agateau.pixelwheels.racescreen.Hud;
+import com.badlogic.gdx.Preferences;
+
+/** Plays back the inputs of one player from a RaceRecording */
+public class ReplayInputHandler implements GameInputHandler {
+    private final RaceRecording mRecording;
+    private final int mPlayerIndex;
+    private final GameInput mInput = new GameInput();
+    private int mNextInput = 0;
+
+    public ReplayInputHandler(RaceRecording recording, int playerIndex) {
+        mRecording = recording;
+        mPlayerIndex = playerIndex;
+    }
+
+    @Override
+    public GameInput getGameInput() {
+        if (mNextInput < mRecording.getInputCount(mPlayerIndex)) {
+            mRecording.getInput(mPlayerIndex, mNextInput, mInput);
+            ++mNextInput;
+        } else {
+            // The recording ended before the race: just let the vehicle slow down
+            mInput.accelerating = false;
+            mInput.braking = false;
+            mInput.triggeringBonus = false;
+            mInput.direction = 0;
+        }
+        return mInput;
+    }
+
+    @Override
+    public void loadConfig(Preferences preferences, String prefix) {}
+
+    @Override
+    public void saveConfig(Preferences preferences, String prefix) {}
+
+    @Override
+    public void createHudButtons(Assets assets, Hud hud) {}
+
+    @Override
+    public void setBonus(Bonus bonus) {}
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+}
@@ -20,6 +20,7 @@ package com.agateau.pixelwheels.screens;
 
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.PwRefreshHelper;
+import com.agateau.pixelwheels.debug.FrameProfiler;
 import com.agateau.ui.anchor.AnchorGroup;
 import com.agateau.ui.menu.Menu;
 import com.agateau.ui.menu.MenuItemGroup;
@@ -107,6 +108,14 @@ public class DebugScreen extends PwStageScreen {
         addCheckBox("Hud debug lines", "showHudDebugLines");
         addCheckBox("Free camera", "freeCamera");
 
+        mCurrentGroup = tabMenuItem.addPage("Profiler");
+        addCheckBox("Profile frames", "profileFrames");
+        addCheckBox("Record hitches", "recordHitches");
+        addCheckBox("Track allocations", "trackAllocations");
+        addCheckBox("Export metrics (restart)", "exportMetrics");
+        addCheckBox("Record races", "recordRaces");
+        addProfilerSummary();
+
         builder.getActor("backButton")
                 .addListener(
                         new ClickListener() {
@@ -117,6 +126,18 @@ public class DebugScreen extends PwStageScreen {
                         });
     }
 
+    private void addProfilerSummary() {
+        String summary = FrameProfiler.getLastSummary();
+        if (summary.isEmpty()) {
+            mCurrentGroup.addLabel("No race profiled yet");
+            return;
+        }
+        addTitle("Last race");
+        for (String line : summary.split("\n")) {
+            mCurrentGroup.addLabel(line);
+        }
+    }
+
     private void addTitle(String text) {
         mCurrentGroup.addTitleLabel(text);
     }
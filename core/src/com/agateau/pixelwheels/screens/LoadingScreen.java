@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.screens;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.AssetsLoader;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+
+/**
+ * Shows a progress bar while AssetsLoader loads the assets.
+ *
+ * <p>This screen cannot use any asset since they are not loaded yet, so it only draws rectangles.
+ */
+public class LoadingScreen extends ScreenAdapter {
+    private static final float BAR_WIDTH_RATIO = 0.5f;
+    private static final float BAR_HEIGHT = 12;
+    private static final float BAR_BORDER = 2;
+
+    public interface Listener {
+        void onAssetsLoaded(Assets assets);
+    }
+
+    private final AssetsLoader mLoader;
+    private final Listener mListener;
+    private final ShapeRenderer mRenderer = new ShapeRenderer();
+
+    public LoadingScreen(AssetsLoader loader, Listener listener) {
+        mLoader = loader;
+        mListener = listener;
+    }
+
+    @Override
+    public void render(float delta) {
+        if (mLoader.update()) {
+            // This is likely to dispose this screen, so return immediately
+            mListener.onAssetsLoaded(mLoader.getAssets());
+            return;
+        }
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        float width = Gdx.graphics.getWidth();
+        float height = Gdx.graphics.getHeight();
+        float barWidth = width * BAR_WIDTH_RATIO;
+        float x = (width - barWidth) / 2;
+        float y = (height - BAR_HEIGHT) / 2;
+
+        mRenderer.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+        mRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        mRenderer.setColor(1, 1, 1, 1);
+        mRenderer.rect(
+                x - BAR_BORDER,
+                y - BAR_BORDER,
+                barWidth + BAR_BORDER * 2,
+                BAR_HEIGHT + BAR_BORDER * 2);
+        mRenderer.setColor(0, 0, 0, 1);
+        mRenderer.rect(x, y, barWidth, BAR_HEIGHT);
+        mRenderer.setColor(1, 1, 1, 1);
+        mRenderer.rect(x, y, barWidth * mLoader.getProgress(), BAR_HEIGHT);
+        mRenderer.end();
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        mRenderer.dispose();
+    }
+}
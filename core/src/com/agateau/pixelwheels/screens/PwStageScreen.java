@@ -18,14 +18,20 @@
  */
 package com.agateau.pixelwheels.screens;
 
+import com.agateau.pixelwheels.debug.Debug;
+import com.agateau.pixelwheels.debug.FrameProfiler;
+import com.agateau.pixelwheels.debug.PerformanceStats;
 import com.agateau.ui.StageScreen;
 import com.agateau.ui.UiAssets;
 import com.agateau.ui.UiInputMapper;
 import com.agateau.ui.VirtualKey;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.utils.TiledDrawable;
 import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.StringBuilder;
 import com.badlogic.gdx.utils.viewport.ScalingViewport;
 
 /** A stage screen using the correct size for Pixel Wheels */
@@ -33,6 +39,13 @@ public abstract class PwStageScreen extends StageScreen {
     public static final int WIDTH = 800;
     public static final int HEIGHT = 480;
 
+    // Debug overlay, only created if Debug.instance.showDebugHud is set
+    private FrameProfiler mFrameProfiler = null;
+    private FrameProfiler.Section mFrameSection;
+    private PerformanceStats mPerformanceStats;
+    private Label mDebugLabel;
+    private final StringBuilder mDebugSB = new StringBuilder();
+
     public PwStageScreen(UiAssets uiAssets) {
         super(new ScalingViewport(Scaling.fit, WIDTH, HEIGHT));
 
@@ -40,6 +53,46 @@ public abstract class PwStageScreen extends StageScreen {
         image.setDrawable(new TiledDrawable(uiAssets.background));
         image.setFillParent(true);
         getStage().addActor(image);
+
+        if (Debug.instance.showDebugHud) {
+            setupDebugOverlay(uiAssets);
+        }
+    }
+
+    private void setupDebugOverlay(UiAssets uiAssets) {
+        mFrameProfiler = new FrameProfiler(true, Debug.instance.trackAllocations);
+        mFrameSection = mFrameProfiler.add("Frame");
+        mPerformanceStats = new PerformanceStats(mFrameProfiler);
+        mDebugLabel = new Label("", uiAssets.skin, "tiny");
+        mDebugLabel.setTouchable(Touchable.disabled);
+    }
+
+    @Override
+    public void show() {
+        super.show();
+        if (mDebugLabel != null) {
+            // Add it now so that it is above the actors added by subclasses
+            getStage().addActor(mDebugLabel);
+        }
+    }
+
+    @Override
+    public void render(float delta) {
+        if (mFrameProfiler == null) {
+            super.render(delta);
+            return;
+        }
+        mFrameSection.start();
+        super.render(delta);
+        mFrameSection.stop();
+        mFrameProfiler.endFrame();
+
+        mPerformanceStats.act(delta);
+        mDebugSB.setLength(0);
+        mPerformanceStats.appendTo(mDebugSB);
+        mDebugLabel.setText(mDebugSB);
+        mDebugLabel.pack();
+        mDebugLabel.setPosition(0, HEIGHT - mDebugLabel.getHeight());
     }
 
     @Override
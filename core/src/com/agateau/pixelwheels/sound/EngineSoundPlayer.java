@@ -31,6 +31,15 @@ public class EngineSoundPlayer {
 
     private final Array<SoundPlayer> mSoundPlayers = new Array<>();
 
+    /** Adds the engine sounds to @p atlas */
+    public static void loadSounds(SoundAtlas atlas) {
+        for (int i = 0; i < 5; ++i) {
+            String name = String.format(Locale.US, "engine-%d", i);
+            String filename = String.format(Locale.US, "loop_%d_0.wav", i + 1);
+            atlas.load(filename, name);
+        }
+    }
+
     public int getSoundCount() {
         return mSoundPlayers.size;
     }
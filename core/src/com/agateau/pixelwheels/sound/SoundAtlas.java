@@ -22,25 +22,46 @@ import com.agateau.utils.Assert;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
 import java.util.HashMap;
 
-/** Provides access to sound by name */
+/**
+ * Provides access to sound by name.
+ *
+ * <p>load() only registers sounds: a sound is decoded the first time get() is called for it. get()
+ * returns a proxy which stays valid even when trim() releases the decoded sound, in this case the
+ * sound is decoded again the next time it is played.
+ *
+ * <p>Sounds which are looked up while a race is running must be preloaded: preload() decodes them
+ * immediately and trim() never releases them.
+ */
 public class SoundAtlas {
     private final FileHandle mRootDir;
-    private final HashMap<String, Sound> mSounds = new HashMap<>();
+    private final HashMap<String, AtlasSound> mSounds = new HashMap<>();
+    private long mBudget = Long.MAX_VALUE;
+    private long mUseCounter = 0;
 
     public SoundAtlas(FileHandle rootDir) {
         mRootDir = rootDir;
     }
 
     public Sound get(String name) {
-        Sound sound = mSounds.get(name);
+        AtlasSound sound = mSounds.get(name);
         if (sound == null) {
             throw new RuntimeException("Sound '" + name + "' not found");
         }
+        // Decode the sound now rather than when it is played: on Android sounds are decoded
+        // asynchronously, so playing a sound just after decoding it produces no sound
+        sound.getSound();
         return sound;
     }
 
+    /** Decodes the sound called @p name now and keeps it decoded: trim() never releases it */
+    public void preload(String name) {
+        AtlasSound sound = (AtlasSound) get(name);
+        sound.mPreloaded = true;
+    }
+
     public boolean contains(String name) {
         return mSounds.containsKey(name);
     }
@@ -55,6 +76,189 @@ public class SoundAtlas {
         if ("".equals(name)) {
             name = file.nameWithoutExtension();
         }
-        mSounds.put(name, Gdx.audio.newSound(file));
+        mSounds.put(name, new AtlasSound(file));
+    }
+
+    /** Sets the maximum size in bytes of decoded sounds kept by trim() */
+    public void setBudget(long budget) {
+        mBudget = budget;
+    }
+
+    /** Returns the size in bytes of the decoded sounds, estimated from their file sizes */
+    public long getDecodedSize() {
+        long size = 0;
+        for (AtlasSound sound : mSounds.values()) {
+            if (sound.isDecoded()) {
+                size += sound.getSize();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Releases the least recently used sounds until the decoded sounds fit in the budget, if
+     * possible. Preloaded sounds are never released. Releasing a sound stops it, so this must be
+     * called when no sound is expected to be playing.
+     */
+    public void trim() {
+        long size = getDecodedSize();
+        if (size <= mBudget) {
+            return;
+        }
+        Array<AtlasSound> sounds = new Array<>();
+        for (AtlasSound sound : mSounds.values()) {
+            if (sound.isDecoded() && !sound.mPreloaded) {
+                sounds.add(sound);
+            }
+        }
+        sounds.sort((s1, s2) -> Long.compare(s1.mLastUse, s2.mLastUse));
+        for (AtlasSound sound : sounds) {
+            if (size <= mBudget) {
+                break;
+            }
+            size -= sound.getSize();
+            sound.release();
+        }
+    }
+
+    private class AtlasSound implements Sound {
+        private final FileHandle mFile;
+        private Sound mSound;
+        private long mLastUse;
+        private boolean mPreloaded = false;
+
+        AtlasSound(FileHandle file) {
+            mFile = file;
+        }
+
+        Sound getSound() {
+            mLastUse = ++mUseCounter;
+            if (mSound == null) {
+                mSound = Gdx.audio.newSound(mFile);
+            }
+            return mSound;
+        }
+
+        boolean isDecoded() {
+            return mSound != null;
+        }
+
+        long getSize() {
+            return mFile.length();
+        }
+
+        void release() {
+            if (mSound != null) {
+                mSound.dispose();
+                mSound = null;
+            }
+        }
+
+        @Override
+        public long play() {
+            return getSound().play();
+        }
+
+        @Override
+        public long play(float volume) {
+            return getSound().play(volume);
+        }
+
+        @Override
+        public long play(float volume, float pitch, float pan) {
+            return getSound().play(volume, pitch, pan);
+        }
+
+        @Override
+        public long loop() {
+            return getSound().loop();
+        }
+
+        @Override
+        public long loop(float volume) {
+            return getSound().loop(volume);
+        }
+
+        @Override
+        public long loop(float volume, float pitch, float pan) {
+            return getSound().loop(volume, pitch, pan);
+        }
+
+        // The methods below act on playing sounds: nothing to do if the sound is not decoded
+
+        @Override
+        public void stop() {
+            if (mSound != null) {
+                mSound.stop();
+            }
+        }
+
+        @Override
+        public void pause() {
+            if (mSound != null) {
+                mSound.pause();
+            }
+        }
+
+        @Override
+        public void resume() {
+            if (mSound != null) {
+                mSound.resume();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            release();
+        }
+
+        @Override
+        public void stop(long soundId) {
+            if (mSound != null) {
+                mSound.stop(soundId);
+            }
+        }
+
+        @Override
+        public void pause(long soundId) {
+            if (mSound != null) {
+                mSound.pause(soundId);
+            }
+        }
+
+        @Override
+        public void resume(long soundId) {
+            if (mSound != null) {
+                mSound.resume(soundId);
+            }
+        }
+
+        @Override
+        public void setLooping(long soundId, boolean looping) {
+            if (mSound != null) {
+                mSound.setLooping(soundId, looping);
+            }
+        }
+
+        @Override
+        public void setPitch(long soundId, float pitch) {
+            if (mSound != null) {
+                mSound.setPitch(soundId, pitch);
+            }
+        }
+
+        @Override
+        public void setVolume(long soundId, float volume) {
+            if (mSound != null) {
+                mSound.setVolume(soundId, volume);
+            }
+        }
+
+        @Override
+        public void setPan(long soundId, float pan, float volume) {
+            if (mSound != null) {
+                mSound.setPan(soundId, pan, volume);
+            }
+        }
     }
 }
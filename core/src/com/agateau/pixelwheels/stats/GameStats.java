@@ -47,4 +47,7 @@ public interface GameStats {
     int getEventCount(Event event);
 
     void save();
+
+    /** Returns how many times save() has been called */
+    int getSaveCount();
 }
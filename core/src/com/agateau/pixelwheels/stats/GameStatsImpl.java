@@ -26,6 +26,7 @@ import java.util.HashMap;
 public class GameStatsImpl implements GameStats {
     private final transient IO mIO;
     private transient Listener mListener;
+    private transient int mSaveCount = 0;
     final HashMap<String, TrackStats> mTrackStats = new HashMap<>();
     final HashMap<String, Integer> mBestChampionshipRank = new HashMap<>();
     final HashMap<String, Integer> mEvents = new HashMap<>();
@@ -103,9 +104,15 @@ public class GameStatsImpl implements GameStats {
     }
 
     public void save() {
+        ++mSaveCount;
         if (mListener != null) {
             mListener.onChanged();
         }
         mIO.save();
     }
+
+    @Override
+    public int getSaveCount() {
+        return mSaveCount;
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.utils;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.JointEdge;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Keeps the bodies of short-lived objects (bullets, mines...) once they are not needed anymore, so
+ * that they can be reused instead of being destroyed and recreated.
+ *
+ * <p>Free bodies stay in the world, but are deactivated so Box2D ignores them. Bodies are grouped
+ * by a key: all the bodies for a key must have the same fixtures.
+ */
+public class BodyRecycler {
+    public interface BodyFactory {
+        /** Must create a body, with its fixtures and collision info */
+        Body create(World world);
+    }
+
+    private final World mWorld;
+    private final ObjectMap<Object, Array<Body>> mFreeBodies = new ObjectMap<>();
+
+    public BodyRecycler(World world) {
+        mWorld = world;
+    }
+
+    /**
+     * Returns a body for @p key, moved to (@p x, @p y) and rotated by @p angle radians. If there is
+     * no free body for this key, @p factory is used to create one.
+     */
+    public Body obtain(Object key, BodyFactory factory, float x, float y, float angle) {
+        Array<Body> bodies = mFreeBodies.get(key);
+        Body body;
+        if (bodies == null || bodies.size == 0) {
+            body = factory.create(mWorld);
+        } else {
+            body = bodies.pop();
+            body.setActive(true);
+        }
+        body.setTransform(x, y, angle);
+        return body;
+    }
+
+    /** Deactivates @p body and makes it available for the next call to obtain() with @p key */
+    public void free(Object key, Body body) {
+        // Destroy joints, otherwise the body would still be attached to its previous owner when
+        // reused
+        Array<JointEdge> joints = body.getJointList();
+        while (joints.size > 0) {
+            mWorld.destroyJoint(joints.first().joint);
+        }
+        body.setActive(false);
+        body.setLinearVelocity(0, 0);
+        body.setAngularVelocity(0);
+        body.setUserData(null);
+
+        Array<Body> bodies = mFreeBodies.get(key);
+        if (bodies == null) {
+            bodies = new Array<>();
+            mFreeBodies.put(key, bodies);
+        }
+        bodies.add(body);
+    }
+
+    /** Returns the number of free bodies, for all keys */
+    public int getFreeBodyCount() {
+        int count = 0;
+        for (Array<Body> bodies : mFreeBodies.values()) {
+            count += bodies.size;
+        }
+        return count;
+    }
+}
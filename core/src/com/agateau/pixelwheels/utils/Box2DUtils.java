@@ -18,15 +18,7 @@
  */
 package com.agateau.pixelwheels.utils;
 
-import com.agateau.pixelwheels.Constants;
-import com.agateau.pixelwheels.map.MapUtils;
-import com.badlogic.gdx.maps.MapObject;
-import com.badlogic.gdx.maps.objects.EllipseMapObject;
-import com.badlogic.gdx.maps.objects.PolygonMapObject;
-import com.badlogic.gdx.maps.objects.RectangleMapObject;
 import com.badlogic.gdx.math.Circle;
-import com.badlogic.gdx.math.Ellipse;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Shape2D;
@@ -94,78 +86,6 @@ public class Box2DUtils {
         }
     }
 
-    public static Body createStaticBodyForMapObject(World world, MapObject object) {
-        final float u = Constants.UNIT_FOR_PIXEL;
-        float rotation = MapUtils.getObjectRotation(object);
-
-        BodyDef bodyDef = new BodyDef();
-        bodyDef.type = BodyDef.BodyType.StaticBody;
-        bodyDef.angle = rotation * MathUtils.degreesToRadians;
-
-        if (object instanceof RectangleMapObject) {
-            Rectangle rect = ((RectangleMapObject) object).getRectangle();
-
-            /*
-             A          D
-              x--------x
-              |        |
-              x--------x
-             B          C
-            */
-            float[] vertices = new float[8];
-            // A
-            vertices[0] = 0;
-            vertices[1] = 0;
-            // B
-            vertices[2] = 0;
-            vertices[3] = -rect.getHeight();
-            // C
-            vertices[4] = rect.getWidth();
-            vertices[5] = -rect.getHeight();
-            // D
-            vertices[6] = rect.getWidth();
-            vertices[7] = 0;
-            scaleVertices(vertices, u);
-
-            bodyDef.position.set(u * rect.getX(), u * (rect.getY() + rect.getHeight()));
-            Body body = world.createBody(bodyDef);
-
-            PolygonShape shape = new PolygonShape();
-            shape.set(vertices);
-
-            body.createFixture(shape, 1);
-            return body;
-        } else if (object instanceof PolygonMapObject) {
-            Polygon polygon = ((PolygonMapObject) object).getPolygon();
-            float[] vertices = polygon.getVertices().clone();
-            scaleVertices(vertices, u);
-
-            bodyDef.position.set(polygon.getX() * u, polygon.getY() * u);
-            Body body = world.createBody(bodyDef);
-
-            PolygonShape shape = new PolygonShape();
-            shape.set(vertices);
-
-            body.createFixture(shape, 1);
-            return body;
-        } else if (object instanceof EllipseMapObject) {
-            Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
-            float radius = ellipse.width * u / 2;
-            float x = ellipse.x * u + radius;
-            float y = ellipse.y * u + radius;
-
-            bodyDef.position.set(x, y);
-            Body body = world.createBody(bodyDef);
-
-            CircleShape shape = new CircleShape();
-            shape.setRadius(radius);
-
-            body.createFixture(shape, 1);
-            return body;
-        }
-        throw new RuntimeException("Unsupported MapObject type: " + object);
-    }
-
     public static void setBodyRestitution(Body body, float restitution) {
         for (Fixture fixture : body.getFixtureList()) {
             fixture.setRestitution(restitution);
@@ -18,11 +18,11 @@
  */
 package com.agateau.pixelwheels.utils;
 
+import com.agateau.pixelwheels.GameWorld;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.RayCastCallback;
-import com.badlogic.gdx.physics.box2d.World;
 
 /** Helper class to find the closest body between two points */
 public class ClosestBodyFinder {
@@ -58,9 +58,9 @@ public class ClosestBodyFinder {
 
     private final StaticBodyRayCastCallback mRayCastCallback = new StaticBodyRayCastCallback();
 
-    public Body find(World world, Vector2 point1, Vector2 point2) {
+    public Body find(GameWorld gameWorld, Vector2 point1, Vector2 point2) {
         mRayCastCallback.mBody = null;
-        world.rayCast(mRayCastCallback, point1, point2);
+        gameWorld.rayCast(mRayCastCallback, point1, point2);
         return mRayCastCallback.mBody;
     }
 }
@@ -33,21 +33,39 @@ public class DimensionParser {
         PIXEL
     }
 
+    /** A parsed dimension, which can be evaluated for any grid size */
+    public static class Dimension {
+        public final float value;
+        public final Unit unit;
+
+        Dimension(float value, Unit unit) {
+            this.value = value;
+            this.unit = unit;
+        }
+
+        public float evaluate(float gridSize) {
+            return unit == Unit.GRID ? value * gridSize : value;
+        }
+    }
+
     public float parse(String txt) {
         return parse(txt, Unit.PIXEL);
     }
 
     public float parse(String txt, Unit defaultUnit) {
+        return parseDimension(txt, defaultUnit).evaluate(this.gridSize);
+    }
+
+    public static Dimension parseDimension(String txt, Unit defaultUnit) {
         if (txt.equals("0")) {
-            return 0;
+            return new Dimension(0, Unit.PIXEL);
         }
         if (txt.endsWith("px")) {
-            return Float.parseFloat(txt.substring(0, txt.length() - 2));
+            return new Dimension(Float.parseFloat(txt.substring(0, txt.length() - 2)), Unit.PIXEL);
         } else if (txt.endsWith("g")) {
-            return Float.parseFloat(txt.substring(0, txt.length() - 1)) * this.gridSize;
+            return new Dimension(Float.parseFloat(txt.substring(0, txt.length() - 1)), Unit.GRID);
         } else {
-            float k = defaultUnit == Unit.PIXEL ? 1 : this.gridSize;
-            return Float.parseFloat(txt) * k;
+            return new Dimension(Float.parseFloat(txt), defaultUnit);
         }
     }
 }
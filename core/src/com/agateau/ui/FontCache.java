@@ -0,0 +1,426 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.ui;
+
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Creates fonts from TrueType files, keeping the generated glyphs on disk so that FreeType does not
+ * have to run again on the next start.
+ *
+ * <p>A font is first looked up in the baked dir, where the AssetBuilder tool stores fonts generated
+ * at build time, then in the cache dir. If it is in none of them, it is generated with FreeType and
+ * saved in the cache dir.
+ *
+ * <p>Saved fonts are named after a key computed from the content of the TrueType file and the
+ * generation parameters, so changing any of them causes the font to be generated again.
+ */
+public class FontCache {
+    private static final int FORMAT_VERSION = 1;
+    private static final String DATA_EXTENSION = ".fontdata";
+
+    private final FileHandle mBakedDir;
+    private final FileHandle mCacheDir;
+    private final HashMap<String, Long> mFontChecksums = new HashMap<>();
+
+    /** @p bakedDir and @p cacheDir may be null */
+    public FontCache(FileHandle bakedDir, FileHandle cacheDir) {
+        mBakedDir = bakedDir;
+        mCacheDir = cacheDir;
+    }
+
+    public BitmapFont loadFont(
+            FileHandle fontFile, FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        String baseName = getBaseName(fontFile, getFontChecksum(fontFile), parameter);
+        BitmapFont font = loadSavedFont(mBakedDir, baseName, parameter);
+        if (font != null) {
+            return font;
+        }
+        font = loadSavedFont(mCacheDir, baseName, parameter);
+        if (font != null) {
+            return font;
+        }
+
+        PixmapPacker packer = createPacker(parameter);
+        BitmapFont.BitmapFontData data = generateData(fontFile, parameter, packer);
+        if (mCacheDir != null) {
+            try {
+                save(mCacheDir, baseName, data, packer);
+            } catch (IOException | GdxRuntimeException e) {
+                NLog.e("Failed to save font %s in %s: %s", baseName, mCacheDir.path(), e);
+            }
+        }
+        Array<TextureRegion> regions = new Array<>();
+        packer.updateTextureRegions(
+                regions, parameter.minFilter, parameter.magFilter, parameter.genMipMaps);
+        // Pages which got a texture keep their pixmap, it is released with the texture. This
+        // releases the others.
+        packer.dispose();
+        font = new BitmapFont(data, regions, true);
+        font.setOwnsTexture(true);
+        return font;
+    }
+
+    /**
+     * Generates a font and saves it in @p dir, so that a FontCache using @p dir as its baked dir
+     * can load it. Does not need a GL context.
+     */
+    public static void bake(
+            FileHandle fontFile,
+            FreeTypeFontGenerator.FreeTypeFontParameter parameter,
+            FileHandle dir)
+            throws IOException {
+        String baseName = getBakedName(fontFile, parameter);
+        PixmapPacker packer = createPacker(parameter);
+        BitmapFont.BitmapFontData data = generateData(fontFile, parameter, packer);
+        dir.mkdirs();
+        save(dir, baseName, data, packer);
+        packer.dispose();
+    }
+
+    /** Returns the name under which bake() saves the font generated for @p parameter */
+    public static String getBakedName(
+            FileHandle fontFile, FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        return getBaseName(fontFile, FileUtils.computeChecksum(fontFile), parameter);
+    }
+
+    /** Returns true if @p dir contains a complete font saved as @p bakedName */
+    public static boolean isBaked(FileHandle dir, String bakedName) {
+        return dir.child(bakedName + DATA_EXTENSION).exists();
+    }
+
+    private long getFontChecksum(FileHandle fontFile) {
+        Long checksum = mFontChecksums.get(fontFile.path());
+        if (checksum == null) {
+            checksum = FileUtils.computeChecksum(fontFile);
+            mFontChecksums.put(fontFile.path(), checksum);
+        }
+        return checksum;
+    }
+
+    /** Includes all the parameters which have an effect on the generated glyphs */
+    static String getBaseName(
+            FileHandle fontFile,
+            long fontChecksum,
+            FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        String description =
+                FORMAT_VERSION
+                        + ";"
+                        + fontChecksum
+                        + ";"
+                        + parameter.size
+                        + ";"
+                        + parameter.mono
+                        + ";"
+                        + parameter.hinting
+                        + ";"
+                        + parameter.color
+                        + ";"
+                        + parameter.gamma
+                        + ";"
+                        + parameter.renderCount
+                        + ";"
+                        + parameter.borderWidth
+                        + ";"
+                        + parameter.borderColor
+                        + ";"
+                        + parameter.borderStraight
+                        + ";"
+                        + parameter.borderGamma
+                        + ";"
+                        + parameter.shadowOffsetX
+                        + ";"
+                        + parameter.shadowOffsetY
+                        + ";"
+                        + parameter.shadowColor
+                        + ";"
+                        + parameter.spaceX
+                        + ";"
+                        + parameter.spaceY
+                        + ";"
+                        + parameter.padTop
+                        + ";"
+                        + parameter.padLeft
+                        + ";"
+                        + parameter.padBottom
+                        + ";"
+                        + parameter.padRight
+                        + ";"
+                        + parameter.characters
+                        + ";"
+                        + parameter.kerning
+                        + ";"
+                        + parameter.flip;
+        CRC32 crc = new CRC32();
+        crc.update(description.getBytes(StandardCharsets.UTF_8));
+        return fontFile.nameWithoutExtension()
+                + "-"
+                + parameter.size
+                + "-"
+                + Long.toHexString(crc.getValue());
+    }
+
+    private static PixmapPacker createPacker(
+            FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        // Estimate the page size like FreeTypeFontGenerator does. If the estimation is too small,
+        // the packer creates more pages.
+        int glyphHeight = MathUtils.ceil(parameter.size * 1.25f + parameter.borderWidth * 2);
+        int size =
+                MathUtils.nextPowerOfTwo(
+                        (int) Math.sqrt(glyphHeight * glyphHeight * parameter.characters.length()));
+        PixmapPacker packer =
+                new PixmapPacker(
+                        size,
+                        size,
+                        Pixmap.Format.RGBA8888,
+                        1,
+                        false,
+                        new PixmapPacker.SkylineStrategy());
+        packer.setTransparentColor(
+                parameter.borderWidth > 0 ? parameter.borderColor : parameter.color);
+        packer.getTransparentColor().a = 0;
+        return packer;
+    }
+
+    private static BitmapFont.BitmapFontData generateData(
+            FileHandle fontFile,
+            FreeTypeFontGenerator.FreeTypeFontParameter parameter,
+            PixmapPacker packer) {
+        // Since we provide the packer, the generator does not create any texture
+        parameter.packer = packer;
+        FreeTypeFontGenerator generator = new FreeTypeFontGenerator(fontFile);
+        try {
+            return generator.generateData(parameter);
+        } finally {
+            parameter.packer = null;
+            generator.dispose();
+        }
+    }
+
+    private static BitmapFont loadSavedFont(
+            FileHandle dir,
+            String baseName,
+            FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        if (dir == null) {
+            return null;
+        }
+        FileHandle dataFile = dir.child(baseName + DATA_EXTENSION);
+        if (!dataFile.exists()) {
+            return null;
+        }
+        BitmapFont.BitmapFontData data = new BitmapFont.BitmapFontData();
+        int pageCount;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(dataFile.read()))) {
+            pageCount = readData(in, data);
+        } catch (IOException | GdxRuntimeException e) {
+            NLog.e("Failed to load font from %s: %s", dataFile.path(), e);
+            return null;
+        }
+        Array<TextureRegion> regions = new Array<>();
+        for (int idx = 0; idx < pageCount; ++idx) {
+            Texture texture = new Texture(getPageFile(dir, baseName, idx), parameter.genMipMaps);
+            texture.setFilter(parameter.minFilter, parameter.magFilter);
+            regions.add(new TextureRegion(texture));
+        }
+        BitmapFont font = new BitmapFont(data, regions, true);
+        font.setOwnsTexture(true);
+        return font;
+    }
+
+    private static void save(
+            FileHandle dir, String baseName, BitmapFont.BitmapFontData data, PixmapPacker packer)
+            throws IOException {
+        Array<PixmapPacker.Page> pages = packer.getPages();
+        for (int idx = 0; idx < pages.size; ++idx) {
+            PixmapIO.writePNG(getPageFile(dir, baseName, idx), pages.get(idx).getPixmap());
+        }
+        // Write the data file last: if it exists, the pages exist too
+        FileHandle dataFile = dir.child(baseName + DATA_EXTENSION);
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(dataFile.write(false)))) {
+            writeData(out, data, pages.size);
+        }
+    }
+
+    private static FileHandle getPageFile(FileHandle dir, String baseName, int idx) {
+        return dir.child(baseName + "-" + idx + ".png");
+    }
+
+    static void writeData(DataOutputStream out, BitmapFont.BitmapFontData data, int pageCount)
+            throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(pageCount);
+        out.writeBoolean(data.flipped);
+        out.writeBoolean(data.markupEnabled);
+        out.writeFloat(data.padTop);
+        out.writeFloat(data.padRight);
+        out.writeFloat(data.padBottom);
+        out.writeFloat(data.padLeft);
+        out.writeFloat(data.lineHeight);
+        out.writeFloat(data.capHeight);
+        out.writeFloat(data.ascent);
+        out.writeFloat(data.descent);
+        out.writeFloat(data.down);
+        out.writeFloat(data.blankLineScale);
+        out.writeFloat(data.scaleX);
+        out.writeFloat(data.scaleY);
+        out.writeFloat(data.cursorX);
+        out.writeFloat(data.spaceXadvance);
+        out.writeFloat(data.xHeight);
+
+        Array<BitmapFont.Glyph> glyphs = new Array<>();
+        for (BitmapFont.Glyph[] page : data.glyphs) {
+            if (page == null) {
+                continue;
+            }
+            for (BitmapFont.Glyph glyph : page) {
+                if (glyph != null) {
+                    glyphs.add(glyph);
+                }
+            }
+        }
+        out.writeInt(glyphs.size);
+        for (BitmapFont.Glyph glyph : glyphs) {
+            writeGlyph(out, glyph);
+        }
+        out.writeInt(data.missingGlyph == null ? -1 : data.missingGlyph.id);
+    }
+
+    private static void writeGlyph(DataOutputStream out, BitmapFont.Glyph glyph)
+            throws IOException {
+        out.writeInt(glyph.id);
+        out.writeInt(glyph.srcX);
+        out.writeInt(glyph.srcY);
+        out.writeInt(glyph.width);
+        out.writeInt(glyph.height);
+        out.writeInt(glyph.xoffset);
+        out.writeInt(glyph.yoffset);
+        out.writeInt(glyph.xadvance);
+        out.writeInt(glyph.page);
+        out.writeBoolean(glyph.fixedWidth);
+
+        // Kerning is stored in pages of bytes, indexed by the second char
+        int kerningCount = 0;
+        if (glyph.kerning != null) {
+            for (byte[] page : glyph.kerning) {
+                if (page == null) {
+                    continue;
+                }
+                for (byte value : page) {
+                    if (value != 0) {
+                        ++kerningCount;
+                    }
+                }
+            }
+        }
+        out.writeInt(kerningCount);
+        if (kerningCount == 0) {
+            return;
+        }
+        for (int pageIdx = 0; pageIdx < glyph.kerning.length; ++pageIdx) {
+            byte[] page = glyph.kerning[pageIdx];
+            if (page == null) {
+                continue;
+            }
+            for (int idx = 0; idx < page.length; ++idx) {
+                if (page[idx] != 0) {
+                    out.writeInt(pageIdx * page.length + idx);
+                    out.writeByte(page[idx]);
+                }
+            }
+        }
+    }
+
+    /** Fills @p data and returns the number of pages */
+    static int readData(DataInputStream in, BitmapFont.BitmapFontData data) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported font format version " + version);
+        }
+        int pageCount = in.readInt();
+        data.flipped = in.readBoolean();
+        data.markupEnabled = in.readBoolean();
+        data.padTop = in.readFloat();
+        data.padRight = in.readFloat();
+        data.padBottom = in.readFloat();
+        data.padLeft = in.readFloat();
+        data.lineHeight = in.readFloat();
+        data.capHeight = in.readFloat();
+        data.ascent = in.readFloat();
+        data.descent = in.readFloat();
+        data.down = in.readFloat();
+        data.blankLineScale = in.readFloat();
+        data.scaleX = in.readFloat();
+        data.scaleY = in.readFloat();
+        data.cursorX = in.readFloat();
+        data.spaceXadvance = in.readFloat();
+        data.xHeight = in.readFloat();
+
+        int glyphCount = in.readInt();
+        for (int idx = 0; idx < glyphCount; ++idx) {
+            BitmapFont.Glyph glyph = readGlyph(in);
+            data.setGlyph(glyph.id, glyph);
+        }
+        int missingGlyphId = in.readInt();
+        if (missingGlyphId >= 0) {
+            data.missingGlyph = data.getGlyph((char) missingGlyphId);
+        }
+        return pageCount;
+    }
+
+    private static BitmapFont.Glyph readGlyph(DataInputStream in) throws IOException {
+        BitmapFont.Glyph glyph = new BitmapFont.Glyph();
+        glyph.id = in.readInt();
+        glyph.srcX = in.readInt();
+        glyph.srcY = in.readInt();
+        glyph.width = in.readInt();
+        glyph.height = in.readInt();
+        glyph.xoffset = in.readInt();
+        glyph.yoffset = in.readInt();
+        glyph.xadvance = in.readInt();
+        glyph.page = in.readInt();
+        glyph.fixedWidth = in.readBoolean();
+        int kerningCount = in.readInt();
+        for (int idx = 0; idx < kerningCount; ++idx) {
+            int ch = in.readInt();
+            glyph.setKerning(ch, in.readByte());
+        }
+        return glyph;
+    }
+}
@@ -18,6 +18,7 @@
  */
 package com.agateau.ui;
 
+import com.agateau.ui.uibuilder.UiBuilder;
 import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
@@ -57,6 +58,8 @@ public abstract class RefreshHelper {
                             Gdx.app.postRunnable(
                                     () -> {
                                         try {
+                                            // Make sure .gdxui files are loaded again
+                                            UiBuilder.clearTemplateCache();
                                             refreshAssets();
                                             refresh();
                                         } catch (Exception exc) {
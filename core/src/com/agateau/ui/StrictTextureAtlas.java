@@ -38,6 +38,10 @@ public class StrictTextureAtlas extends TextureAtlas {
         super(handle);
     }
 
+    public StrictTextureAtlas(TextureAtlasData data) {
+        super(data);
+    }
+
     @Override
     public TextureAtlas.AtlasRegion findRegion(String name) {
         TextureAtlas.AtlasRegion region = mRegions.get(name);
@@ -18,22 +18,33 @@
  */
 package com.agateau.ui;
 
+import com.agateau.utils.FileUtils;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Array;
 
 public class UiAssets {
     public final Skin skin;
     public final TextureAtlas atlas;
     public final TextureRegion background;
 
+    /** Where the AssetBuilder tool stores the fonts it generates */
+    public static final String BAKED_FONTS_DIR = "fonts/baked";
+
     private static final float SMALL_HUD_RATIO = 0.7f;
 
     public UiAssets() {
-        this.atlas = new StrictTextureAtlas(Gdx.files.internal("ui/uiskin.atlas"));
+        this(new StrictTextureAtlas(Gdx.files.internal("ui/uiskin.atlas")));
+    }
+
+    /** Creates the UI assets using an already loaded ui/uiskin.atlas */
+    public UiAssets(TextureAtlas atlas) {
+        this.atlas = atlas;
         this.skin = new Skin(this.atlas);
 
         loadFonts();
@@ -43,61 +54,78 @@ public class UiAssets {
         this.background = this.atlas.findRegion("background");
     }
 
-    private void loadFonts() {
-        FreeTypeFontGenerator.FreeTypeFontParameter parameter;
-        this.skin.add("default-font", loadFont("fonts/Xolonium-Regular.ttf", 28));
-        this.skin.add("title-font", loadFont("fonts/Aero.ttf", 32));
-
-        parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
-        parameter.size = 12;
-        parameter.borderWidth = 0.5f;
-        this.skin.add("tiny-font", loadFont("fonts/Xolonium-Regular.ttf", parameter));
-
-        parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
-        parameter.size = 12;
-        this.skin.add("tiny-bold-font", loadFont("fonts/Xolonium-Bold.ttf", parameter));
-
-        parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
-        parameter.size = 20;
-        parameter.borderWidth = 0.5f;
-        this.skin.add("small-font", loadFont("fonts/Xolonium-Regular.ttf", parameter));
-
-        // hud-font
-        parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
-        parameter.size = 28;
-        parameter.borderWidth = 0.5f;
-        this.skin.add("hud-font", loadFont("fonts/Xolonium-Regular.ttf", parameter));
-        parameter.size = (int) (parameter.size * SMALL_HUD_RATIO);
-        this.skin.add("small-hud-font", loadFont("fonts/Xolonium-Regular.ttf", parameter));
-
-        // hud-rank-font
-        parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
-        parameter.size = 56;
-        parameter.characters = "1234567890thsrdneméèP:";
-        parameter.borderWidth = 0.5f;
-        this.skin.add("hud-rank-font", loadFont("fonts/Xolonium-Regular.ttf", parameter));
-        parameter.size = (int) (parameter.size * SMALL_HUD_RATIO);
-        this.skin.add("small-hud-rank-font", loadFont("fonts/Xolonium-Regular.ttf", parameter));
-
-        parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
-        parameter.size = 180;
-        parameter.characters = "123GO!";
-        parameter.borderWidth = 0.5f;
-        this.skin.add("hud-countdown-font", loadFont("fonts/Xolonium-Regular.ttf", parameter));
+    /** A font used by the skin */
+    public static class FontDef {
+        public final String name;
+        public final String path;
+        public final FreeTypeFontGenerator.FreeTypeFontParameter parameter;
+
+        FontDef(String name, String path, FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+            this.name = name;
+            this.path = path;
+            this.parameter = parameter;
+        }
     }
 
-    private BitmapFont loadFont(String name, int size) {
+    public static Array<FontDef> getFontDefs() {
+        Array<FontDef> defs = new Array<>();
+        defs.add(createFontDef("default-font", "fonts/Xolonium-Regular.ttf", 28, 0, null));
+        defs.add(createFontDef("title-font", "fonts/Aero.ttf", 32, 0, null));
+        defs.add(createFontDef("tiny-font", "fonts/Xolonium-Regular.ttf", 12, 0.5f, null));
+        defs.add(createFontDef("tiny-bold-font", "fonts/Xolonium-Bold.ttf", 12, 0, null));
+        defs.add(createFontDef("small-font", "fonts/Xolonium-Regular.ttf", 20, 0.5f, null));
+
+        int size = 28;
+        defs.add(createFontDef("hud-font", "fonts/Xolonium-Regular.ttf", size, 0.5f, null));
+        defs.add(
+                createFontDef(
+                        "small-hud-font",
+                        "fonts/Xolonium-Regular.ttf",
+                        (int) (size * SMALL_HUD_RATIO),
+                        0.5f,
+                        null));
+
+        size = 56;
+        String rankCharacters = "1234567890thsrdneméèP:";
+        defs.add(
+                createFontDef(
+                        "hud-rank-font", "fonts/Xolonium-Regular.ttf", size, 0.5f, rankCharacters));
+        defs.add(
+                createFontDef(
+                        "small-hud-rank-font",
+                        "fonts/Xolonium-Regular.ttf",
+                        (int) (size * SMALL_HUD_RATIO),
+                        0.5f,
+                        rankCharacters));
+
+        defs.add(
+                createFontDef(
+                        "hud-countdown-font", "fonts/Xolonium-Regular.ttf", 180, 0.5f, "123GO!"));
+        return defs;
+    }
+
+    private static FontDef createFontDef(
+            String name, String path, int size, float borderWidth, String characters) {
         FreeTypeFontGenerator.FreeTypeFontParameter parameter =
                 new FreeTypeFontGenerator.FreeTypeFontParameter();
         parameter.size = size;
-        return loadFont(name, parameter);
+        parameter.borderWidth = borderWidth;
+        if (characters != null) {
+            parameter.characters = characters;
+        }
+        return new FontDef(name, path, parameter);
     }
 
-    private BitmapFont loadFont(
-            String name, FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
-        FreeTypeFontGenerator generator = new FreeTypeFontGenerator(Gdx.files.internal(name));
-        BitmapFont font = generator.generateFont(parameter);
-        generator.dispose();
-        return font;
+    private void loadFonts() {
+        FileHandle cacheDir = FileUtils.getCacheDir();
+        if (cacheDir != null) {
+            cacheDir = cacheDir.child("fonts");
+            cacheDir.mkdirs();
+        }
+        FontCache fontCache = new FontCache(Gdx.files.internal(BAKED_FONTS_DIR), cacheDir);
+        for (FontDef def : getFontDefs()) {
+            BitmapFont font = fontCache.loadFont(Gdx.files.internal(def.path), def.parameter);
+            this.skin.add(def.name, font);
+        }
     }
 }
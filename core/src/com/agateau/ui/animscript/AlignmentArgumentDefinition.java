@@ -41,11 +41,15 @@ class AlignmentArgumentDefinition extends ArgumentDefinition<Integer> {
     }
 
     AlignmentArgumentDefinition() {
-        super(Integer.TYPE, null);
+        super(null);
     }
 
     @Override
-    public Object parse(StreamTokenizer tokenizer, DimensionParser dimParser)
+    public void parse(
+            StreamTokenizer tokenizer,
+            DimensionParser dimParser,
+            InstructionArguments args,
+            int idx)
             throws AnimScriptLoader.SyntaxException {
         try {
             tokenizer.nextToken();
@@ -61,6 +65,6 @@ class AlignmentArgumentDefinition extends ArgumentDefinition<Integer> {
             throw new AnimScriptLoader.SyntaxException(
                     tokenizer, "Invalid alignment value: " + tokenizer.sval);
         }
-        return value;
+        args.setInt(idx, value);
     }
 }
@@ -20,13 +20,13 @@ package com.agateau.ui.animscript;
 
 import com.agateau.ui.DimensionParser;
 import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 import com.badlogic.gdx.utils.Array;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StreamTokenizer;
 import java.io.StringReader;
-import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -34,6 +34,11 @@ import java.util.Map;
 public class AnimScriptLoader {
     private final Map<String, InstructionDefinition> mInstructionDefinitionMap = new HashMap<>();
 
+    /** Creates the action of an instruction from its parsed arguments */
+    public interface ActionFactory {
+        Action create(InstructionArguments args);
+    }
+
     public static class SyntaxException extends Exception {
         SyntaxException(StreamTokenizer tokenizer, String message) {
             super(String.format(Locale.US, "line %d: %s", tokenizer.lineno(), message));
@@ -43,12 +48,25 @@ public class AnimScriptLoader {
     public AnimScriptLoader() {
         registerAction(
                 "moveTo",
+                args ->
+                        Actions.moveTo(
+                                args.getFloat(0),
+                                args.getFloat(1),
+                                args.getFloat(2),
+                                args.getObject(3)),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DIMENSION),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DIMENSION),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION, 0),
                 new InterpolationArgumentDefinition(Interpolation.linear));
         registerAction(
                 "moveToAligned",
+                args ->
+                        Actions.moveToAligned(
+                                args.getFloat(0),
+                                args.getFloat(1),
+                                args.getInt(2),
+                                args.getFloat(3),
+                                args.getObject(4)),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DIMENSION),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DIMENSION),
                 new AlignmentArgumentDefinition(),
@@ -56,39 +74,62 @@ public class AnimScriptLoader {
                 new InterpolationArgumentDefinition(Interpolation.linear));
         registerAction(
                 "moveBy",
+                args ->
+                        Actions.moveBy(
+                                args.getFloat(0),
+                                args.getFloat(1),
+                                args.getFloat(2),
+                                args.getObject(3)),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DIMENSION),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DIMENSION),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION, 0),
                 new InterpolationArgumentDefinition(Interpolation.linear));
         registerAction(
                 "rotateTo",
+                args -> Actions.rotateTo(args.getFloat(0), args.getFloat(1), args.getObject(2)),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.SCALAR),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION, 0),
                 new InterpolationArgumentDefinition(Interpolation.linear));
         registerAction(
                 "rotateBy",
+                args -> Actions.rotateBy(args.getFloat(0), args.getFloat(1), args.getObject(2)),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.SCALAR),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION, 0),
                 new InterpolationArgumentDefinition(Interpolation.linear));
         registerAction(
                 "scaleTo",
+                args ->
+                        Actions.scaleTo(
+                                args.getFloat(0),
+                                args.getFloat(1),
+                                args.getFloat(2),
+                                args.getObject(3)),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.SCALAR),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.SCALAR),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION, 0),
                 new InterpolationArgumentDefinition(Interpolation.linear));
         registerAction(
                 "sizeTo",
+                args ->
+                        Actions.sizeTo(
+                                args.getFloat(0),
+                                args.getFloat(1),
+                                args.getFloat(2),
+                                args.getObject(3)),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DIMENSION),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DIMENSION),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION, 0),
                 new InterpolationArgumentDefinition(Interpolation.linear));
         registerAction(
                 "alpha",
+                args -> Actions.alpha(args.getFloat(0), args.getFloat(1), args.getObject(2)),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.SCALAR),
                 new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION, 0),
                 new InterpolationArgumentDefinition(Interpolation.linear));
         registerAction(
-                "delay", new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION));
+                "delay",
+                args -> Actions.delay(args.getFloat(0)),
+                new FloatArgumentDefinition(FloatArgumentDefinition.Domain.DURATION));
         mInstructionDefinitionMap.put("parallel", new ParallelInstructionDefinition(this));
         mInstructionDefinitionMap.put("repeat", new RepeatInstructionDefinition(this));
     }
@@ -155,36 +196,11 @@ public class AnimScriptLoader {
         return lst;
     }
 
-    private void registerStaticMethod(
-            String name, Class<?> methodClass, String methodName, ArgumentDefinition<?>... types) {
-        Method method = getMethod(methodClass, methodName, types);
-        mInstructionDefinitionMap.put(name, new BasicInstructionDefinition(method, types));
-    }
-
-    public void registerMemberMethod(
-            String name, Object object, String methodName, ArgumentDefinition<?>... types) {
-        Method method = getMethod(object.getClass(), methodName, types);
-        mInstructionDefinitionMap.put(name, new BasicInstructionDefinition(object, method, types));
-    }
-
-    private static Method getMethod(
-            Class<?> methodClass, String name, ArgumentDefinition<?>... types) {
-        Class<?>[] args = new Class<?>[types.length];
-        for (int idx = 0; idx < types.length; ++idx) {
-            args[idx] = types[idx].javaType;
-        }
-        try {
-            return methodClass.getDeclaredMethod(name, args);
-        } catch (NoSuchMethodException e1) {
-            e1.printStackTrace();
-            throw new RuntimeException();
-        } catch (SecurityException e1) {
-            e1.printStackTrace();
-            throw new RuntimeException();
-        }
-    }
-
-    private void registerAction(String name, ArgumentDefinition<?>... types) {
-        registerStaticMethod(name, Actions.class, name, types);
+    /**
+     * Registers an instruction named @p name. Its arguments are parsed according to @p types, then
+     * passed to @p factory each time the instruction runs.
+     */
+    public void registerAction(String name, ActionFactory factory, ArgumentDefinition<?>... types) {
+        mInstructionDefinitionMap.put(name, new BasicInstructionDefinition(factory, types));
     }
 }
@@ -22,14 +22,17 @@ import com.agateau.ui.DimensionParser;
 import java.io.StreamTokenizer;
 
 public abstract class ArgumentDefinition<T> {
-    final Class<?> javaType;
     final T defaultValue;
 
-    ArgumentDefinition(Class<?> javaType, T defaultValue) {
-        this.javaType = javaType;
+    ArgumentDefinition(T defaultValue) {
         this.defaultValue = defaultValue;
     }
 
-    public abstract Object parse(StreamTokenizer tokenizer, DimensionParser dimParser)
+    /** Parses the argument and stores it at index @p idx of @p args */
+    public abstract void parse(
+            StreamTokenizer tokenizer,
+            DimensionParser dimParser,
+            InstructionArguments args,
+            int idx)
             throws AnimScriptLoader.SyntaxException;
 }
@@ -19,36 +19,18 @@
 package com.agateau.ui.animscript;
 
 import com.badlogic.gdx.scenes.scene2d.Action;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 
 class BasicInstruction implements Instruction {
-    private final Object mObject;
-    private final Method mMethod;
-    private final Object[] mArgs;
+    private final AnimScriptLoader.ActionFactory mFactory;
+    private final InstructionArguments mArgs;
 
-    BasicInstruction(Object object, Method method, Object[] args) {
-        mObject = object;
-        mMethod = method;
+    BasicInstruction(AnimScriptLoader.ActionFactory factory, InstructionArguments args) {
+        mFactory = factory;
         mArgs = args;
     }
 
-    /* (non-Javadoc)
-     * @see com.agateau.ui.animscript.Instruction#run(com.agateau.burgerparty.utils.AnimScript.Context)
-     */
     @Override
     public Action run() {
-        try {
-            return (Action) mMethod.invoke(mObject, mArgs);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-            throw new RuntimeException();
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-            throw new RuntimeException();
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
-            throw new RuntimeException();
-        }
+        return mFactory.create(mArgs);
     }
 }
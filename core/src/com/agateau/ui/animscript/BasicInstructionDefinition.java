@@ -20,38 +20,26 @@ package com.agateau.ui.animscript;
 
 import com.agateau.ui.DimensionParser;
 import java.io.StreamTokenizer;
-import java.lang.reflect.Method;
 
 class BasicInstructionDefinition implements InstructionDefinition {
-    private final Object mInstance;
-    private final Method mMethod;
+    private final AnimScriptLoader.ActionFactory mFactory;
     private final ArgumentDefinition<?>[] mArgumentDefinitions;
 
     BasicInstructionDefinition(
-            Object instance, Method method, ArgumentDefinition<?>... argumentDefinitions) {
-        mInstance = instance;
-        mMethod = method;
+            AnimScriptLoader.ActionFactory factory, ArgumentDefinition<?>... argumentDefinitions) {
+        mFactory = factory;
         mArgumentDefinitions = argumentDefinitions;
     }
 
-    BasicInstructionDefinition(Method method, ArgumentDefinition<?>... argumentDefinitions) {
-        mInstance = null;
-        mMethod = method;
-        mArgumentDefinitions = argumentDefinitions;
-    }
-
-    /* (non-Javadoc)
-     * @see com.agateau.ui.animscript.InstructionDefinition#parse(java.io.StreamTokenizer)
-     */
     @Override
     public Instruction parse(StreamTokenizer tokenizer, DimensionParser dimParser)
             throws AnimScriptLoader.SyntaxException {
-        Object[] args = new Object[mArgumentDefinitions.length];
+        InstructionArguments args = new InstructionArguments(mArgumentDefinitions.length);
         for (int idx = 0; idx < mArgumentDefinitions.length; ++idx) {
             ArgumentDefinition<?> def = mArgumentDefinitions[idx];
             assert (def != null);
-            args[idx] = def.parse(tokenizer, dimParser);
+            def.parse(tokenizer, dimParser, args, idx);
         }
-        return new BasicInstruction(mInstance, mMethod, args);
+        return new BasicInstruction(mFactory, args);
     }
 }
@@ -32,17 +32,21 @@ class FloatArgumentDefinition extends ArgumentDefinition<Float> {
     private final FloatArgumentDefinition.Domain mDomain;
 
     FloatArgumentDefinition(FloatArgumentDefinition.Domain domain) {
-        super(Float.TYPE, null);
+        super(null);
         mDomain = domain;
     }
 
     FloatArgumentDefinition(FloatArgumentDefinition.Domain domain, float defaultValue) {
-        super(Float.TYPE, defaultValue);
+        super(defaultValue);
         mDomain = domain;
     }
 
     @Override
-    public Object parse(StreamTokenizer tokenizer, DimensionParser dimParser)
+    public void parse(
+            StreamTokenizer tokenizer,
+            DimensionParser dimParser,
+            InstructionArguments args,
+            int idx)
             throws AnimScriptLoader.SyntaxException {
         try {
             tokenizer.nextToken();
@@ -63,6 +67,6 @@ class FloatArgumentDefinition extends ArgumentDefinition<Float> {
             throw new AnimScriptLoader.SyntaxException(
                     tokenizer, "No value set for this argument, which has no default value");
         }
-        return value;
+        args.setFloat(idx, value);
     }
 }
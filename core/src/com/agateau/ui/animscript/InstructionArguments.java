@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.ui.animscript;
+
+/**
+ * The parsed arguments of an instruction, accessed by index. Floats and ints are stored without
+ * boxing them.
+ */
+public class InstructionArguments {
+    private final float[] mFloats;
+    private final int[] mInts;
+    private final Object[] mObjects;
+
+    InstructionArguments(int count) {
+        mFloats = new float[count];
+        mInts = new int[count];
+        mObjects = new Object[count];
+    }
+
+    public float getFloat(int idx) {
+        return mFloats[idx];
+    }
+
+    public int getInt(int idx) {
+        return mInts[idx];
+    }
+
+    public <T> T getObject(int idx) {
+        @SuppressWarnings("unchecked")
+        T obj = (T) mObjects[idx];
+        return obj;
+    }
+
+    void setFloat(int idx, float value) {
+        mFloats[idx] = value;
+    }
+
+    void setInt(int idx, int value) {
+        mInts[idx] = value;
+    }
+
+    void setObject(int idx, Object value) {
+        mObjects[idx] = value;
+    }
+}
@@ -68,11 +68,15 @@ public class InterpolationArgumentDefinition extends ArgumentDefinition<Interpol
     }
 
     InterpolationArgumentDefinition(Interpolation defaultValue) {
-        super(Interpolation.class, defaultValue);
+        super(defaultValue);
     }
 
     @Override
-    public Object parse(StreamTokenizer tokenizer, DimensionParser dimParser)
+    public void parse(
+            StreamTokenizer tokenizer,
+            DimensionParser dimParser,
+            InstructionArguments args,
+            int idx)
             throws AnimScriptLoader.SyntaxException {
         try {
             tokenizer.nextToken();
@@ -93,6 +97,6 @@ public class InterpolationArgumentDefinition extends ArgumentDefinition<Interpol
             throw new AnimScriptLoader.SyntaxException(
                     tokenizer, "No value set for this argument, which has no default value");
         }
-        return value;
+        args.setObject(idx, value);
     }
 }
@@ -19,7 +19,6 @@
 package com.agateau.ui.uibuilder;
 
 import com.agateau.ui.DimensionParser;
-import com.agateau.ui.anchor.Anchor;
 import com.agateau.ui.anchor.AnchorGroup;
 import com.agateau.ui.anchor.PositionRule;
 import com.agateau.ui.animscript.AnimScript;
@@ -61,6 +60,9 @@ import java.util.Map;
 public class UiBuilder {
     private static final String PREVIOUS_ACTOR_ID = "$prev";
 
+    /** Templates of the .gdxui files which have already been built, indexed by path */
+    private static final Map<String, UiTemplate> sTemplates = new HashMap<>();
+
     private final AnimScriptLoader mAnimScriptloader = new AnimScriptLoader();
     private final DimensionParser mDimParser = new DimensionParser();
     private final ElementTreeTraversor mTraversor = new ElementTreeTraversor();
@@ -72,6 +74,7 @@ public class UiBuilder {
     private final TextureAtlas mAtlas;
     private final Skin mSkin;
     private Actor mLastAddedActor;
+    private UiTemplate mTemplate;
     private final Map<String, TextureAtlas> mAtlasMap = new HashMap<>();
 
     public interface ActorFactory {
@@ -82,29 +85,6 @@ public class UiBuilder {
         MenuItem createMenuItem(Menu menu, XmlReader.Element element) throws SyntaxException;
     }
 
-    private static final String[] ANCHOR_NAMES = {
-        "topLeft",
-        "topCenter",
-        "topRight",
-        "centerLeft",
-        "center",
-        "centerRight",
-        "bottomLeft",
-        "bottomCenter",
-        "bottomRight"
-    };
-    private static final Anchor[] ANCHORS = {
-        Anchor.TOP_LEFT,
-        Anchor.TOP_CENTER,
-        Anchor.TOP_RIGHT,
-        Anchor.CENTER_LEFT,
-        Anchor.CENTER,
-        Anchor.CENTER_RIGHT,
-        Anchor.BOTTOM_LEFT,
-        Anchor.BOTTOM_CENTER,
-        Anchor.BOTTOM_RIGHT
-    };
-
     public static class SyntaxException extends Exception {
         public SyntaxException(String message) {
             super(message);
@@ -266,22 +246,37 @@ public class UiBuilder {
     }
 
     public Actor build(FileHandle handle, Group parentActor) {
-        XmlReader.Element element = FileUtils.parseXml(handle);
-        assert (element != null);
-        return build(element, parentActor);
+        UiTemplate template = sTemplates.get(handle.path());
+        if (template == null) {
+            XmlReader.Element element = FileUtils.parseXml(handle);
+            assert (element != null);
+            template = new UiTemplate(element);
+            sTemplates.put(handle.path(), template);
+        }
+        return build(template, parentActor);
     }
 
     public Actor build(XmlReader.Element parentElement, Group parentActor) {
+        return build(new UiTemplate(parentElement), parentActor);
+    }
+
+    private Actor build(UiTemplate template, Group parentActor) {
         mActorForId.clear();
         mMenuItemForId.clear();
+        mTemplate = template;
         try {
-            return doBuild(parentElement, parentActor);
+            return doBuild(template.getRoot(), parentActor);
         } catch (SyntaxException e) {
             NLog.e("Parse error: " + e.getMessage());
             return null;
         }
     }
 
+    /** Forgets the parsed .gdxui files, so that the next builds load them again */
+    public static void clearTemplateCache() {
+        sTemplates.clear();
+    }
+
     public TextureAtlas getAtlas() {
         return mAtlas;
     }
@@ -304,11 +299,12 @@ public class UiBuilder {
                     if (actor == null) {
                         throw new SyntaxException("Failed to create actor for element: " + element);
                     }
+                    UiTemplate.ActorInfo info = mTemplate.getActorInfo(element);
                     if (actor instanceof Widget) {
-                        applyWidgetProperties((Widget) actor, element);
+                        ((Widget) actor).setFillParent(info.fillParent);
                     }
-                    applyActorProperties(actor, element, parentActor);
-                    createActorActions(actor, element);
+                    applyActorProperties(actor, info, parentActor);
+                    createActorActions(actor, info);
                     String id = element.getAttribute("id", null);
                     addActorToActorForId(id, actor);
                     if (actor instanceof Group
@@ -428,11 +424,7 @@ public class UiBuilder {
         return menu;
     }
 
-    private void applyWidgetProperties(Widget widget, XmlReader.Element element) {
-        widget.setFillParent(element.getBooleanAttribute("fillParent", false));
-    }
-
-    private void applyActorProperties(Actor actor, XmlReader.Element element, Group parentActor)
+    private void applyActorProperties(Actor actor, UiTemplate.ActorInfo info, Group parentActor)
             throws SyntaxException {
         AnchorGroup anchorGroup = null;
         if (parentActor != null) {
@@ -441,96 +433,60 @@ public class UiBuilder {
                 anchorGroup = (AnchorGroup) parentActor;
             }
         }
-        String attr = element.getAttribute("x", "");
-        if (!attr.isEmpty()) {
-            actor.setX(mDimParser.parse(attr));
+        float gridSize = mDimParser.gridSize;
+        if (info.x != null) {
+            actor.setX(info.x.evaluate(gridSize));
         }
-        attr = element.getAttribute("y", "");
-        if (!attr.isEmpty()) {
-            actor.setY(mDimParser.parse(attr));
+        if (info.y != null) {
+            actor.setY(info.y.evaluate(gridSize));
         }
-        attr = element.getAttribute("width", "");
-        if (!attr.isEmpty()) {
-            actor.setWidth(mDimParser.parse(attr));
+        if (info.width != null) {
+            actor.setWidth(info.width.evaluate(gridSize));
         }
-        attr = element.getAttribute("height", "");
-        if (!attr.isEmpty()) {
-            actor.setHeight(mDimParser.parse(attr));
+        if (info.height != null) {
+            actor.setHeight(info.height.evaluate(gridSize));
         }
-        attr = element.getAttribute("originX", "");
-        if (!attr.isEmpty()) {
-            actor.setOriginX(mDimParser.parse(attr));
+        if (info.originX != null) {
+            actor.setOriginX(info.originX.evaluate(gridSize));
         }
-        attr = element.getAttribute("originY", "");
-        if (!attr.isEmpty()) {
-            actor.setOriginY(mDimParser.parse(attr));
+        if (info.originY != null) {
+            actor.setOriginY(info.originY.evaluate(gridSize));
         }
-        attr = element.getAttribute("visible", "");
-        if (!attr.isEmpty()) {
-            actor.setVisible(Boolean.parseBoolean(attr));
+        if (info.visible != null) {
+            actor.setVisible(info.visible);
         }
-        attr = element.getAttribute("color", "");
-        if (!attr.isEmpty()) {
-            actor.setColor(Color.valueOf(attr));
+        if (info.color != null) {
+            actor.setColor(info.color);
         }
-        attr = element.getAttribute("debug", "");
-        if (!attr.isEmpty()) {
+        if (info.debug != null) {
             if (actor instanceof Group) {
                 Group group = (Group) actor;
-                attr = attr.toLowerCase();
-                if (attr.equals("true")) {
+                if (info.debug.equals("true")) {
                     group.debug();
-                } else if (attr.equals("all")) {
+                } else if (info.debug.equals("all")) {
                     group.debugAll();
                 }
             } else {
-                actor.setDebug(Boolean.parseBoolean(attr));
+                actor.setDebug(Boolean.parseBoolean(info.debug));
             }
         }
-        for (int idx = 0, size = ANCHOR_NAMES.length; idx < size; ++idx) {
-            String anchorName = ANCHOR_NAMES[idx];
-            attr = element.getAttribute(anchorName, "");
-            if (!attr.isEmpty()) {
-                if (anchorGroup == null) {
-                    throw new SyntaxException("Parent of " + actor + " is not an anchor group");
-                }
-                PositionRule rule = parseRule(attr);
-                rule.target = actor;
-                rule.targetAnchor = ANCHORS[idx];
-                anchorGroup.addRule(rule);
+        for (UiTemplate.RuleInfo ruleInfo : info.rules) {
+            if (anchorGroup == null) {
+                throw new SyntaxException("Parent of " + actor + " is not an anchor group");
             }
+            anchorGroup.addRule(createRule(ruleInfo, actor));
         }
     }
 
-    /**
-     * Parse a string of the form "$actorId $anchorName [$xOffset $yOffset]"
-     *
-     * @param txt the string to parse
-     * @return a PositionRule
-     */
-    private PositionRule parseRule(String txt) throws SyntaxException {
+    private PositionRule createRule(UiTemplate.RuleInfo ruleInfo, Actor target) {
         PositionRule rule = new PositionRule();
-        String[] tokens = txt.split(" +");
-        if (tokens.length != 1 && tokens.length != 3) {
-            throw new SyntaxException("Invalid rule syntax: " + txt);
-        }
-        String[] tokens2 = tokens[0].split("\\.");
-        if (tokens2.length != 2) {
-            throw new SyntaxException("reference should be of the form <id>.<anchor>: " + txt);
-        }
-        rule.reference = getActor(tokens2[0]);
-        for (int idx = 0, size = ANCHOR_NAMES.length; idx < size; ++idx) {
-            if (tokens2[1].equals(ANCHOR_NAMES[idx])) {
-                rule.referenceAnchor = ANCHORS[idx];
-                break;
-            }
-        }
-        if (rule.referenceAnchor == null) {
-            throw new SyntaxException("Invalid anchor name: '" + tokens[1] + "'");
-        }
-        if (tokens.length == 3) {
-            rule.hSpace = mDimParser.parse(tokens[1], DimensionParser.Unit.GRID);
-            rule.vSpace = mDimParser.parse(tokens[2], DimensionParser.Unit.GRID);
+        rule.target = target;
+        rule.targetAnchor = ruleInfo.targetAnchor;
+        rule.reference = getActor(ruleInfo.referenceId);
+        rule.referenceAnchor = ruleInfo.referenceAnchor;
+        if (ruleInfo.hSpace != null) {
+            rule.hSpace = ruleInfo.hSpace.evaluate(mDimParser.gridSize);
+            rule.vSpace = ruleInfo.vSpace.evaluate(mDimParser.gridSize);
         }
         return rule;
     }
@@ -546,16 +502,8 @@ public class UiBuilder {
         return text.replace("\\n", "\n");
     }
 
-    private void createActorActions(Actor actor, XmlReader.Element element) {
-        for (XmlReader.Element child : element.getChildrenByName("Action")) {
-            String definition = child.getText();
-            AnimScript script;
-            try {
-                script = mAnimScriptloader.load(definition, mDimParser);
-            } catch (AnimScriptLoader.SyntaxException e) {
-                NLog.e("Failed to parse:\n" + definition + "\n\n%s", e);
-                continue;
-            }
+    private void createActorActions(Actor actor, UiTemplate.ActorInfo info) {
+        for (AnimScript script : info.getScripts(mAnimScriptloader, mDimParser)) {
             actor.addAction(script.createAction());
         }
     }
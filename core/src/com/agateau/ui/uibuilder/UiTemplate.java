@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.ui.uibuilder;
+
+import com.agateau.ui.DimensionParser;
+import com.agateau.ui.anchor.Anchor;
+import com.agateau.ui.animscript.AnimScript;
+import com.agateau.ui.animscript.AnimScriptLoader;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.XmlReader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The parsed content of a .gdxui file, which UiBuilder can build any number of times.
+ *
+ * <p>The properties UiBuilder applies to all actors are compiled into an ActorInfo the first time
+ * an element is built, so that building it again does not have to parse them.
+ */
+class UiTemplate {
+    static final String[] ANCHOR_NAMES = {
+        "topLeft",
+        "topCenter",
+        "topRight",
+        "centerLeft",
+        "center",
+        "centerRight",
+        "bottomLeft",
+        "bottomCenter",
+        "bottomRight"
+    };
+    static final Anchor[] ANCHORS = {
+        Anchor.TOP_LEFT,
+        Anchor.TOP_CENTER,
+        Anchor.TOP_RIGHT,
+        Anchor.CENTER_LEFT,
+        Anchor.CENTER,
+        Anchor.CENTER_RIGHT,
+        Anchor.BOTTOM_LEFT,
+        Anchor.BOTTOM_CENTER,
+        Anchor.BOTTOM_RIGHT
+    };
+
+    /** An anchor rule whose reference actor has not been resolved yet */
+    static class RuleInfo {
+        final String referenceId;
+        final Anchor referenceAnchor;
+        final Anchor targetAnchor;
+        final DimensionParser.Dimension hSpace;
+        final DimensionParser.Dimension vSpace;
+
+        RuleInfo(
+                String referenceId,
+                Anchor referenceAnchor,
+                Anchor targetAnchor,
+                DimensionParser.Dimension hSpace,
+                DimensionParser.Dimension vSpace) {
+            this.referenceId = referenceId;
+            this.referenceAnchor = referenceAnchor;
+            this.targetAnchor = targetAnchor;
+            this.hSpace = hSpace;
+            this.vSpace = vSpace;
+        }
+    }
+
+    /** The compiled properties of an element. Fields are null if the attribute is not set. */
+    static class ActorInfo {
+        DimensionParser.Dimension x;
+        DimensionParser.Dimension y;
+        DimensionParser.Dimension width;
+        DimensionParser.Dimension height;
+        DimensionParser.Dimension originX;
+        DimensionParser.Dimension originY;
+        Boolean visible;
+        Color color;
+        String debug;
+        boolean fillParent;
+        final Array<RuleInfo> rules = new Array<>();
+
+        private final Array<String> mActionDefinitions = new Array<>();
+        private Array<AnimScript> mScripts;
+        private float mScriptsGridSize;
+
+        /**
+         * Returns the scripts of the Action children. Scripts depend on the grid size, so they are
+         * only loaded again if it changed.
+         */
+        Array<AnimScript> getScripts(AnimScriptLoader loader, DimensionParser dimParser) {
+            if (mScripts != null && mScriptsGridSize == dimParser.gridSize) {
+                return mScripts;
+            }
+            mScripts = new Array<>();
+            mScriptsGridSize = dimParser.gridSize;
+            for (String definition : mActionDefinitions) {
+                try {
+                    mScripts.add(loader.load(definition, dimParser));
+                } catch (AnimScriptLoader.SyntaxException e) {
+                    NLog.e("Failed to parse:\n" + definition + "\n\n%s", e);
+                }
+            }
+            return mScripts;
+        }
+    }
+
+    private final XmlReader.Element mRoot;
+    private final Map<XmlReader.Element, ActorInfo> mActorInfos = new HashMap<>();
+
+    UiTemplate(XmlReader.Element root) {
+        mRoot = root;
+    }
+
+    XmlReader.Element getRoot() {
+        return mRoot;
+    }
+
+    ActorInfo getActorInfo(XmlReader.Element element) throws UiBuilder.SyntaxException {
+        ActorInfo info = mActorInfos.get(element);
+        if (info == null) {
+            info = compile(element);
+            mActorInfos.put(element, info);
+        }
+        return info;
+    }
+
+    private static ActorInfo compile(XmlReader.Element element) throws UiBuilder.SyntaxException {
+        ActorInfo info = new ActorInfo();
+        info.x = parseDimension(element, "x");
+        info.y = parseDimension(element, "y");
+        info.width = parseDimension(element, "width");
+        info.height = parseDimension(element, "height");
+        info.originX = parseDimension(element, "originX");
+        info.originY = parseDimension(element, "originY");
+        String attr = element.getAttribute("visible", "");
+        if (!attr.isEmpty()) {
+            info.visible = Boolean.parseBoolean(attr);
+        }
+        attr = element.getAttribute("color", "");
+        if (!attr.isEmpty()) {
+            info.color = Color.valueOf(attr);
+        }
+        attr = element.getAttribute("debug", "");
+        if (!attr.isEmpty()) {
+            info.debug = attr.toLowerCase();
+        }
+        info.fillParent = element.getBooleanAttribute("fillParent", false);
+        for (int idx = 0, size = ANCHOR_NAMES.length; idx < size; ++idx) {
+            attr = element.getAttribute(ANCHOR_NAMES[idx], "");
+            if (!attr.isEmpty()) {
+                info.rules.add(parseRule(attr, ANCHORS[idx]));
+            }
+        }
+        for (XmlReader.Element child : element.getChildrenByName("Action")) {
+            info.mActionDefinitions.add(child.getText());
+        }
+        return info;
+    }
+
+    private static DimensionParser.Dimension parseDimension(
+            XmlReader.Element element, String name) {
+        String attr = element.getAttribute(name, "");
+        if (attr.isEmpty()) {
+            return null;
+        }
+        return DimensionParser.parseDimension(attr, DimensionParser.Unit.PIXEL);
+    }
+
+    /** Parse a string of the form "$actorId.$anchorName [$xOffset $yOffset]" */
+    private static RuleInfo parseRule(String txt, Anchor targetAnchor)
+            throws UiBuilder.SyntaxException {
+        String[] tokens = txt.split(" +");
+        if (tokens.length != 1 && tokens.length != 3) {
+            throw new UiBuilder.SyntaxException("Invalid rule syntax: " + txt);
+        }
+        String[] tokens2 = tokens[0].split("\\.");
+        if (tokens2.length != 2) {
+            throw new UiBuilder.SyntaxException(
+                    "reference should be of the form <id>.<anchor>: " + txt);
+        }
+        Anchor referenceAnchor = null;
+        for (int idx = 0, size = ANCHOR_NAMES.length; idx < size; ++idx) {
+            if (tokens2[1].equals(ANCHOR_NAMES[idx])) {
+                referenceAnchor = ANCHORS[idx];
+                break;
+            }
+        }
+        if (referenceAnchor == null) {
+            throw new UiBuilder.SyntaxException("Invalid anchor name: '" + tokens2[1] + "'");
+        }
+        DimensionParser.Dimension hSpace = null;
+        DimensionParser.Dimension vSpace = null;
+        if (tokens.length == 3) {
+            hSpace = DimensionParser.parseDimension(tokens[1], DimensionParser.Unit.GRID);
+            vSpace = DimensionParser.parseDimension(tokens[2], DimensionParser.Unit.GRID);
+        }
+        return new RuleInfo(tokens2[0], referenceAnchor, targetAnchor, hSpace, vSpace);
+    }
+}
@@ -54,6 +54,18 @@ public abstract class CircularArray<T> {
         return (idx + 1) % mItems.length;
     }
 
+    /**
+     * Creates all the instances now, so that add() never allocates. Useful when add() is called
+     * from code which runs at every frame.
+     */
+    public void preallocate() {
+        for (int idx = 0; idx < mItems.length; ++idx) {
+            if (mItems[idx] == null) {
+                mItems[idx] = createInstance();
+            }
+        }
+    }
+
     public T add() {
         T element = mItems[mEnd];
         if (element == null) {
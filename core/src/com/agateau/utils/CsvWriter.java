@@ -59,4 +59,13 @@ public class CsvWriter {
             e.printStackTrace();
         }
     }
+
+    public void close() {
+        try {
+            mWriter.close();
+        } catch (IOException e) {
+            NLog.e("Failed to close CSV file");
+            e.printStackTrace();
+        }
+    }
 }
@@ -22,6 +22,7 @@ import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.XmlReader;
+import java.util.zip.CRC32;
 
 public class FileUtils {
     public static String appName = "unnamed";
@@ -63,4 +64,11 @@ public class FileUtils {
         }
         return root;
     }
+
+    /** Returns the CRC32 of the content of @p file */
+    public static long computeChecksum(FileHandle file) {
+        CRC32 crc = new CRC32();
+        crc.update(file.readBytes());
+        return crc.getValue();
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils;
+
+import com.badlogic.gdx.utils.ReflectionPool;
+
+/**
+ * A ReflectionPool which counts how many objects have been obtained and freed.
+ *
+ * <p>Objects which are obtained but never freed are "live". If the number of live objects does not
+ * go back to 0 when all the objects are supposed to have been released, a free() call is missing.
+ */
+public class InstrumentedPool<T> extends ReflectionPool<T> {
+    private int mObtainCount = 0;
+    private int mFreeCount = 0;
+    private int mPeakLiveCount = 0;
+
+    public InstrumentedPool(Class<T> type) {
+        super(type);
+    }
+
+    @Override
+    public T obtain() {
+        ++mObtainCount;
+        mPeakLiveCount = Math.max(mPeakLiveCount, getLiveCount());
+        return super.obtain();
+    }
+
+    @Override
+    public void free(T object) {
+        super.free(object);
+        ++mFreeCount;
+    }
+
+    public int getObtainCount() {
+        return mObtainCount;
+    }
+
+    public int getFreeCount() {
+        return mFreeCount;
+    }
+
+    /** Returns the number of objects which have been obtained and not freed yet */
+    public int getLiveCount() {
+        return mObtainCount - mFreeCount;
+    }
+
+    public int getPeakLiveCount() {
+        return mPeakLiveCount;
+    }
+
+    /** Restarts peak tracking from the current number of live objects */
+    public void resetPeakLiveCount() {
+        mPeakLiveCount = getLiveCount();
+    }
+}
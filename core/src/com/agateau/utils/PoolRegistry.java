@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils;
+
+import com.badlogic.gdx.utils.ObjectMap;
+
+/** Keeps track of long-lived pools, so that their sizes can be monitored */
+public class PoolRegistry {
+    private static final ObjectMap<String, InstrumentedPool<?>> sPools = new ObjectMap<>();
+
+    /** Registers @p pool as @p name, and returns it, so that it can be used in initializers */
+    public static <T extends InstrumentedPool<?>> T register(String name, T pool) {
+        Assert.check(!sPools.containsKey(name), "A pool named " + name + " already exists");
+        sPools.put(name, pool);
+        return pool;
+    }
+
+    public static ObjectMap<String, InstrumentedPool<?>> getPools() {
+        return sPools;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils;
+
+/**
+ * Gives access to runtime statistics which are not available through a portable API.
+ *
+ * <p>Launchers call setProvider() with an implementation suitable for their platform. Without a
+ * provider, all statistics are unknown.
+ */
+public class RuntimeStats {
+    public static final long UNKNOWN = -1;
+
+    public interface Provider {
+        /** Returns the number of garbage collections since the start, or UNKNOWN */
+        long getGcCount();
+
+        /**
+         * Returns the number of bytes allocated by the current thread since it started, or UNKNOWN.
+         * Allocations made by the provider itself must not be counted.
+         */
+        long getThreadAllocatedBytes();
+
+        /**
+         * Returns the number of bytes allocated by all threads since the start, or UNKNOWN. This is
+         * meant to compute allocation rates, so it does not need to be precise.
+         */
+        long getAllocatedBytes();
+    }
+
+    private static class UnknownProvider implements Provider {
+        @Override
+        public long getGcCount() {
+            return UNKNOWN;
+        }
+
+        @Override
+        public long getThreadAllocatedBytes() {
+            return UNKNOWN;
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return UNKNOWN;
+        }
+    }
+
+    private static Provider sProvider = new UnknownProvider();
+
+    /** Sets the provider for the platform. Passing null makes all statistics unknown again. */
+    public static void setProvider(Provider provider) {
+        sProvider = provider == null ? new UnknownProvider() : provider;
+    }
+
+    public static long getGcCount() {
+        return sProvider.getGcCount();
+    }
+
+    public static long getThreadAllocatedBytes() {
+        return sProvider.getThreadAllocatedBytes();
+    }
+
+    public static long getAllocatedBytes() {
+        return sProvider.getAllocatedBytes();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/** Reads a file created by TelemetryRecorder */
+public class TelemetryReader {
+    private final Array<String> mNames = new Array<>();
+    private final Array<TelemetryRecorder.Type> mTypes = new Array<>();
+    private final Array<FloatArray> mFloats = new Array<>();
+    private final Array<IntArray> mInts = new Array<>();
+    private int mRowCount = 0;
+
+    public TelemetryReader(FileHandle file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.read()))) {
+            readHeader(in);
+            while (readBlock(in)) {}
+        }
+    }
+
+    public int getChannelCount() {
+        return mNames.size;
+    }
+
+    public String getChannelName(int channel) {
+        return mNames.get(channel);
+    }
+
+    public TelemetryRecorder.Type getChannelType(int channel) {
+        return mTypes.get(channel);
+    }
+
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    public float getFloat(int channel, int row) {
+        return mFloats.get(channel).get(row);
+    }
+
+    public int getInt(int channel, int row) {
+        return mInts.get(channel).get(row);
+    }
+
+    private void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != TelemetryRecorder.MAGIC) {
+            throw new IOException("Not a telemetry file");
+        }
+        int version = in.readInt();
+        if (version != TelemetryRecorder.FORMAT_VERSION) {
+            throw new IOException("Unsupported telemetry format version " + version);
+        }
+        int channelCount = in.readInt();
+        TelemetryRecorder.Type[] types = TelemetryRecorder.Type.values();
+        for (int channel = 0; channel < channelCount; ++channel) {
+            mNames.add(in.readUTF());
+            TelemetryRecorder.Type type = types[in.readByte()];
+            mTypes.add(type);
+            mFloats.add(type == TelemetryRecorder.Type.FLOAT ? new FloatArray() : null);
+            mInts.add(type == TelemetryRecorder.Type.INT ? new IntArray() : null);
+        }
+    }
+
+    /** Returns false when there are no more blocks */
+    private boolean readBlock(DataInputStream in) throws IOException {
+        int rowCount;
+        try {
+            rowCount = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        for (int channel = 0; channel < mTypes.size; ++channel) {
+            if (mTypes.get(channel) == TelemetryRecorder.Type.FLOAT) {
+                FloatArray values = mFloats.get(channel);
+                for (int row = 0; row < rowCount; ++row) {
+                    values.add(in.readFloat());
+                }
+            } else {
+                IntArray values = mInts.get(channel);
+                for (int row = 0; row < rowCount; ++row) {
+                    values.add(in.readInt());
+                }
+            }
+        }
+        mRowCount += rowCount;
+        return true;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Records the values of typed channels, one row per frame, in a binary file.
+ *
+ * <p>Rows are stored in preallocated column buffers. When a block of rows is full it is written by
+ * a background thread, so recording a row never formats text nor touches the disk.
+ *
+ * <p>File format, as written by DataOutputStream:
+ *
+ * <ul>
+ *   <li>MAGIC, FORMAT_VERSION
+ *   <li>channel count, then for each channel its name and its type ordinal
+ *   <li>blocks: row count, then for each channel the values of all the rows of the block
+ * </ul>
+ *
+ * TelemetryReader reads this format back.
+ */
+public class TelemetryRecorder implements Disposable {
+    static final int MAGIC = 0x50575456;
+    static final int FORMAT_VERSION = 1;
+    private static final int ROWS_PER_BLOCK = 1024;
+
+    public enum Type {
+        FLOAT,
+        INT
+    }
+
+    private static class Block {
+        final float[][] floats;
+        final int[][] ints;
+        int rowCount = 0;
+
+        Block(int channelCount) {
+            floats = new float[channelCount][];
+            ints = new int[channelCount][];
+        }
+    }
+
+    private final DataOutputStream mOut;
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "TelemetryRecorder");
+    private final Array<String> mNames = new Array<>();
+    private final Array<Type> mTypes = new Array<>();
+    // Blocks which have been written and can be reused
+    private final Array<Block> mFreeBlocks = new Array<>();
+
+    private float[] mCurrentFloats;
+    private int[] mCurrentInts;
+    private Block mBlock;
+    private boolean mFailed = false;
+
+    public TelemetryRecorder(FileHandle file) {
+        mOut = new DataOutputStream(new BufferedOutputStream(file.write(false /* append */)));
+    }
+
+    /** Adds a channel and returns its index. Must be called before recording the first row. */
+    public int addChannel(String name, Type type) {
+        Assert.check(mCurrentFloats == null, "Cannot add channels once recording started");
+        mNames.add(name);
+        mTypes.add(type);
+        return mNames.size - 1;
+    }
+
+    /** Sets the value of @p channel in the current row. Values are kept for the next rows. */
+    public void setFloat(int channel, float value) {
+        ensureStarted();
+        mCurrentFloats[channel] = value;
+    }
+
+    public void setInt(int channel, int value) {
+        ensureStarted();
+        mCurrentInts[channel] = value;
+    }
+
+    public void endRow() {
+        ensureStarted();
+        int row = mBlock.rowCount;
+        for (int channel = 0; channel < mTypes.size; ++channel) {
+            if (mTypes.get(channel) == Type.FLOAT) {
+                mBlock.floats[channel][row] = mCurrentFloats[channel];
+            } else {
+                mBlock.ints[channel][row] = mCurrentInts[channel];
+            }
+        }
+        ++mBlock.rowCount;
+        if (mBlock.rowCount == ROWS_PER_BLOCK) {
+            submitBlock();
+        }
+    }
+
+    /** Writes the pending rows and closes the file. Blocks until everything has been written. */
+    @Override
+    public void dispose() {
+        if (mBlock != null && mBlock.rowCount > 0) {
+            submitBlock();
+        }
+        boolean started = mCurrentFloats != null;
+        mExecutor.submit(
+                () -> {
+                    if (!started) {
+                        // No rows have been recorded, still write a valid file
+                        writeHeader();
+                    }
+                    mOut.close();
+                    return null;
+                });
+        mExecutor.dispose();
+    }
+
+    private void ensureStarted() {
+        if (mCurrentFloats != null) {
+            return;
+        }
+        mCurrentFloats = new float[mTypes.size];
+        mCurrentInts = new int[mTypes.size];
+        mExecutor.submit(
+                () -> {
+                    writeHeader();
+                    return null;
+                });
+        mBlock = obtainBlock();
+    }
+
+    private void submitBlock() {
+        Block block = mBlock;
+        mExecutor.submit(
+                () -> {
+                    writeBlock(block);
+                    synchronized (mFreeBlocks) {
+                        mFreeBlocks.add(block);
+                    }
+                    return null;
+                });
+        mBlock = obtainBlock();
+    }
+
+    private Block obtainBlock() {
+        synchronized (mFreeBlocks) {
+            if (mFreeBlocks.size > 0) {
+                Block block = mFreeBlocks.pop();
+                block.rowCount = 0;
+                return block;
+            }
+        }
+        Block block = new Block(mTypes.size);
+        for (int channel = 0; channel < mTypes.size; ++channel) {
+            if (mTypes.get(channel) == Type.FLOAT) {
+                block.floats[channel] = new float[ROWS_PER_BLOCK];
+            } else {
+                block.ints[channel] = new int[ROWS_PER_BLOCK];
+            }
+        }
+        return block;
+    }
+
+    private void writeHeader() {
+        try {
+            mOut.writeInt(MAGIC);
+            mOut.writeInt(FORMAT_VERSION);
+            mOut.writeInt(mNames.size);
+            for (int channel = 0; channel < mNames.size; ++channel) {
+                mOut.writeUTF(mNames.get(channel));
+                mOut.writeByte(mTypes.get(channel).ordinal());
+            }
+        } catch (IOException e) {
+            onWriteError(e);
+        }
+    }
+
+    private void writeBlock(Block block) {
+        if (mFailed) {
+            return;
+        }
+        try {
+            mOut.writeInt(block.rowCount);
+            for (int channel = 0; channel < mTypes.size; ++channel) {
+                if (mTypes.get(channel) == Type.FLOAT) {
+                    float[] values = block.floats[channel];
+                    for (int row = 0; row < block.rowCount; ++row) {
+                        mOut.writeFloat(values[row]);
+                    }
+                } else {
+                    int[] values = block.ints[channel];
+                    for (int row = 0; row < block.rowCount; ++row) {
+                        mOut.writeInt(values[row]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            onWriteError(e);
+        }
+    }
+
+    private void onWriteError(IOException e) {
+        NLog.e("Failed to write telemetry: %s", e);
+        mFailed = true;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils;
+
+import java.util.Arrays;
+
+/**
+ * Records durations, in microseconds, and provides percentiles for them.
+ *
+ * <p>Durations are counted in buckets whose width grows with the duration: each power of two is
+ * split into SUB_BUCKET_COUNT buckets of the same width. This way percentiles are within
+ * 1/SUB_BUCKET_COUNT of the real value, whatever the range, and recording a value never allocates.
+ */
+public class TimeHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // Durations longer than 2^(MAX_EXPONENT + 1) µs (about a minute) all go in the last bucket
+    private static final int MAX_EXPONENT = 25;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final int[] mCounts = new int[BUCKET_COUNT];
+    private int mCount = 0;
+    private long mMax = 0;
+    private long mTotal = 0;
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mCounts[getBucketIndex(value)]++;
+        mCount++;
+        mTotal += value;
+        mMax = Math.max(mMax, value);
+    }
+
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mTotal = 0;
+        mMax = 0;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    public long getMean() {
+        return mCount == 0 ? 0 : mTotal / mCount;
+    }
+
+    /**
+     * Returns the smallest duration which is greater or equal to @p percentile percent of the
+     * recorded durations. The result is rounded up to the end of its bucket, but never exceeds the
+     * longest recorded duration.
+     */
+    public long getPercentile(float percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        int rank = Math.max((int) Math.ceil(mCount * percentile / 100), 1);
+        int seen = 0;
+        for (int idx = 0; idx < BUCKET_COUNT; ++idx) {
+            seen += mCounts[idx];
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBound(idx), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /** Returns the largest value which goes in bucket @p index */
+    static long getBucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
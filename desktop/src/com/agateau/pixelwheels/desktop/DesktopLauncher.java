@@ -21,19 +21,40 @@ package com.agateau.pixelwheels.desktop;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.screens.PwStageScreen;
 import com.agateau.utils.FileUtils;
+import com.agateau.utils.RuntimeStats;
 import com.badlogic.gdx.Files;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import java.io.File;
 
 public class DesktopLauncher {
+    private static final String USAGE = "Usage: pixelwheels [--benchmark <file.pwrace> [--fast]]";
+
     public static void main(String[] arg) {
+        PwGame game = new PwGame();
+        // When false, the benchmark runs with vsync enabled, so frame times are capped by the
+        // display refresh rate, like in a real game
+        boolean fast = false;
+        for (int idx = 0; idx < arg.length; ++idx) {
+            if (arg[idx].equals("--benchmark") && idx + 1 < arg.length) {
+                ++idx;
+                game.setBenchmarkPath(new File(arg[idx]).getAbsolutePath());
+            } else if (arg[idx].equals("--fast")) {
+                fast = true;
+            } else {
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+
         Lwjgl3ApplicationConfiguration config = new Lwjgl3ApplicationConfiguration();
         config.setWindowedMode(PwStageScreen.WIDTH, PwStageScreen.HEIGHT);
         config.setWindowIcon("desktop-icon/desktop-icon.png");
         config.setTitle("Pixel Wheels");
         config.setPreferencesConfig(".config/agateau.com", Files.FileType.External);
-        config.useVsync(true);
+        config.useVsync(!fast);
         FileUtils.appName = "pixelwheels";
-        new Lwjgl3Application(new PwGame(), config);
+        RuntimeStats.setProvider(new DesktopRuntimeStatsProvider());
+        new Lwjgl3Application(game, config);
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.desktop;
+
+import com.agateau.utils.RuntimeStats;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Provides runtime statistics using the JVM management beans. Also used by HotPathAllocationTests.
+ */
+public class DesktopRuntimeStatsProvider implements RuntimeStats.Provider {
+    // An array rather than a list, so that iterating over it does not allocate
+    private final GarbageCollectorMXBean[] mGcBeans =
+            ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+    private final com.sun.management.ThreadMXBean mThreadBean;
+
+    // Some JVMs allocate when asked for the allocated bytes of a thread. Count the calls so that
+    // this can be subtracted from the result. This assumes the method is always called from the
+    // same thread, which is the case for the frame profiler.
+    private long mAllocationOverhead = 0;
+    private long mAllocationCallCount = 0;
+
+    public DesktopRuntimeStatsProvider() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            mThreadBean = (com.sun.management.ThreadMXBean) bean;
+            mThreadBean.setThreadAllocatedMemoryEnabled(true);
+            mAllocationOverhead = measureAllocationOverhead();
+        } else {
+            mThreadBean = null;
+        }
+    }
+
+    @Override
+    public long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : mGcBeans) {
+            // getCollectionCount() returns -1 for collectors which do not count
+            count += Math.max(bean.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    @Override
+    public long getThreadAllocatedBytes() {
+        if (mThreadBean == null) {
+            return RuntimeStats.UNKNOWN;
+        }
+        long bytes = readThreadAllocatedBytes();
+        long result = bytes - mAllocationOverhead * mAllocationCallCount;
+        ++mAllocationCallCount;
+        return result;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        if (mThreadBean == null) {
+            return RuntimeStats.UNKNOWN;
+        }
+        // Threads which have ended are not counted, so this can decrease
+        long bytes = 0;
+        for (long value : mThreadBean.getThreadAllocatedBytes(mThreadBean.getAllThreadIds())) {
+            // -1 is returned for threads which ended while we were asking
+            bytes += Math.max(value, 0);
+        }
+        return bytes;
+    }
+
+    private long readThreadAllocatedBytes() {
+        return mThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private long measureAllocationOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; ++i) {
+            long before = readThreadAllocatedBytes();
+            long after = readThreadAllocatedBytes();
+            overhead = Math.min(after - before, overhead);
+        }
+        return overhead;
+    }
+}
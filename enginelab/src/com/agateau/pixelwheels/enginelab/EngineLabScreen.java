@@ -31,7 +31,6 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
-import java.util.Locale;
 
 /** Main screen for EngineLab */
 class EngineLabScreen extends StageScreen {
@@ -80,11 +79,7 @@ class EngineLabScreen extends StageScreen {
 
     private void setupEngineLab() {
         SoundAtlas soundAtlas = new SoundAtlas(Gdx.files.internal("sounds"));
-        for (int i = 0; i < 5; ++i) {
-            String name = String.format(Locale.US, "engine-%d", i);
-            String filename = String.format(Locale.US, "loop_%d_0.wav", i + 1);
-            soundAtlas.load(filename, name);
-        }
+        EngineSoundPlayer.loadSounds(soundAtlas);
         mEngineSoundPlayer = new EngineSoundPlayer(soundAtlas, new DefaultAudioManager());
     }
 
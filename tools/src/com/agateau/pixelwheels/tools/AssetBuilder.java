@@ -0,0 +1,274 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.tools;
+
+import static org.mockito.Mockito.mock;
+
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.ui.FontCache;
+import com.agateau.ui.UiAssets;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.XmlReader;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Generates the assets derived from other assets: compiled tracks, lap position tables, texture
+ * atlases, baked fonts and map screenshots.
+ *
+ * <p>By default AssetBuilder runs headless, so that it can run on a build server: loading a map
+ * creates textures, but never draws them, so a mock GL is enough. Map screenshots are the
+ * exception: they are rendered, so they are only generated when the --screenshots option is given,
+ * which requires a display. Map screenshots are packed in the ui atlas, so run AssetBuilder
+ * --screenshots first when the maps changed.
+ *
+ * <p>Only the assets whose inputs changed since the previous run are generated again. The hashes of
+ * the inputs are kept in an AssetManifest. Baked fonts do not need it: their names already contain
+ * a hash of their inputs.
+ */
+public class AssetBuilder {
+    private static final String MANIFEST_PATH = "build/asset-manifest.txt";
+    private static final String SCREENSHOTS_DIR = "core/assets/ui/map-screenshots";
+    private static final String LAP_TABLES_DIR = "build/lap-position-tables";
+
+    private final FileHandle mBaseDir;
+    private final FileHandle mAssetsDir;
+    private final AssetManifest mManifest;
+
+    public static void main(String[] args) {
+        boolean screenshots = args.length > 0 && args[0].equals("--screenshots");
+        String baseDir = args.length > (screenshots ? 1 : 0) ? args[args.length - 1] : ".";
+        AssetBuilder builder = new AssetBuilder(new FileHandle(baseDir));
+        if (screenshots) {
+            new CommandLineApplication("AssetBuilder", args) {
+                @Override
+                int run(String[] arguments) {
+                    return builder.run(builder::generateScreenshots);
+                }
+            };
+            return;
+        }
+        new HeadlessApplication(
+                new ApplicationAdapter() {}, new HeadlessApplicationConfiguration());
+        // The headless backend has no GL: textures are created but never uploaded
+        Gdx.gl = mock(GL20.class);
+        Gdx.gl20 = Gdx.gl;
+        System.exit(builder.run(builder::build));
+    }
+
+    private interface Step {
+        void run() throws IOException;
+    }
+
+    private AssetBuilder(FileHandle baseDir) {
+        mBaseDir = baseDir;
+        mAssetsDir = baseDir.child("android/assets");
+        mManifest = new AssetManifest(baseDir.child(MANIFEST_PATH));
+    }
+
+    private int run(Step step) {
+        try {
+            step.run();
+        } catch (IOException e) {
+            NLog.e("Failed to build assets: %s", e);
+            return 1;
+        } finally {
+            // Save even if a step failed, so that the assets generated before are not generated
+            // again on the next run
+            mManifest.save();
+        }
+        NLog.i("Done");
+        return 0;
+    }
+
+    private void build() throws IOException {
+        compileTracks();
+        generateLapTables();
+        packTextures();
+        bakeFonts();
+    }
+
+    private Array<FileHandle> listTmxFiles() {
+        return new Array<>(mAssetsDir.child("maps").list(".tmx"));
+    }
+
+    private void compileTracks() throws IOException {
+        FileHandle outputDir = mAssetsDir.child(Track.COMPILED_DIR);
+        for (FileHandle tmxFile : listTmxFiles()) {
+            FileHandle compiledFile =
+                    outputDir.child(tmxFile.nameWithoutExtension() + Track.COMPILED_EXTENSION);
+            String key = "track:" + tmxFile.name();
+            AssetManifest.Hash hash =
+                    new AssetManifest.Hash()
+                            .add("format:" + Track.COMPILED_FORMAT_VERSION)
+                            .addFile(tmxFile);
+            // Track ignores compiled files older than their TMX file, so they must be compiled
+            // again even if the content of the TMX file did not change
+            if (mManifest.isUpToDate(key, hash, compiledFile)
+                    && compiledFile.lastModified() >= tmxFile.lastModified()) {
+                continue;
+            }
+            NLog.i("%s: compiling", compiledFile.path());
+            outputDir.mkdirs();
+            Track.compile(tmxFile, compiledFile);
+            mManifest.update(key, hash);
+        }
+    }
+
+    /** Lap position tables only depend on the sections of the TMX file */
+    private void generateLapTables() {
+        FileHandle outputDir = mBaseDir.child(LAP_TABLES_DIR);
+        Array<String> keys = new Array<>();
+        Array<AssetManifest.Hash> hashes = new Array<>();
+        Array<ForkJoinTask<?>> tasks = new Array<>();
+        for (FileHandle tmxFile : listTmxFiles()) {
+            FileHandle tableFile = outputDir.child(tmxFile.nameWithoutExtension() + ".png");
+            String key = "laptable:" + tmxFile.name();
+            AssetManifest.Hash hash = new AssetManifest.Hash().addFile(tmxFile);
+            if (mManifest.isUpToDate(key, hash, tableFile)) {
+                continue;
+            }
+            NLog.i("%s: generating", tableFile.path());
+            keys.add(key);
+            hashes.add(hash);
+            tasks.add(LapPositionTableGenerator.generateTable(tmxFile, tableFile));
+        }
+        for (int idx = 0; idx < tasks.size; ++idx) {
+            tasks.get(idx).join();
+            mManifest.update(keys.get(idx), hashes.get(idx));
+        }
+    }
+
+    /** Must be called from the GL thread */
+    private void generateScreenshots() {
+        FileHandle outputDir = mBaseDir.child(SCREENSHOTS_DIR);
+        Array<String> keys = new Array<>();
+        Array<AssetManifest.Hash> hashes = new Array<>();
+        Array<ForkJoinTask<?>> tasks = new Array<>();
+        for (FileHandle tmxFile : listTmxFiles()) {
+            FileHandle shotFile =
+                    outputDir.child(tmxFile.nameWithoutExtension() + "-generated.png");
+            String key = "screenshot:" + tmxFile.name();
+            AssetManifest.Hash hash = new AssetManifest.Hash().addFile(tmxFile);
+            addTilesetImages(hash, tmxFile);
+            if (mManifest.isUpToDate(key, hash, shotFile)) {
+                continue;
+            }
+            NLog.i("%s: generating", shotFile.path());
+            keys.add(key);
+            hashes.add(hash);
+            tasks.add(MapScreenshotGenerator.generate(tmxFile, shotFile));
+        }
+        for (int idx = 0; idx < tasks.size; ++idx) {
+            tasks.get(idx).join();
+            mManifest.update(keys.get(idx), hashes.get(idx));
+        }
+    }
+
+    /** Screenshots depend on the tileset images, not only on the TMX file */
+    private static void addTilesetImages(AssetManifest.Hash hash, FileHandle file) {
+        XmlReader.Element root = new XmlReader().parse(file);
+        for (XmlReader.Element tileset : root.getChildrenByName("tileset")) {
+            String source = tileset.getAttribute("source", null);
+            if (source != null) {
+                // External tileset
+                FileHandle tsxFile = file.sibling(source);
+                hash.addFile(tsxFile);
+                addTilesetImages(hash, tsxFile);
+                continue;
+            }
+            XmlReader.Element image = tileset.getChildByName("image");
+            if (image != null) {
+                hash.addFile(file.sibling(image.getAttribute("source")));
+            }
+        }
+        // A tsx file has a tileset root element
+        if (root.getName().equals("tileset")) {
+            XmlReader.Element image = root.getChildByName("image");
+            if (image != null) {
+                hash.addFile(file.sibling(image.getAttribute("source")));
+            }
+        }
+    }
+
+    private void packTextures() {
+        packAtlas("sprites", "sprites", Texture.TextureFilter.Nearest);
+        packAtlas("ui", "uiskin", Texture.TextureFilter.Linear);
+    }
+
+    private void packAtlas(String dirName, String packName, Texture.TextureFilter filter) {
+        FileHandle inputDir = mBaseDir.child("core/assets/" + dirName);
+        FileHandle outputDir = mAssetsDir.child(dirName);
+        FileHandle atlasFile = outputDir.child(packName + ".atlas");
+        String key = "atlas:" + packName;
+        AssetManifest.Hash hash = new AssetManifest.Hash().add(filter.name()).addDir(inputDir);
+        if (mManifest.isUpToDate(key, hash, atlasFile)) {
+            return;
+        }
+        NLog.i("%s: packing", atlasFile.path());
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.filterMin = filter;
+        settings.filterMag = filter;
+        settings.pot = false;
+        settings.combineSubdirectories = true;
+        TexturePacker.process(settings, inputDir.path(), outputDir.path(), packName);
+        mManifest.update(key, hash);
+    }
+
+    /** Generates the fonts, so that the game does not have to run FreeType on startup */
+    private void bakeFonts() throws IOException {
+        FileHandle outputDir = mAssetsDir.child(UiAssets.BAKED_FONTS_DIR);
+        Array<String> bakedNames = new Array<>();
+        for (UiAssets.FontDef def : UiAssets.getFontDefs()) {
+            FileHandle fontFile = mAssetsDir.child(def.path);
+            String bakedName = FontCache.getBakedName(fontFile, def.parameter);
+            bakedNames.add(bakedName);
+            if (FontCache.isBaked(outputDir, bakedName)) {
+                continue;
+            }
+            NLog.i("%s: baking", def.name);
+            FontCache.bake(fontFile, def.parameter, outputDir);
+        }
+        // Remove fonts baked with outdated parameters
+        for (FileHandle file : outputDir.list()) {
+            if (!isBakedFile(file.name(), bakedNames)) {
+                NLog.i("%s: removing", file.path());
+                file.delete();
+            }
+        }
+    }
+
+    private static boolean isBakedFile(String fileName, Array<String> bakedNames) {
+        for (String bakedName : bakedNames) {
+            if (fileName.startsWith(bakedName + ".") || fileName.startsWith(bakedName + "-")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
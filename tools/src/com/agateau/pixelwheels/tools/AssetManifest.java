@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Remembers the hash of the inputs used to generate each asset, so that AssetBuilder only
+ * regenerates the assets whose inputs changed.
+ *
+ * <p>The manifest is a text file with one "<hash> <key>" line per asset.
+ */
+class AssetManifest {
+    /** Computes a hash from the content of files and from strings */
+    static class Hash {
+        private final CRC32 mCrc = new CRC32();
+
+        Hash add(String text) {
+            mCrc.update(text.getBytes(StandardCharsets.UTF_8));
+            // Separate the fields, so that ("ab", "c") and ("a", "bc") have different hashes
+            mCrc.update(0);
+            return this;
+        }
+
+        Hash addFile(FileHandle file) {
+            add(file.name());
+            mCrc.update(file.readBytes());
+            return this;
+        }
+
+        /** Adds all the files of @p dir, recursively, in a stable order */
+        Hash addDir(FileHandle dir) {
+            Array<FileHandle> children = new Array<>(dir.list());
+            children.sort((f1, f2) -> f1.name().compareTo(f2.name()));
+            for (FileHandle child : children) {
+                if (child.isDirectory()) {
+                    add(child.name() + "/");
+                    addDir(child);
+                } else {
+                    addFile(child);
+                }
+            }
+            return this;
+        }
+
+        String get() {
+            return Long.toHexString(mCrc.getValue());
+        }
+    }
+
+    private final FileHandle mFile;
+    private final ObjectMap<String, String> mHashes = new ObjectMap<>();
+
+    AssetManifest(FileHandle file) {
+        mFile = file;
+        if (!mFile.exists()) {
+            return;
+        }
+        for (String line : mFile.readString("utf-8").split("\n")) {
+            int idx = line.indexOf(' ');
+            if (idx == -1) {
+                continue;
+            }
+            mHashes.put(line.substring(idx + 1), line.substring(0, idx));
+        }
+    }
+
+    /**
+     * Returns true if the asset identified by @p key was generated from inputs hashing to @p hash
+     * and all its @p outputs still exist
+     */
+    boolean isUpToDate(String key, Hash hash, FileHandle... outputs) {
+        if (!hash.get().equals(mHashes.get(key))) {
+            return false;
+        }
+        for (FileHandle output : outputs) {
+            if (!output.exists()) {
+                NLog.i("%s: %s is missing", key, output.path());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Must be called once the asset identified by @p key has been generated */
+    void update(String key, Hash hash) {
+        mHashes.put(key, hash.get());
+    }
+
+    void save() {
+        Array<String> keys = mHashes.keys().toArray();
+        keys.sort();
+        StringBuilder builder = new StringBuilder();
+        for (String key : keys) {
+            builder.append(mHashes.get(key)).append(' ').append(key).append('\n');
+        }
+        mFile.parent().mkdirs();
+        mFile.writeString(builder.toString(), false, "utf-8");
+    }
+}
@@ -20,6 +20,7 @@ package com.agateau.pixelwheels.tools;
 
 import com.agateau.pixelwheels.map.LapPositionTable;
 import com.agateau.pixelwheels.map.LapPositionTableIO;
+import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
@@ -27,30 +28,59 @@ import com.badlogic.gdx.graphics.PixmapIO;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
-/** Load a .tmx file and save its corresponding lap position table as a PNG file */
+/**
+ * Loads .tmx files and saves their corresponding lap position tables as PNG files. Tables are
+ * generated in parallel.
+ */
 public class LapPositionTableGenerator {
     public static void main(String[] args) {
         new CommandLineApplication("LapPositionTableGenerator", args) {
             @Override
             int run(String[] arguments) {
-                FileHandle tmxFile = Gdx.files.absolute(arguments[0]);
-                FileHandle tableFile = Gdx.files.absolute(arguments[1]);
-                LapPositionTableGenerator.generateTable(tmxFile, tableFile);
+                if (arguments.length == 0 || arguments.length % 2 != 0) {
+                    NLog.e(
+                            "Usage: LapPositionTableGenerator <tmxFile> <tableFile>"
+                                    + " [<tmxFile> <tableFile>...]");
+                    return 1;
+                }
+                Array<ForkJoinTask<?>> tasks = new Array<>();
+                for (int idx = 0; idx < arguments.length; idx += 2) {
+                    FileHandle tmxFile = Gdx.files.absolute(arguments[idx]);
+                    FileHandle tableFile = Gdx.files.absolute(arguments[idx + 1]);
+                    tasks.add(generateTable(tmxFile, tableFile));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
                 return 0;
             }
         };
     }
 
-    public static void generateTable(FileHandle tmxFile, FileHandle tableFile) {
+    /**
+     * Loads @p tmxFile, then generates and saves its table in the background. Must be called from
+     * the GL thread, or with a mock GL, since loading a map creates textures.
+     */
+    public static ForkJoinTask<?> generateTable(FileHandle tmxFile, FileHandle tableFile) {
         TiledMap map = new TmxMapLoader().load(tmxFile.path());
         LapPositionTable table = LapPositionTableIO.load(map);
 
         TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get(0);
         int width = layer.getWidth() * ((int) layer.getTileWidth());
         int height = layer.getHeight() * ((int) layer.getTileHeight());
+        map.dispose();
 
-        Pixmap pixmap = LapPositionTableIO.createPixmap(table, width, height);
-        PixmapIO.writePNG(tableFile, pixmap);
+        return ForkJoinPool.commonPool()
+                .submit(
+                        () -> {
+                            Pixmap pixmap = LapPositionTableIO.createPixmap(table, width, height);
+                            PixmapIO.writePNG(tableFile, pixmap);
+                            pixmap.dispose();
+                            NLog.i("%s: done", tableFile.path());
+                        });
     }
 }
@@ -29,9 +29,15 @@ import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ScreenUtils;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
-/** Loads a TMX file and creates a screenshot of it as a PNG file */
+/**
+ * Loads TMX files and creates screenshots of them as PNG files. Screenshots are always generated:
+ * use AssetBuilder to only regenerate outdated ones.
+ */
 public class MapScreenshotGenerator {
     private static final int SHOT_SIZE = 150;
 
@@ -39,10 +45,11 @@ public class MapScreenshotGenerator {
         new CommandLineApplication("MapScreenshotGenerator", args) {
             @Override
             int run(String[] arguments) {
+                Array<ForkJoinTask<?>> tasks = new Array<>();
                 if (arguments.length == 2) {
                     String shotFileName = arguments[0];
                     String tmxFileName = arguments[1];
-                    processFile(shotFileName, tmxFileName);
+                    tasks.add(processFile(shotFileName, tmxFileName));
                 } else {
                     FileHandle tmxDir = Gdx.files.absolute("android/assets/maps");
                     FileHandle shotDir = Gdx.files.absolute("core/assets/ui/map-screenshots");
@@ -52,31 +59,38 @@ public class MapScreenshotGenerator {
                                         + "/"
                                         + tmxFile.nameWithoutExtension()
                                         + "-generated.png";
-                        processFile(shotFileName, tmxFile.path());
+                        tasks.add(processFile(shotFileName, tmxFile.path()));
                     }
                 }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
                 return 0;
             }
         };
     }
 
-    private static void processFile(String shotFileName, String tmxFileName) {
+    private static ForkJoinTask<?> processFile(String shotFileName, String tmxFileName) {
         FileHandle tmxFile = Gdx.files.absolute(tmxFileName);
         FileHandle shotFile = Gdx.files.absolute(shotFileName);
-        if (isOutdated(shotFile, tmxFile)) {
-            NLog.i("%s: updating", shotFile.path());
-            Pixmap pix1 = generateScreenshot(tmxFile);
-            Pixmap pix2 = scaleScreenshot(pix1);
-            pix1.dispose();
-            PixmapIO.writePNG(shotFile, pix2);
-            pix2.dispose();
-        } else {
-            NLog.i("%s: up to date", shotFile.path());
-        }
+        NLog.i("%s: updating", shotFile.path());
+        return generate(tmxFile, shotFile);
     }
 
-    private static boolean isOutdated(FileHandle dst, FileHandle src) {
-        return dst.lastModified() < src.lastModified();
+    /**
+     * Renders the map on the GL thread, then scales and saves the screenshot in the background.
+     * Returns the background task.
+     */
+    static ForkJoinTask<?> generate(FileHandle tmxFile, FileHandle shotFile) {
+        Pixmap pix1 = generateScreenshot(tmxFile);
+        return ForkJoinPool.commonPool()
+                .submit(
+                        () -> {
+                            Pixmap pix2 = scaleScreenshot(pix1);
+                            pix1.dispose();
+                            PixmapIO.writePNG(shotFile, pix2);
+                            pix2.dispose();
+                        });
     }
 
     private static Pixmap generateScreenshot(FileHandle tmxFile) {
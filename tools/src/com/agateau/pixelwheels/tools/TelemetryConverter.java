@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.utils.TelemetryReader;
+import com.agateau.utils.TelemetryRecorder;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.IOException;
+import java.io.Writer;
+
+/** Converts a telemetry file recorded by the game to CSV */
+public class TelemetryConverter {
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: TelemetryConverter <telemetry.dat> <output.csv>");
+            System.exit(1);
+        }
+        try {
+            convert(new FileHandle(args[0]), new FileHandle(args[1]));
+        } catch (IOException e) {
+            System.err.println("Conversion failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    private static void convert(FileHandle input, FileHandle output) throws IOException {
+        TelemetryReader reader = new TelemetryReader(input);
+        int channelCount = reader.getChannelCount();
+        try (Writer writer = output.writer(false /* append */, "utf-8")) {
+            for (int channel = 0; channel < channelCount; ++channel) {
+                if (channel > 0) {
+                    writer.write(',');
+                }
+                writer.write(reader.getChannelName(channel));
+            }
+            writer.write('\n');
+            for (int row = 0; row < reader.getRowCount(); ++row) {
+                for (int channel = 0; channel < channelCount; ++channel) {
+                    if (channel > 0) {
+                        writer.write(',');
+                    }
+                    if (reader.getChannelType(channel) == TelemetryRecorder.Type.FLOAT) {
+                        writer.write(Float.toString(reader.getFloat(channel, row)));
+                    } else {
+                        writer.write(Integer.toString(reader.getInt(channel, row)));
+                    }
+                }
+                writer.write('\n');
+            }
+        }
+        System.out.println(reader.getRowCount() + " rows written to " + output.path());
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.IOException;
+
+/** Compiles the TMX files into the binary format loaded by Track */
+public class TrackCompiler {
+    public static void main(String[] args) {
+        new CommandLineApplication("TrackCompiler", args) {
+            @Override
+            int run(String[] arguments) {
+                String assetsDir = arguments.length > 0 ? arguments[0] : "android/assets";
+                FileHandle tmxDir = Gdx.files.absolute(assetsDir + "/maps");
+                FileHandle outputDir = Gdx.files.absolute(assetsDir + "/" + Track.COMPILED_DIR);
+                outputDir.mkdirs();
+                for (FileHandle tmxFile : tmxDir.list(".tmx")) {
+                    FileHandle compiledFile =
+                            outputDir.child(
+                                    tmxFile.nameWithoutExtension() + Track.COMPILED_EXTENSION);
+                    NLog.i("%s: compiling", compiledFile.path());
+                    try {
+                        Track.compile(tmxFile, compiledFile);
+                    } catch (IOException e) {
+                        NLog.e("Failed to compile %s: %s", tmxFile.path(), e);
+                        return 1;
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+}